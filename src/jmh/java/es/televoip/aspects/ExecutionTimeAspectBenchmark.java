@@ -0,0 +1,82 @@
+package es.televoip.aspects;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+/*
+*  Coste por llamada de ExecutionTimeAspect: llamada directa, a través de un proxy CGLIB sin consejos (lo que cuesta
+*  el proxy en sí) y a través del proxy con el aspecto (Timer de Micrometer y etiqueta de caché, sin log).
+*
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ExecutionTimeAspectBenchmark {
+
+   public static class Service {
+
+      @LogExecutionTime
+      public long work(long value) {
+         return value * 31 + 7;
+      }
+
+   }
+
+   private long value = 42;
+
+   private Service direct;
+
+   private Service proxied;
+
+   private Service timed;
+
+   @Setup
+   public void setUp() {
+      direct = new Service();
+
+      ProxyFactory proxyFactory = new ProxyFactory(new Service());
+      proxyFactory.setProxyTargetClass(true);
+      proxied = (Service) proxyFactory.getProxy();
+
+      StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+      beanFactory.addBean("meterRegistry", new SimpleMeterRegistry());
+      AspectJProxyFactory aspectFactory = new AspectJProxyFactory(new Service());
+      aspectFactory.setProxyTargetClass(true);
+      aspectFactory.addAspect(new ExecutionTimeAspect(beanFactory.getBeanProvider(MeterRegistry.class),
+             new ExecutionTimeProperties()));
+      timed = aspectFactory.getProxy();
+   }
+
+   @Benchmark
+   public long direct() {
+      return direct.work(value);
+   }
+
+   @Benchmark
+   public long proxy() {
+      return proxied.work(value);
+   }
+
+   @Benchmark
+   public long aspect() {
+      return timed.work(value);
+   }
+
+}
@@ -0,0 +1,48 @@
+package es.televoip.factory;
+
+import es.televoip.model.Task;
+import es.televoip.model.enums.TaskStatus;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tareas de los benchmarks, con todos los campos rellenos (p.ej. las fechas, que son lo más caro de serializar) y
+ * siempre las mismas para que las ejecuciones sean comparables.
+ */
+public final class TaskBenchmarkData {
+
+   private static final LocalDateTime CREATED = LocalDateTime.of(2023, 9, 1, 9, 30);
+
+   private TaskBenchmarkData() {
+      // Constructor privado para evitar instanciación
+   }
+
+   public static List<Task> tasks(int size) {
+      List<Task> tasks = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+         tasks.add(task(i));
+      }
+      return tasks;
+   }
+
+   public static Task task(int i) {
+      Task task = Task.builder()
+             .title("Tarea " + i)
+             .description("Descripción de la tarea número " + i + " para las pruebas de rendimiento")
+             .taskStatus(i % 2 == 0 ? TaskStatus.ON_TIME : TaskStatus.LATE)
+             .isCompleted(i % 3 == 0)
+             .priority(i % 5 + 1)
+             .taskDateCreation(CREATED.plusMinutes(i))
+             .taskDateFinished(i % 3 == 0 ? CREATED.plusDays(1).plusMinutes(i) : null)
+             .build();
+      task.setId((long) i + 1);
+      task.setLogDateCreated(OffsetDateTime.of(CREATED.plusMinutes(i), ZoneOffset.ofHours(2)));
+      task.setLogLastUpdated(OffsetDateTime.of(CREATED.plusMinutes(i), ZoneOffset.ofHours(2)));
+      task.setVersion(i % 4);
+      return task;
+   }
+
+}
@@ -0,0 +1,78 @@
+package es.televoip.model.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import es.televoip.factory.TaskBenchmarkData;
+import es.televoip.model.mapper.TaskMapper;
+import es.televoip.model.mapper.TaskMapperImpl;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/*
+*  Serialización JSON de un TaskDto, de una List<TaskDto> y de una Page<TaskDto> con 'size' tareas, con la misma
+*  configuración de Jackson que la aplicación (zona horaria y fechas ISO 8601 de application.properties).
+*
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TaskDtoSerializationBenchmark {
+
+   @Param({"20", "1000"})
+   private int size;
+
+   private ObjectMapper objectMapper;
+
+   private TaskDto task;
+
+   private List<TaskDto> tasks;
+
+   private Page<TaskDto> page;
+
+   @Setup
+   public void setUp() {
+      objectMapper = Jackson2ObjectMapperBuilder.json()
+             .timeZone("Atlantic/Canary")
+             .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+             .build();
+      TaskMapper mapper = new TaskMapperImpl();
+      tasks = TaskBenchmarkData.tasks(size).stream().map(mapper::toDto).toList();
+      task = tasks.get(0);
+      page = new PageImpl<>(tasks, PageRequest.of(0, size), size * 10L);
+   }
+
+   @Benchmark
+   public byte[] task() throws JsonProcessingException {
+      return objectMapper.writeValueAsBytes(task);
+   }
+
+   @Benchmark
+   public byte[] list() throws JsonProcessingException {
+      return objectMapper.writeValueAsBytes(tasks);
+   }
+
+   @Benchmark
+   public byte[] page() throws JsonProcessingException {
+      return objectMapper.writeValueAsBytes(page);
+   }
+
+}
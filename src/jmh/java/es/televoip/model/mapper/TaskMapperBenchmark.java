@@ -0,0 +1,78 @@
+package es.televoip.model.mapper;
+
+import es.televoip.factory.TaskBenchmarkData;
+import es.televoip.model.Task;
+import es.televoip.model.dto.TaskDto;
+import es.televoip.service.implement.TaskServiceImpl;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+*  Conversión entidad <-> DTO de MapStruct para 1, 1.000 y 100.000 tareas: toDto y toEntity una a una y
+*  TaskServiceImpl.convertToDtoList (privado, invocado con un MethodHandle) para la lista completa.
+*
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TaskMapperBenchmark {
+
+   @Param({"1", "1000", "100000"})
+   private int size;
+
+   private final TaskMapper mapper = new TaskMapperImpl();
+
+   private List<Task> tasks;
+
+   private List<TaskDto> dtos;
+
+   private MethodHandle convertToDtoList;
+
+   @Setup
+   public void setUp() throws ReflectiveOperationException {
+      tasks = TaskBenchmarkData.tasks(size);
+      dtos = tasks.stream().map(mapper::toDto).toList();
+      TaskServiceImpl service = new TaskServiceImpl(null, mapper, null, null, null, null);
+      convertToDtoList = MethodHandles.privateLookupIn(TaskServiceImpl.class, MethodHandles.lookup())
+             .findVirtual(TaskServiceImpl.class, "convertToDtoList", MethodType.methodType(List.class, List.class))
+             .bindTo(service);
+   }
+
+   @Benchmark
+   public void toDto(Blackhole blackhole) {
+      for (Task task : tasks) {
+         blackhole.consume(mapper.toDto(task));
+      }
+   }
+
+   @Benchmark
+   public void toEntity(Blackhole blackhole) {
+      for (TaskDto dto : dtos) {
+         blackhole.consume(mapper.toEntity(dto));
+      }
+   }
+
+   @Benchmark
+   public List<?> convertToDtoList() throws Throwable {
+      return (List<?>) convertToDtoList.invokeExact(tasks);
+   }
+
+}
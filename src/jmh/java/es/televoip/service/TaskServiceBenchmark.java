@@ -0,0 +1,123 @@
+package es.televoip.service;
+
+import es.televoip.TodoApiSpringApplication;
+import es.televoip.factory.TaskBenchmarkData;
+import es.televoip.model.dto.TaskDto;
+import es.televoip.model.enums.TaskStatus;
+import es.televoip.model.mapper.TaskMapperImpl;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+/*
+*  Lecturas de TaskServiceImpl contra H2 en memoria con 1.000 tareas, a través del proxy de Spring (aspectos,
+*  transacción y caché Caffeine):
+*
+*     - warm: la entrada ya está en la caché
+*     - cold: se desaloja antes de cada llamada, que va a la base de datos y vuelve a guardarla
+*
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TaskServiceBenchmark {
+
+   private static final int TASKS = 1_000;
+
+   private ConfigurableApplicationContext context;
+
+   private TaskService taskService;
+
+   private Cache oneTask;
+
+   private Cache manyTasks;
+
+   private Long id;
+
+   @Setup
+   public void setUp() {
+      context = new SpringApplicationBuilder(TodoApiSpringApplication.class)
+             .web(WebApplicationType.NONE)
+             .properties("spring.config.location=classpath:application-test.properties",
+                    "cache.enabled=true", // application-test.properties la desactiva: se mide la caché de producción
+                    "spring.jpa.show-sql=false",
+                    "logging.level.root=warn")
+             .run();
+      taskService = context.getBean(TaskService.class);
+      CacheManager cacheManager = context.getBean(CacheManager.class);
+      oneTask = cacheManager.getCache("cacheOneTask");
+      manyTasks = cacheManager.getCache("cacheManyTasks");
+
+      TaskMapperImpl mapper = new TaskMapperImpl();
+      List<TaskDto> tasks = TaskBenchmarkData.tasks(TASKS).stream()
+             .map(mapper::toDto)
+             .peek(task -> task.setId(null))
+             .toList();
+      id = taskService.saveAllTasks(tasks).get(TASKS / 2).getId();
+
+      // entradas de las variantes 'warm'
+      taskService.getTaskById(id);
+      taskService.getTasksByTaskStatus(TaskStatus.LATE);
+      taskService.getTasksPaged(PageRequest.of(0, 20, Sort.by("id")));
+   }
+
+   @TearDown
+   public void tearDown() {
+      context.close();
+   }
+
+   @Benchmark
+   public TaskDto getTaskByIdWarm() {
+      return taskService.getTaskById(id);
+   }
+
+   @Benchmark
+   public TaskDto getTaskByIdCold() {
+      oneTask.evict(id);
+      return taskService.getTaskById(id);
+   }
+
+   @Benchmark
+   public List<TaskDto> getTasksByTaskStatusWarm() {
+      return taskService.getTasksByTaskStatus(TaskStatus.LATE);
+   }
+
+   @Benchmark
+   public List<TaskDto> getTasksByTaskStatusCold() {
+      manyTasks.clear();
+      return taskService.getTasksByTaskStatus(TaskStatus.LATE);
+   }
+
+   @Benchmark
+   public Page<TaskDto> getTasksPagedWarm() {
+      return taskService.getTasksPaged(PageRequest.of(0, 20, Sort.by("id")));
+   }
+
+   @Benchmark
+   public Page<TaskDto> getTasksPagedCold() {
+      manyTasks.clear();
+      return taskService.getTasksPaged(PageRequest.of(0, 20, Sort.by("id")));
+   }
+
+}
@@ -1,31 +1,118 @@
 package es.televoip.aspects;
 
+import es.televoip.exceptions.DataException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
-// Creamos un 'aspecto' que captura el tiempo de ejecución de los métodos anotados
+/**
+ * Aspecto que mide el tiempo de ejecución de los métodos anotados con {@link LogExecutionTime} y lo publica en el Timer
+ * 'method.execution' con las etiquetas:
+ * <ul>
+ * <li>class y method: método medido</li>
+ * <li>outcome: SUCCESS, CLIENT_ERROR (DataException 4xx) o SERVER_ERROR</li>
+ * <li>cache: hit o miss si el método es @Cacheable (mirar {@link #cacheLookup(boolean)}), none si no pasa por caché</li>
+ * </ul>
+ * Se ejecuta antes que la caché y la transacción, por lo que un acierto de caché también se mide. El log de cada
+ * llamada es opcional (mirar {@link ExecutionTimeProperties}).
+ */
 @Aspect
 @Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@EnableConfigurationProperties(ExecutionTimeProperties.class)
 public class ExecutionTimeAspect {
 
+   public static final String TIMER_NAME = "method.execution";
+
+   private static final String NO_CACHE = "none";
+
+   // resultado de la primera consulta de caché de la llamada medida en curso en este hilo
+   private static final ThreadLocal<String> CACHE_RESULT = new ThreadLocal<>();
+
    private static final Logger logger = LoggerFactory.getLogger(ExecutionTimeAspect.class);
 
-   @Around("@annotation(LogExecutionTime)")
-   public Object logExecutionTime(ProceedingJoinPoint joinPoint) throws Throwable {
-      long startTime = System.currentTimeMillis();
+   private final MeterRegistry meterRegistry;
+
+   private final ExecutionTimeProperties.Log logProperties;
+
+   private final Map<String, Timer> timers = new ConcurrentHashMap<>();
 
-      Object result = joinPoint.proceed();
+   public ExecutionTimeAspect(ObjectProvider<MeterRegistry> meterRegistryProvider, ExecutionTimeProperties properties) {
+      this.meterRegistry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+      this.logProperties = properties.getLog();
+   }
 
-      long endTime = System.currentTimeMillis();
-      long executionTime = endTime - startTime;
+   /**
+    * Anota el resultado de una consulta de caché en la llamada medida en curso (solo la primera cuenta: las consultas
+    * del propio método en caso de fallo no cambian su resultado). Fuera de una llamada medida no hace nada.
+    */
+   public static void cacheLookup(boolean hit) {
+      if (NO_CACHE.equals(CACHE_RESULT.get())) {
+         CACHE_RESULT.set(hit ? "hit" : "miss");
+      }
+   }
 
-      logger.info("{} executed in {} ms", joinPoint.getSignature(), executionTime);
+   @Around("@annotation(LogExecutionTime)")
+   public Object logExecutionTime(ProceedingJoinPoint joinPoint) throws Throwable {
+      String outerCacheResult = CACHE_RESULT.get(); // llamadas medidas anidadas
+      CACHE_RESULT.set(NO_CACHE);
+      String outcome = "SUCCESS";
+      long startTime = System.nanoTime();
+      try {
+         return joinPoint.proceed();
+      } catch (DataException ex) {
+         outcome = ex.getErrorCode().is4xxClientError() ? "CLIENT_ERROR" : "SERVER_ERROR";
+         throw ex;
+      } catch (Throwable ex) {
+         outcome = "SERVER_ERROR";
+         throw ex;
+      } finally {
+         long executionTime = System.nanoTime() - startTime;
+         String cacheResult = CACHE_RESULT.get();
+         CACHE_RESULT.set(outerCacheResult);
+         String className = joinPoint.getSignature().getDeclaringType().getSimpleName();
+         String method = joinPoint.getSignature().getName();
+         timer(className, method, outcome, cacheResult).record(executionTime, TimeUnit.NANOSECONDS);
+         if (shouldLog(executionTime)) {
+            logger.info("{} executed in {} ms (outcome={}, cache={})", joinPoint.getSignature(),
+                   String.format("%.3f", executionTime / 1_000_000.0), outcome, cacheResult);
+         }
+      }
+   }
+
+   private Timer timer(String className, String method, String outcome, String cacheResult) {
+      return timers.computeIfAbsent(className + '|' + method + '|' + outcome + '|' + cacheResult,
+             id -> Timer.builder(TIMER_NAME)
+                    .description("Tiempo de ejecución de los métodos anotados con @LogExecutionTime")
+                    .tag("class", className)
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .tag("cache", cacheResult)
+                    .register(meterRegistry));
+   }
 
-      return result;
+   private boolean shouldLog(long executionTime) {
+      Duration slowerThan = logProperties.getSlowerThan();
+      if (slowerThan != null && executionTime > slowerThan.toNanos()) {
+         return true;
+      }
+      double sampleRate = logProperties.getSampleRate();
+      return sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
    }
 
 }
@@ -0,0 +1,33 @@
+package es.televoip.aspects;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Registro en el log de las llamadas medidas por {@link ExecutionTimeAspect}. Los tiempos siempre se publican como
+ * métricas; el log es opcional, p.ej.:
+ * <pre>
+ * execution-time.log.slower-than=500ms
+ * execution-time.log.sample-rate=0.01
+ * </pre>
+ * Los percentiles y el histograma del Timer se configuran con 'management.metrics.distribution.*.method.execution'.
+ */
+@Data
+@ConfigurationProperties(prefix = "execution-time")
+public class ExecutionTimeProperties {
+
+   private final Log log = new Log();
+
+   @Data
+   public static class Log {
+
+      // se registran las llamadas que duran más; sin valor, ninguna por su duración
+      private Duration slowerThan;
+
+      // fracción de las llamadas que se registran (0 = ninguna, 1 = todas)
+      private double sampleRate;
+
+   }
+
+}
@@ -0,0 +1,62 @@
+package es.televoip.cache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Clave tipada de caché formada por el servicio y el método que generan el valor y por sus argumentos normalizados.
+ * Al incluir el método, dos consultas distintas con los mismos argumentos (p.ej. getTasksByFilter("abc") y
+ * getTasksByTitleContaining("abc")) nunca comparten entrada. Un {@link Pageable} se aplana en un {@link PageWindow}.
+ *
+ * @param target nombre simple de la clase del servicio
+ * @param method nombre del método cacheado
+ * @param args argumentos normalizados
+ */
+public record CacheKey(String target, String method, List<Object> args) implements Serializable {
+
+   /**
+    * Ventana de página (número, tamaño y orden) de un {@link Pageable}; página y tamaño valen -1 si no está paginado.
+    */
+   public record PageWindow(int page, int size, Sort sort) implements Serializable {
+
+      public static PageWindow of(Pageable pageable) {
+         return pageable.isPaged()
+                ? new PageWindow(pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort())
+                : new PageWindow(-1, -1, pageable.getSort());
+      }
+
+      public Pageable toPageable() {
+         return page < 0 ? Pageable.unpaged() : PageRequest.of(page, size, sort);
+      }
+
+   }
+
+   /**
+    * Construye la misma clave que genera {@link CacheKeyGenerator}, para consultas o desalojos dirigidos.
+    */
+   public static CacheKey of(Class<?> target, String method, Object... args) {
+      return new CacheKey(ClassUtils.getUserClass(target).getSimpleName(), method, normalize(args));
+   }
+
+   private static List<Object> normalize(Object... args) {
+      List<Object> normalized = new ArrayList<>(args.length);
+      for (Object arg : args) {
+         normalized.add(normalizeArg(arg));
+      }
+      return Collections.unmodifiableList(normalized);
+   }
+
+   private static Object normalizeArg(Object arg) {
+      if (arg instanceof Pageable pageable) {
+         return PageWindow.of(pageable);
+      }
+      return arg;
+   }
+
+}
@@ -0,0 +1,21 @@
+package es.televoip.cache;
+
+import java.lang.reflect.Method;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generador de claves que sustituye a SimpleKey en los servicios: produce un {@link CacheKey} con el servicio, el
+ * método y los argumentos normalizados. Se activa con @CacheConfig(keyGenerator = "cacheKeyGenerator").
+ */
+@Component(CacheKeyGenerator.NAME)
+public class CacheKeyGenerator implements KeyGenerator {
+
+   public static final String NAME = "cacheKeyGenerator";
+
+   @Override
+   public Object generate(Object target, Method method, Object... params) {
+      return CacheKey.of(target.getClass(), method.getName(), params);
+   }
+
+}
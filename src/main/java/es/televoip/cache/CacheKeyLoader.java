@@ -0,0 +1,103 @@
+package es.televoip.cache;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import es.televoip.datasource.ReplicaRoutingDataSource;
+import es.televoip.jfr.CacheLoadEvent;
+import es.televoip.jfr.EventArguments;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Recalcula el valor de una entrada a partir de su {@link CacheKey}, invocando el método del servicio que la generó
+ * (sobre el objeto real, sin pasar por el proxy de caché) en una transacción de solo lectura.
+ *
+ * Permite construir cachés 'LoadingCache' con 'refreshAfterWrite': las lecturas concurrentes de una clave ausente
+ * esperan a una única carga, y una entrada antigua se sigue sirviendo mientras se refresca en segundo plano.
+ */
+@Slf4j
+@Component
+public class CacheKeyLoader implements CacheLoader<Object, Object> {
+
+   private record MethodId(String target, String method, int arity) {
+   }
+
+   private final BeanFactory beanFactory;
+
+   private final Map<MethodId, Method> methods = new ConcurrentHashMap<>();
+
+   private volatile TransactionTemplate readOnlyTransaction;
+
+   public CacheKeyLoader(BeanFactory beanFactory) {
+      this.beanFactory = beanFactory;
+   }
+
+   @Override
+   public Object load(Object key) {
+      if (!(key instanceof CacheKey cacheKey)) {
+         return null; // sin información para recalcular: el interceptor de caché invocará el método
+      }
+
+      // los servicios se resuelven en la primera carga para no crear una dependencia circular con el CacheManager
+      Object target = AopProxyUtils.getSingletonTarget(beanFactory.getBean(StringUtils.uncapitalize(cacheKey.target())));
+      Method method = methods.computeIfAbsent(
+             new MethodId(cacheKey.target(), cacheKey.method(), cacheKey.args().size()),
+             id -> findMethod(ClassUtils.getUserClass(target), id));
+      Object[] args = cacheKey.args().stream()
+             .map(arg -> arg instanceof CacheKey.PageWindow window ? window.toPageable() : arg)
+             .toArray();
+
+      log.debug("Loading {}", cacheKey);
+      CacheLoadEvent event = new CacheLoadEvent();
+      event.begin();
+      // con réplica, el refresco lee de la principal: la réplica podría devolver el valor anterior a una escritura
+      Object value = ReplicaRoutingDataSource.onPrimary(
+             () -> readOnlyTransaction().execute(status -> ReflectionUtils.invokeMethod(method, target, args)));
+      event.end();
+      if (event.shouldCommit()) {
+         event.method = cacheKey.method();
+         event.key = EventArguments.summarize(cacheKey.toString());
+         event.loader = true;
+         event.commit();
+      }
+      return value;
+   }
+
+   private Method findMethod(Class<?> type, MethodId id) {
+      List<Method> candidates = Arrays.stream(type.getMethods())
+             .filter(method -> method.getName().equals(id.method()) && method.getParameterCount() == id.arity())
+             .filter(method -> !method.isBridge() && AnnotatedElementUtils.hasAnnotation(method, Cacheable.class))
+             .toList();
+      if (candidates.isEmpty()) {
+         throw new IllegalStateException("No cacheable method found for " + id);
+      }
+      if (candidates.size() > 1) {
+         // la clave solo guarda nombre y número de argumentos: dos sobrecargas así serían indistinguibles
+         throw new IllegalStateException("Ambiguous cacheable methods for " + id + ": " + candidates);
+      }
+      return candidates.get(0);
+   }
+
+   private TransactionTemplate readOnlyTransaction() {
+      if (readOnlyTransaction == null) {
+         TransactionTemplate template = new TransactionTemplate(beanFactory.getBean(PlatformTransactionManager.class));
+         template.setReadOnly(true);
+         readOnlyTransaction = template;
+      }
+      return readOnlyTransaction;
+   }
+
+}
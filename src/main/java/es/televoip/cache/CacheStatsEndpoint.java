@@ -0,0 +1,102 @@
+package es.televoip.cache;
+
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Endpoint de Actuator con el estado de cada caché Caffeine: entradas, memoria estimada, estadísticas, entradas por
+ * método y claves más usadas.
+ *
+ * GET /actuator/cachestats y GET /actuator/cachestats/{cache}
+ */
+@Component
+@Endpoint(id = "cachestats")
+public class CacheStatsEndpoint {
+
+   private static final int TOP_KEYS = 10;
+
+   private final ObjectProvider<CacheManager> cacheManagerProvider;
+
+   public CacheStatsEndpoint(ObjectProvider<CacheManager> cacheManagerProvider) {
+      this.cacheManagerProvider = cacheManagerProvider;
+   }
+
+   public record CacheReport(long size, long estimatedBytes, double hitRatio, long hitCount, long missCount,
+          long evictionCount, double averageLoadMillis, Map<String, Long> entriesByMethod, List<String> topKeys) {
+   }
+
+   @ReadOperation
+   public Map<String, CacheReport> caches() {
+      Map<String, CacheReport> reports = new TreeMap<>();
+      CacheManager cacheManager = cacheManagerProvider.getIfAvailable();
+      if (cacheManager == null) {
+         return reports;
+      }
+      cacheManager.getCacheNames().forEach(name -> {
+         CacheReport report = cache(name);
+         if (report != null) {
+            reports.put(name, report);
+         }
+      });
+      return reports;
+   }
+
+   @ReadOperation
+   public CacheReport cache(@Selector String name) {
+      CacheManager cacheManager = cacheManagerProvider.getIfAvailable();
+      Cache cache = cacheManager != null ? cacheManager.getCache(name) : null;
+      if (cache == null || !(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache)) {
+         return null;
+      }
+
+      Map<?, ?> entries = nativeCache.asMap();
+      CacheStats stats = nativeCache.stats();
+      return new CacheReport(
+             nativeCache.estimatedSize(),
+             estimatedBytes(nativeCache, entries),
+             stats.hitRate(),
+             stats.hitCount(),
+             stats.missCount(),
+             stats.evictionCount(),
+             stats.averageLoadPenalty() / 1_000_000d,
+             entries.keySet().stream()
+                    .collect(Collectors.groupingBy(MeteredCaffeineCache::method, TreeMap::new, Collectors.counting())),
+             topKeys(nativeCache, entries));
+   }
+
+   private long estimatedBytes(com.github.benmanes.caffeine.cache.Cache<?, ?> cache, Map<?, ?> entries) {
+      // si la caché está limitada por peso, Caffeine ya lleva la suma de CacheWeigher
+      OptionalLong weightedSize = cache.policy().eviction()
+             .map(Policy.Eviction::weightedSize)
+             .orElse(OptionalLong.empty());
+      if (weightedSize.isPresent()) {
+         return weightedSize.getAsLong();
+      }
+      CacheWeigher weigher = new CacheWeigher();
+      return entries.entrySet().stream()
+             .mapToLong(entry -> weigher.weigh(entry.getKey(), entry.getValue()))
+             .sum();
+   }
+
+   private List<String> topKeys(com.github.benmanes.caffeine.cache.Cache<?, ?> cache, Map<?, ?> entries) {
+      // con política de tamaño Caffeine conoce las claves más frecuentes; si no, devolvemos una muestra
+      Function<Map<?, ?>, List<String>> keys = map -> map.keySet().stream().map(String::valueOf).toList();
+      return cache.policy().eviction()
+             .map(eviction -> keys.apply(eviction.hottest(TOP_KEYS)))
+             .orElseGet(() -> entries.keySet().stream().limit(TOP_KEYS).map(String::valueOf).toList());
+   }
+
+}
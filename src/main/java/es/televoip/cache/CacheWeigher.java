@@ -0,0 +1,89 @@
+package es.televoip.cache;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import es.televoip.model.dto.PersonDto;
+import es.televoip.model.dto.TaskDto;
+import es.televoip.model.embeded.Address;
+import es.televoip.model.embeded.UserAccess;
+import java.util.Collection;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Estima en bytes lo que ocupa en el heap cada entrada de caché (clave + valor), de forma que 'maximumWeight' limite
+ * la memoria y no el número de entradas: un listado con toda la tabla pesa tanto como todas sus tareas.
+ * Es una aproximación para una JVM de 64 bits con compressed oops, no una medición exacta.
+ */
+public class CacheWeigher implements Weigher<Object, Object> {
+
+   private static final int OBJECT_HEADER = 16;
+   private static final int REFERENCE = 4;
+   private static final int DATE_TIME = 48; // LocalDateTime/OffsetDateTime con sus objetos internos
+   private static final int KEY = 128; // CacheKey con su lista de argumentos
+
+   @Override
+   public int weigh(Object key, Object value) {
+      return (int) Math.min(Integer.MAX_VALUE, KEY + estimate(value));
+   }
+
+   public static long estimate(Object value) {
+      if (value instanceof TaskDto task) {
+         return estimate(task);
+      }
+      if (value instanceof PersonDto person) {
+         return estimate(person);
+      }
+      if (value instanceof Slice<?> slice) { // Page o Slice
+         return OBJECT_HEADER + 64 + estimate(slice.getContent());
+      }
+      if (value instanceof Collection<?> collection) {
+         long size = OBJECT_HEADER + 16 + (long) REFERENCE * collection.size();
+         for (Object item : collection) {
+            size += estimate(item);
+         }
+         return size;
+      }
+      if (value instanceof String string) {
+         return string(string);
+      }
+      return OBJECT_HEADER + 32L;
+   }
+
+   private static long estimate(TaskDto task) {
+      return OBJECT_HEADER + 10L * REFERENCE + 8
+             + string(task.getTitle()) + string(task.getDescription())
+             + dateTime(task.getTaskDateCreation()) + dateTime(task.getTaskDateFinished())
+             + dateTime(task.getLogDateCreated()) + dateTime(task.getLogLastUpdated());
+   }
+
+   private static long estimate(PersonDto person) {
+      long size = OBJECT_HEADER + 12L * REFERENCE + 8
+             + string(person.getFirstName()) + string(person.getLastName())
+             + string(person.getDni()) + string(person.getEmail()) + string(person.getPhone())
+             + dateTime(person.getDateOfBirth());
+
+      UserAccess userAccess = person.getUserAccess();
+      if (userAccess != null) {
+         size += OBJECT_HEADER + 4L * REFERENCE
+                + string(userAccess.getUserName()) + string(userAccess.getHashedPassword())
+                + string(userAccess.getProfilePictureId());
+      }
+      Address address = person.getAddress();
+      if (address != null) {
+         size += OBJECT_HEADER + 4L * REFERENCE
+                + string(address.getStreet()) + string(address.getCity()) + string(address.getCountry());
+      }
+      if (person.getTasks() != null) {
+         size += estimate(person.getTasks());
+      }
+      return size;
+   }
+
+   private static long string(String value) {
+      return value == null ? 0 : OBJECT_HEADER + 24L + value.length(); // String + byte[] (LATIN1)
+   }
+
+   private static long dateTime(Object value) {
+      return value == null ? 0 : DATE_TIME;
+   }
+
+}
@@ -0,0 +1,77 @@
+package es.televoip.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Políticas de las cachés Caffeine definidas en application.properties, p.ej.:
+ * <pre>
+ * cache.caffeine.defaults.maximum-size=200
+ * cache.caffeine.caches.cacheManyTasks.maximum-weight=64MB
+ * cache.caffeine.caches.cacheManyTasks.expire-after-access=15m
+ * </pre>
+ * Los valores no indicados en una caché se toman de 'defaults'.
+ */
+@Data
+@ConfigurationProperties(prefix = "cache.caffeine")
+public class CaffeineCacheProperties {
+
+   private Spec defaults = new Spec();
+
+   private Map<String, Spec> caches = new LinkedHashMap<>();
+
+   @Data
+   public static class Spec {
+
+      private Long maximumSize; // número máximo de entradas
+
+      private DataSize maximumWeight; // memoria máxima estimada; excluye a 'maximumSize'
+
+      private Duration expireAfterWrite; // TTL desde que se escribe la entrada
+
+      private Duration expireAfterAccess; // caducidad por inactividad
+
+      private Duration refreshAfterWrite; // recarga en segundo plano sirviendo el valor antiguo (mirar CacheKeyLoader)
+
+      /**
+       * Combina esta especificación con la de por defecto: los campos nulos se toman de 'defaults'.
+       */
+      public Spec withDefaults(Spec defaults) {
+         Spec spec = new Spec();
+         boolean bounded = maximumSize != null || maximumWeight != null;
+         spec.setMaximumSize(bounded ? maximumSize : defaults.getMaximumSize());
+         spec.setMaximumWeight(bounded ? maximumWeight : defaults.getMaximumWeight());
+         spec.setExpireAfterWrite(expireAfterWrite != null ? expireAfterWrite : defaults.getExpireAfterWrite());
+         spec.setExpireAfterAccess(expireAfterAccess != null ? expireAfterAccess : defaults.getExpireAfterAccess());
+         spec.setRefreshAfterWrite(refreshAfterWrite != null ? refreshAfterWrite : defaults.getRefreshAfterWrite());
+         return spec;
+      }
+
+      public Caffeine<Object, Object> toBuilder() {
+         // estadísticas (aciertos, fallos, desalojos, tiempo de carga) publicadas por Actuator como cache.gets, ...
+         Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+         if (maximumWeight != null) {
+            builder.maximumWeight(maximumWeight.toBytes()).weigher(new CacheWeigher());
+         } else if (maximumSize != null) {
+            builder.maximumSize(maximumSize);
+         }
+         if (expireAfterWrite != null) {
+            builder.expireAfterWrite(expireAfterWrite);
+         }
+         if (expireAfterAccess != null) {
+            builder.expireAfterAccess(expireAfterAccess);
+         }
+         if (refreshAfterWrite != null) {
+            builder.refreshAfterWrite(refreshAfterWrite); // requiere construir la caché con un CacheLoader
+         }
+         return builder;
+      }
+
+   }
+
+}
@@ -1,44 +1,66 @@
 package es.televoip.cache;
 
-import com.github.benmanes.caffeine.cache.Caffeine;
-import java.util.concurrent.TimeUnit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CaffeineCacheProperties.class)
 @Profile("!test") // Esta configuración solo se aplicará si el perfil no es "test"
 public class CaffeineConfiguration {
    // Need to define caffeine bean first with caching behavior, expiration, cache limit, etc. 
 // https://blog.coditas.com/coders/caching-in-spring-with-caffeine/ 
 
+   public static final List<String> CACHE_NAMES = List.of(
+          "cacheOneTask", "cacheManyTasks",
+          "cacheOnePerson", "cacheManyPersons");
+
    @Value("${cache.enabled}")
    private boolean cacheEnabled;
 
-   @SuppressWarnings("rawtypes")
-   @Bean
-   public Caffeine caffeineConfig() {
-      return Caffeine.newBuilder()
-             .maximumSize(200) // máximo de elementos
-             .expireAfterWrite(60, TimeUnit.MINUTES); // un TTL (tiempo de vida) de 60 minutos
-   }
-
 // We need to create one more bean using the Spring CacheManager interface, Caffeine provides its implementation of this interface.
-   @SuppressWarnings({"rawtypes", "unchecked"})
    @Bean
-   public CacheManager cacheManager(Caffeine caffeine) {
-      CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager(
-             "cacheOneTask", "cacheManyTasks",
-             "cacheOnePerson", "cacheManyPersons");
+   public CacheManager cacheManager(CaffeineCacheProperties properties, CacheKeyLoader cacheKeyLoader,
+          ObjectProvider<MeterRegistry> meterRegistryProvider) {
+      MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+      CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager() {
+         @Override
+         protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+            // sigue siendo una CaffeineCache (Actuator publica sus estadísticas) con métricas por método de servicio;
+            // los 'put' y desalojos hechos dentro de una transacción se aplican tras su commit
+            return new TransactionAwareCacheDecorator(
+                   new MeteredCaffeineCache(name, cache, isAllowNullValues(), meterRegistry));
+         }
+      };
 
       // Para no activamos la caché en los TEST
       if (cacheEnabled) {
-         caffeineCacheManager.setCaffeine(caffeine);
+         // política común (cache.caffeine.defaults.*) para las cachés sin configuración propia
+         caffeineCacheManager.setCaffeine(properties.getDefaults().toBuilder());
+      }
+      caffeineCacheManager.setCacheNames(CACHE_NAMES);
+
+      if (cacheEnabled) {
+         // política de cada caché (cache.caffeine.caches.<nombre>.*): tamaño o memoria, TTL y caducidad por inactividad
+         properties.getCaches().forEach((name, spec) -> {
+            CaffeineCacheProperties.Spec cacheSpec = spec.withDefaults(properties.getDefaults());
+            // con 'refresh-after-write' la caché es una LoadingCache: una sola carga por clave y refresco en segundo plano
+            caffeineCacheManager.registerCustomCache(name, cacheSpec.getRefreshAfterWrite() != null
+                   ? cacheSpec.toBuilder().build(cacheKeyLoader)
+                   : cacheSpec.toBuilder().build());
+         });
       }
 
       return caffeineCacheManager;
@@ -0,0 +1,113 @@
+package es.televoip.cache;
+
+import es.televoip.aspects.ExecutionTimeAspect;
+import es.televoip.jfr.CacheLoadEvent;
+import es.televoip.jfr.CacheLookupEvent;
+import es.televoip.jfr.EventArguments;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caché Caffeine que, además de las estadísticas de Caffeine (que Actuator publica por caché), cuenta aciertos, fallos
+ * y escrituras por método del servicio que generó la entrada ({@link CacheKey#method()}).
+ *
+ * Métricas: cache.method.gets{cache, method, result=hit|miss} y cache.method.puts{cache, method}. Con una grabación JFR
+ * activa emite también {@link CacheLookupEvent} y {@link CacheLoadEvent}.
+ */
+public class MeteredCaffeineCache extends VersionedCaffeineCache {
+
+   private static final int MAX_PENDING_LOADS = 32; // fallos sin 'put' (p.ej. el método lanzó una excepción)
+
+   private static final String NO_METHOD = "none"; // claves que no son CacheKey (p.ej. el ID en 'cacheOneTask')
+
+   private final MeterRegistry meterRegistry;
+
+   private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+   // cargas tras un fallo pendientes de su 'put' (solo con una grabación JFR activa)
+   private final ThreadLocal<Map<Object, CacheLoadEvent>> pendingLoads =
+          ThreadLocal.withInitial(() -> new LinkedHashMap<>() {
+             @Override
+             protected boolean removeEldestEntry(Map.Entry<Object, CacheLoadEvent> eldest) {
+                return size() > MAX_PENDING_LOADS;
+             }
+          });
+
+   public MeteredCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+          boolean allowNullValues, MeterRegistry meterRegistry) {
+      super(name, cache, allowNullValues);
+      this.meterRegistry = meterRegistry;
+   }
+
+   @Override
+   protected Object lookup(Object key) {
+      CacheLookupEvent event = new CacheLookupEvent();
+      event.begin();
+      // consultamos el mapa para no alterar las estadísticas de Caffeine ni disparar la carga de una LoadingCache
+      boolean present = getNativeCache().asMap().containsKey(key);
+      Object value = super.lookup(key);
+      counter("cache.method.gets", method(key), present ? "hit" : "miss").increment();
+      ExecutionTimeAspect.cacheLookup(present); // etiqueta 'cache' del Timer del método
+      event.end();
+      if (event.shouldCommit()) {
+         event.cache = getName();
+         event.method = method(key);
+         event.key = EventArguments.summarize(String.valueOf(key));
+         event.hit = present;
+         event.commit();
+      }
+      if (value == null) {
+         startLoad(key);
+      }
+      return value;
+   }
+
+   @Override
+   public void put(Object key, Object value) {
+      super.put(key, value);
+      counter("cache.method.puts", method(key), null).increment();
+      endLoad(key);
+   }
+
+   // con una grabación JFR activa, la carga tras un fallo dura hasta el 'put' del mismo hilo
+   private void startLoad(Object key) {
+      CacheLoadEvent load = new CacheLoadEvent();
+      if (load.isEnabled()) {
+         load.begin();
+         pendingLoads.get().put(key, load);
+      }
+   }
+
+   private void endLoad(Object key) {
+      CacheLoadEvent load = pendingLoads.get().remove(key);
+      if (load != null) {
+         load.end();
+         if (load.shouldCommit()) {
+            load.cache = getName();
+            load.method = method(key);
+            load.key = EventArguments.summarize(String.valueOf(key));
+            load.commit();
+         }
+      }
+   }
+
+   private Counter counter(String name, String method, String result) {
+      return counters.computeIfAbsent(name + '|' + method + '|' + result, id -> {
+         Counter.Builder builder = Counter.builder(name)
+                .tag("cache", getName())
+                .tag("method", method);
+         if (result != null) {
+            builder.tag("result", result);
+         }
+         return builder.register(meterRegistry);
+      });
+   }
+
+   static String method(Object key) {
+      return key instanceof CacheKey cacheKey ? cacheKey.method() : NO_METHOD;
+   }
+
+}
@@ -0,0 +1,41 @@
+package es.televoip.cache;
+
+import es.televoip.model.Person;
+import es.televoip.service.implement.PersonServiceImpl;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Desaloja de 'cacheOnePerson' las claves exactas ({@link CacheKey}) por las que se puede haber cacheado una persona:
+ * su ID, DNI, email y nombre de usuario.
+ */
+@Component
+public class PersonCacheInvalidator {
+
+   public static final String CACHE_ONE_PERSON = "cacheOnePerson";
+
+   private final ObjectProvider<CacheManager> cacheManagerProvider;
+
+   public PersonCacheInvalidator(ObjectProvider<CacheManager> cacheManagerProvider) {
+      this.cacheManagerProvider = cacheManagerProvider;
+   }
+
+   public void personChanged(Person person) {
+      CacheManager cacheManager = cacheManagerProvider.getIfAvailable();
+      Cache cache = cacheManager != null ? cacheManager.getCache(CACHE_ONE_PERSON) : null;
+      if (cache == null || person == null) {
+         return;
+      }
+
+      cache.evict(CacheKey.of(PersonServiceImpl.class, "getPersonById", person.getId()));
+      cache.evict(CacheKey.of(PersonServiceImpl.class, "getPersonByDni", person.getDni()));
+      cache.evict(CacheKey.of(PersonServiceImpl.class, "getPersonByEmail", person.getEmail()));
+      if (person.getUserAccess() != null) {
+         cache.evict(CacheKey.of(PersonServiceImpl.class, "getPersonByUserAccessUserName",
+                person.getUserAccess().getUserName()));
+      }
+   }
+
+}
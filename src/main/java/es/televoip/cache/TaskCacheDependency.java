@@ -0,0 +1,138 @@
+package es.televoip.cache;
+
+import es.televoip.model.dto.TaskDto;
+import es.televoip.model.enums.SortFieldTask;
+import es.televoip.model.enums.TaskStatus;
+import es.televoip.search.TaskTextAnalyzer;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Predicado que generó cada listado o página de 'cacheManyTasks' (estado, completitud, texto del filtro, ventana de
+ * página y orden), obtenido a partir de su {@link CacheKey}, para poder invalidar solo las entradas afectadas por un
+ * cambio en una tarea.
+ *
+ * @param kind tipo de predicado
+ * @param criteria valor del predicado (estado, completitud o texto), 'null' para {@link Kind#ALL}
+ * @param pageable ventana de página, 'null' si el resultado es un listado completo
+ * @param sort orden del resultado
+ */
+public record TaskCacheDependency(Kind kind, Object criteria, Pageable pageable, Sort sort) {
+
+   public enum Kind {
+      ALL, STATUS, COMPLETION, FILTER, TITLE
+   }
+
+   /**
+    * Obtiene el predicado de una clave generada por {@link CacheKeyGenerator} sobre TaskServiceImpl.
+    *
+    * @return el predicado, o 'null' si el método no es conocido
+    */
+   public static TaskCacheDependency of(CacheKey key) {
+      List<Object> args = key.args();
+      return switch (key.method()) {
+         case "getAllTasks" ->
+            all();
+         case "getTasksPaged", "getTasksSliced" ->
+            paged(pageable(args.get(0)));
+         case "getTasksSorted" ->
+            sorted((SortFieldTask) args.get(0), (Sort.Direction) args.get(1));
+         case "getTasksSortedAndPaged" ->
+            sortedAndPaged((SortFieldTask) args.get(0), (Sort.Direction) args.get(1), pageable(args.get(2)));
+         case "getTasksByFilter" ->
+            byFilter((String) args.get(0));
+         case "getTasksByFilterPageable", "getTasksByFilterSliced" ->
+            byFilter((String) args.get(0), pageable(args.get(1)));
+         case "getTasksByTitleContaining" ->
+            byTitle((String) args.get(0));
+         case "getTasksByTaskStatus" ->
+            byStatus((TaskStatus) args.get(0));
+         case "getTasksByCompletion" ->
+            byCompletion((Boolean) args.get(0));
+         default ->
+            null;
+      };
+   }
+
+   public static TaskCacheDependency all() {
+      return new TaskCacheDependency(Kind.ALL, null, null, Sort.unsorted());
+   }
+
+   public static TaskCacheDependency sorted(SortFieldTask sortBy, Sort.Direction sortOrder) {
+      return new TaskCacheDependency(Kind.ALL, null, null, Sort.by(sortOrder, sortBy.getFieldName()));
+   }
+
+   public static TaskCacheDependency paged(Pageable pageable) {
+      return new TaskCacheDependency(Kind.ALL, null, pageable, pageable.getSort());
+   }
+
+   public static TaskCacheDependency sortedAndPaged(SortFieldTask sortBy, Sort.Direction sortOrder, Pageable pageable) {
+      Sort sort = Sort.by(sortOrder, sortBy.getFieldName());
+      return new TaskCacheDependency(Kind.ALL, null,
+             PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort), sort);
+   }
+
+   public static TaskCacheDependency byFilter(String filter) {
+      return new TaskCacheDependency(Kind.FILTER, filter, null, Sort.unsorted());
+   }
+
+   public static TaskCacheDependency byFilter(String filter, Pageable pageable) {
+      return new TaskCacheDependency(Kind.FILTER, filter, pageable, pageable.getSort());
+   }
+
+   public static TaskCacheDependency byTitle(String title) {
+      return new TaskCacheDependency(Kind.TITLE, title, null, Sort.unsorted());
+   }
+
+   public static TaskCacheDependency byStatus(TaskStatus status) {
+      return new TaskCacheDependency(Kind.STATUS, status, null, Sort.unsorted());
+   }
+
+   public static TaskCacheDependency byCompletion(boolean isCompleted) {
+      return new TaskCacheDependency(Kind.COMPLETION, isCompleted, null, Sort.unsorted());
+   }
+
+   public boolean isPaged() {
+      return pageable != null && pageable.isPaged();
+   }
+
+   /**
+    * Indica si la fila cumple el predicado de esta entrada, es decir, si debería aparecer en el resultado.
+    */
+   public boolean matches(TaskDto task) {
+      return switch (kind) {
+         case ALL ->
+            true;
+         case STATUS ->
+            criteria == task.getTaskStatus();
+         case COMPLETION ->
+            criteria.equals(task.getIsCompleted());
+         case FILTER -> // regla del índice de texto o, si la consulta no tiene palabras, LIKE de la base de datos
+            criteria == null || ((String) criteria).isBlank()
+            || TaskTextAnalyzer.matches((String) criteria, task.getTitle(), task.getDescription())
+            || containsIgnoreCase(task.getTitle(), (String) criteria)
+            || containsIgnoreCase(task.getDescription(), (String) criteria);
+         case TITLE ->
+            containsIgnoreCase(task.getTitle(), (String) criteria);
+      };
+   }
+
+   /**
+    * Indica si alguno de los campos modificados interviene en el orden del resultado.
+    */
+   public boolean isSortedBy(Collection<String> fields) {
+      return sort.stream().anyMatch(order -> fields.contains(order.getProperty()));
+   }
+
+   private static Pageable pageable(Object arg) {
+      return ((CacheKey.PageWindow) arg).toPageable();
+   }
+
+   private static boolean containsIgnoreCase(String value, String text) {
+      return value != null && text != null && value.toLowerCase().contains(text.toLowerCase());
+   }
+
+}
@@ -0,0 +1,224 @@
+package es.televoip.cache;
+
+import es.televoip.model.dto.TaskDto;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Invalida de forma selectiva los listados y páginas de 'cacheManyTasks'. Cada entrada se evalúa contra la tarea
+ * modificada: se elimina si ya contenía la tarea o si el predicado deducido de su clave ({@link TaskCacheDependency})
+ * la acepta ahora, de modo que un cambio en una tarea no vacía los listados que no pueden verse afectados por él. Las
+ * páginas se eliminan también si el predicado aceptaba la tarea antes del cambio: al salir del resultado se desplazan
+ * las páginas siguientes y cambia el total, aunque no la contuvieran.
+ *
+ * Dentro de una transacción la invalidación se aplica tras el commit, y antes de recorrer la caché se rechazan los
+ * rellenos en curso ({@link VersionedCaffeineCache#rejectPendingFills()}), que pueden haber leído la fila anterior.
+ */
+@Slf4j
+@Component
+public class TaskCacheInvalidator {
+
+   public static final String CACHE_ONE_TASK = "cacheOneTask";
+   public static final String CACHE_MANY_TASKS = "cacheManyTasks";
+
+   private enum ChangeType {
+      CREATED, UPDATED, DELETED, BULK_UPDATED
+   }
+
+   // en UPDATED, 'previous' son los valores antes del cambio ('null' si no se conocen); en BULK_UPDATED, 'ids' son las
+   // tareas modificadas y 'task' solo lleva los valores nuevos de 'changedFields'
+   private record TaskChange(ChangeType type, Long id, Collection<Long> ids, TaskDto task, TaskDto previous,
+          Set<String> changedFields) {
+   }
+
+   private final ObjectProvider<CacheManager> cacheManagerProvider;
+
+   public TaskCacheInvalidator(ObjectProvider<CacheManager> cacheManagerProvider) {
+      this.cacheManagerProvider = cacheManagerProvider;
+   }
+
+   public void taskCreated(TaskDto task) {
+      tasksCreated(Collections.singletonList(task));
+   }
+
+   public void tasksCreated(Collection<TaskDto> tasks) {
+      evictAffected(tasks.stream()
+             .filter(Objects::nonNull)
+             .map(task -> new TaskChange(ChangeType.CREATED, task.getId(), null, task, null, null))
+             .toList());
+   }
+
+   /**
+    * Invalida las entradas afectadas por la modificación de una tarea.
+    *
+    * @param previous estado de la tarea antes del cambio, o 'null' si no se conoce (se eliminan todas las páginas que
+    * ya no la aceptan)
+    * @param task estado actual de la tarea
+    * @param changedFields campos de la entidad modificados, o 'null' si se ha sustituido la tarea completa
+    */
+   public void taskUpdated(TaskDto previous, TaskDto task, Set<String> changedFields) {
+      if (task == null) {
+         return;
+      }
+      evictAffected(List.of(new TaskChange(ChangeType.UPDATED, task.getId(), null, task, previous, changedFields)));
+   }
+
+   /**
+    * Invalida, una sola vez para todo el lote, las entradas afectadas por una actualización masiva.
+    *
+    * @param ids tareas modificadas
+    * @param values valores nuevos de los campos modificados (el resto a 'null')
+    * @param changedFields campos de la entidad modificados
+    */
+   public void tasksUpdated(Collection<Long> ids, TaskDto values, Set<String> changedFields) {
+      if (ids.isEmpty()) {
+         return;
+      }
+      evictAffected(List.of(new TaskChange(ChangeType.BULK_UPDATED, null, Set.copyOf(ids), values, null, changedFields)));
+   }
+
+   public void taskDeleted(Long id) {
+      // si la tarea sigue en 'cacheOneTask' conocemos su contenido y podemos conservar las páginas de otros filtros
+      evictAffected(List.of(new TaskChange(ChangeType.DELETED, id, null, cachedTask(id), null, null)));
+   }
+
+   private void evictAffected(List<TaskChange> changes) {
+      if (changes.isEmpty()) {
+         return;
+      }
+      if (TransactionSynchronizationManager.isSynchronizationActive()) {
+         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+               evictAffectedNow(changes);
+            }
+         });
+      } else {
+         evictAffectedNow(changes);
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   private void evictAffectedNow(List<TaskChange> changes) {
+      // ya estamos tras el commit: operamos sobre la caché real y no sobre el decorador transaccional
+      Cache cache = getTargetCache(CACHE_MANY_TASKS);
+      if (cache == null) {
+         return;
+      }
+      if (cache instanceof VersionedCaffeineCache versionedCache) {
+         versionedCache.rejectPendingFills(); // un relleno aún no visible no aparecería en el recorrido
+      }
+
+      if (!(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache)) {
+         cache.clear(); // no podemos recorrer las entradas, invalidamos todo
+         return;
+      }
+
+      // las actualizaciones masivas no pasan por @CachePut: retiramos también cada tarea de 'cacheOneTask'
+      Cache oneTaskCache = getTargetCache(CACHE_ONE_TASK);
+      if (oneTaskCache != null) {
+         changes.stream()
+                .filter(change -> change.type() == ChangeType.BULK_UPDATED)
+                .forEach(change -> change.ids().forEach(oneTaskCache::evict));
+      }
+
+      ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) nativeCache).asMap().forEach((key, value) -> {
+         TaskCacheDependency dependency = key instanceof CacheKey cacheKey ? TaskCacheDependency.of(cacheKey) : null;
+         if (dependency == null) {
+            cache.evict(key); // entrada sin predicado conocido
+         } else if (changes.stream().anyMatch(change -> isAffected(dependency, value, change))) {
+            log.debug("Evicting {} from {}", key, CACHE_MANY_TASKS);
+            cache.evict(key);
+         }
+      });
+   }
+
+   private boolean isAffected(TaskCacheDependency dependency, Object value, TaskChange change) {
+      if (change.type() == ChangeType.BULK_UPDATED) {
+         return containsAnyTask(value, change.ids()) || isJoinedByBulkUpdate(dependency, change);
+      }
+      if (change.id() != null && containsAnyTask(value, Set.of(change.id()))) {
+         return true; // la tarea ya formaba parte del resultado
+      }
+
+      boolean matches = change.task() == null || dependency.matches(change.task());
+      return switch (change.type()) {
+         case CREATED ->
+            matches;
+         case UPDATED -> {
+            if (!matches) {
+               // la tarea sale del resultado: en las páginas siguientes a la suya se desplazan las tareas y en todas
+               // cambia el total (la que la contenía ya se ha resuelto antes)
+               yield dependency.isPaged() && (change.previous() == null || dependency.matches(change.previous()));
+            }
+            // un listado completo o una página filtrada a la que ahora pertenece la tarea cambia de contenido;
+            // una página sin filtro solo cambia si la tarea puede moverse, es decir, si cambia un campo del orden
+            yield !dependency.isPaged()
+                   || dependency.kind() != TaskCacheDependency.Kind.ALL
+                   || change.changedFields() == null
+                   || dependency.isSortedBy(change.changedFields());
+         }
+         case DELETED ->
+            dependency.isPaged() && matches; // el borrado desplaza las páginas siguientes
+         case BULK_UPDATED ->
+            true; // se resuelve antes del 'switch'
+      };
+   }
+
+   // Una entrada que no contenía ninguna de las tareas solo cambia si alguna puede entrar en ella: porque pasa a cumplir
+   // su predicado o porque cambia un campo del orden de una página. Sin el estado completo de cada tarea no sabemos su
+   // posición, así que en el segundo caso invalidamos la página.
+   private boolean isJoinedByBulkUpdate(TaskCacheDependency dependency, TaskChange change) {
+      if (dependency.isPaged() && dependency.isSortedBy(change.changedFields())) {
+         return true;
+      }
+      return switch (dependency.kind()) {
+         case STATUS ->
+            change.changedFields().contains("taskStatus") && dependency.matches(change.task());
+         case COMPLETION ->
+            change.changedFields().contains("isCompleted") && dependency.matches(change.task());
+         default ->
+            false; // un listado completo ya contenía las tareas, y el título y la descripción no cambian
+      };
+   }
+
+   private boolean containsAnyTask(Object value, Collection<Long> ids) {
+      Collection<?> content = value instanceof Slice<?> slice ? slice.getContent() // Page o Slice
+             : value instanceof Collection<?> collection ? collection : List.of();
+      return content.stream()
+             .anyMatch(item -> item instanceof TaskDto dto && ids.contains(dto.getId()));
+   }
+
+   // se lee el mapa de Caffeine y no la caché de Spring: la consulta no cuenta como acierto o fallo (métricas, Timer del
+   // método, estadísticas de Caffeine) ni deja un relleno pendiente en VersionedCaffeineCache
+   private TaskDto cachedTask(Long id) {
+      Cache cache = getTargetCache(CACHE_ONE_TASK);
+      if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+         return nativeCache.asMap().get(id) instanceof TaskDto task ? task : null;
+      }
+      return null;
+   }
+
+   private Cache getTargetCache(String name) {
+      Cache cache = getCache(name);
+      return cache instanceof TransactionAwareCacheDecorator decorator ? decorator.getTargetCache() : cache;
+   }
+
+   private Cache getCache(String name) {
+      CacheManager cacheManager = cacheManagerProvider.getIfAvailable();
+      return cacheManager != null ? cacheManager.getCache(name) : null;
+   }
+
+}
@@ -0,0 +1,126 @@
+package es.televoip.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+/**
+ * CaffeineCache que rechaza los rellenos obsoletos.
+ *
+ * Un lector que falla en la caché lee la base de datos y guarda el resultado después; si entre ambos momentos una
+ * escritura ha invalidado la clave, lo leído es anterior a ella y no debe volver a la caché. Cada clave tiene una
+ * generación (por franjas de hash) que se incrementa en cada desalojo o escritura directa, y la caché una época que se
+ * incrementa al vaciarla: el 'put' de un lector solo se acepta si la generación no ha cambiado desde su fallo.
+ */
+@Slf4j
+public class VersionedCaffeineCache extends CaffeineCache {
+
+   private static final int STRIPES = 1024; // potencia de 2
+   private static final int MAX_PENDING_FILLS = 32; // fallos sin 'put' (p.ej. el método lanzó una excepción)
+
+   private final AtomicLong epoch = new AtomicLong();
+
+   private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+   // generación observada por el hilo en cada fallo, pendiente de su 'put'
+   private final ThreadLocal<Map<Object, Long>> pendingFills = ThreadLocal.withInitial(() -> new LinkedHashMap<>() {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Object, Long> eldest) {
+         return size() > MAX_PENDING_FILLS;
+      }
+   });
+
+   public VersionedCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+          boolean allowNullValues) {
+      super(name, cache, allowNullValues);
+   }
+
+   @Override
+   protected Object lookup(Object key) {
+      long stamp = stamp(key);
+      boolean present = getNativeCache().asMap().containsKey(key);
+      Object value = super.lookup(key);
+      if (value == null) {
+         pendingFills.get().put(key, stamp); // el llamante cargará el valor y hará 'put'
+      } else if (!present && stamp(key) != stamp) {
+         // una LoadingCache ha cargado la clave mientras se invalidaba: devolvemos lo leído pero no lo conservamos
+         getNativeCache().asMap().remove(key, value);
+      }
+      return value;
+   }
+
+   @Override
+   public void put(Object key, Object value) {
+      if (acceptFill(key)) {
+         super.put(key, value);
+      }
+   }
+
+   @Override
+   public ValueWrapper putIfAbsent(Object key, Object value) {
+      return acceptFill(key) ? super.putIfAbsent(key, value) : null;
+   }
+
+   @Override
+   public void evict(Object key) {
+      bump(key); // antes de desalojar, para que ningún relleno en curso vuelva a guardar la clave
+      super.evict(key);
+   }
+
+   @Override
+   public boolean evictIfPresent(Object key) {
+      bump(key);
+      return super.evictIfPresent(key);
+   }
+
+   @Override
+   public void clear() {
+      epoch.incrementAndGet();
+      super.clear();
+   }
+
+   @Override
+   public boolean invalidate() {
+      epoch.incrementAndGet();
+      return super.invalidate();
+   }
+
+   /**
+    * Invalida los rellenos en curso de todas las claves sin desalojar nada. Se usa cuando no se puede saber qué claves
+    * afecta una escritura hasta recorrer la caché, y un relleno aún no visible podría quedarse fuera del recorrido.
+    */
+   public void rejectPendingFills() {
+      epoch.incrementAndGet();
+   }
+
+   private boolean acceptFill(Object key) {
+      Long observed = pendingFills.get().remove(key);
+      if (observed == null) {
+         bump(key); // escritura directa (@CachePut): anula los rellenos de otros hilos iniciados antes
+         return true;
+      }
+      if (observed != stamp(key)) {
+         log.debug("Discarding stale fill of {} in {}", key, getName());
+         return false;
+      }
+      return true;
+   }
+
+   private void bump(Object key) {
+      generations.incrementAndGet(stripe(key));
+   }
+
+   private long stamp(Object key) {
+      // ambos contadores solo crecen: la suma cambia si cambia cualquiera de los dos
+      return epoch.get() + generations.get(stripe(key));
+   }
+
+   private static int stripe(Object key) {
+      int hash = key.hashCode();
+      return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+   }
+
+}
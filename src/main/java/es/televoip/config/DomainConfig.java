@@ -10,6 +10,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.auditing.DateTimeProvider;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 @Configuration
@@ -17,6 +18,7 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 @EnableJpaRepositories("es.televoip.repository") // nuestro paquete para los repositorios
 @EnableTransactionManagement // habilita la gestión de transacciones 
 @EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider") //  habilita la auditoría JPA y proporciona el Bean fecha y hora
+@EnableScheduling // tareas periódicas, p.ej. la reconciliación de TaskStatistics
 public class DomainConfig {
 
    @Value("${app.auditTimezone}")
@@ -0,0 +1,91 @@
+package es.televoip.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MariaDBDialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ajusta las secuencias de los ID al arrancar, antes de cualquier inserción.
+ *
+ * Las entidades usaban GenerationType.IDENTITY: en una base de datos existente 'ddl-auto=update' crea las secuencias
+ * nuevas (p.ej. 'task_seq') empezando en 1, por debajo de los ID ya asignados. Si una secuencia va por detrás del
+ * mayor ID de su tabla, la reiniciamos por encima; si ya va por delante no se toca.
+ *
+ * El valor de la secuencia se consulta sin 'nextval', que en cada arranque consumiría un bloque de ID.
+ */
+@Slf4j
+@Component
+public class IdSequenceInitializer implements SmartInitializingSingleton {
+
+   private final EntityManagerFactory entityManagerFactory;
+
+   private final JdbcTemplate jdbcTemplate;
+
+   public IdSequenceInitializer(EntityManagerFactory entityManagerFactory, JdbcTemplate jdbcTemplate) {
+      this.entityManagerFactory = entityManagerFactory;
+      this.jdbcTemplate = jdbcTemplate;
+   }
+
+   @Override
+   public void afterSingletonsInstantiated() {
+      SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+      Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+      sessionFactory.getMappingMetamodel().forEachEntityDescriptor(descriptor -> {
+         if (descriptor instanceof AbstractEntityPersister persister
+                && persister.getGenerator() instanceof SequenceStyleGenerator generator
+                && generator.getDatabaseStructure() instanceof SequenceStructure sequence) {
+            align(dialect, persister, sequence);
+         }
+      });
+   }
+
+   private void align(Dialect dialect, AbstractEntityPersister persister, DatabaseStructure sequence) {
+      String table = persister.getIdentifierTableName();
+      String column = persister.getIdentifierColumnNames()[0];
+      Long maxId = jdbcTemplate.queryForObject("SELECT MAX(" + column + ") FROM " + table, Long.class);
+      if (maxId == null) {
+         return; // tabla vacía
+      }
+
+      String sequenceName = sequence.getPhysicalName().getObjectName().render(dialect);
+      Long current = currentValue(dialect, sequenceName);
+      if (current == null || current > maxId) {
+         return;
+      }
+
+      // con el optimizador 'pooled' el primer bloque es (valor - incremento, valor]: debe empezar tras el mayor ID
+      long restart = maxId + sequence.getIncrementSize();
+      jdbcTemplate.execute("ALTER SEQUENCE " + sequenceName + " RESTART WITH " + restart);
+      log.info("Sequence {} restarted at {} (max {}.{} = {})", sequenceName, restart, table, column, maxId);
+   }
+
+   // Valor de la secuencia sin avanzarla: 'null' si la base de datos no lo permite (entonces no se toca)
+   private Long currentValue(Dialect dialect, String sequenceName) {
+      if (dialect instanceof MariaDBDialect) {
+         // primer valor aún no reservado en la caché de la secuencia: ningún ID asignado lo supera
+         return jdbcTemplate.queryForObject("SELECT next_not_cached_value FROM " + sequenceName, Long.class);
+      }
+      if (dialect instanceof H2Dialect) {
+         return jdbcTemplate.queryForList("SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES "
+                + "WHERE SEQUENCE_SCHEMA = CURRENT_SCHEMA AND UPPER(SEQUENCE_NAME) = UPPER(?)", Long.class, sequenceName)
+                .stream().findFirst().orElse(null);
+      }
+      if (dialect instanceof PostgreSQLDialect) {
+         return jdbcTemplate.queryForObject("SELECT last_value FROM " + sequenceName, Long.class);
+      }
+      log.warn("Cannot read sequence {} without advancing it on {}, not aligned", sequenceName, dialect.getClass().getSimpleName());
+      return null;
+   }
+
+}
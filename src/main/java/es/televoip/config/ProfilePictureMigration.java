@@ -0,0 +1,73 @@
+package es.televoip.config;
+
+import es.televoip.storage.ProfilePictureStore;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mueve al {@link ProfilePictureStore} las fotos de perfil que aún estén en la tabla 'person'.
+ *
+ * UserAccess guardaba la imagen en la columna 'profile_picture' (NOT NULL); ahora guarda su referencia en
+ * 'profile_picture_id', que 'ddl-auto=update' añade pero sin borrar la columna antigua, y con ella no se podrían insertar
+ * personas. Si la columna existe, se copian las imágenes al almacén, se anota su referencia y se elimina la columna.
+ */
+@Slf4j
+@Component
+public class ProfilePictureMigration implements SmartInitializingSingleton {
+
+   private static final String TABLE = "person";
+   private static final String OLD_COLUMN = "profile_picture";
+
+   private final JdbcTemplate jdbcTemplate;
+
+   private final ProfilePictureStore store;
+
+   public ProfilePictureMigration(JdbcTemplate jdbcTemplate, ProfilePictureStore store) {
+      this.jdbcTemplate = jdbcTemplate;
+      this.store = store;
+   }
+
+   @Override
+   public void afterSingletonsInstantiated() {
+      if (!oldColumnExists()) {
+         return;
+      }
+
+      List<Object[]> references = new ArrayList<>();
+      jdbcTemplate.query("SELECT id, " + OLD_COLUMN + " FROM " + TABLE
+             + " WHERE " + OLD_COLUMN + " IS NOT NULL AND profile_picture_id IS NULL", resultSet -> {
+         try (InputStream picture = resultSet.getBinaryStream(2)) {
+            if (picture != null) {
+               references.add(new Object[]{store.store(picture), resultSet.getLong(1)});
+            }
+         } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+         }
+      });
+      jdbcTemplate.batchUpdate("UPDATE " + TABLE + " SET profile_picture_id = ? WHERE id = ?", references);
+      jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP COLUMN " + OLD_COLUMN);
+      log.info("Moved {} profile pictures from {}.{} to the picture store", references.size(), TABLE, OLD_COLUMN);
+   }
+
+   private boolean oldColumnExists() {
+      return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+         DatabaseMetaData metaData = connection.getMetaData();
+         boolean upperCase = metaData.storesUpperCaseIdentifiers(); // H2 sí, MariaDB no
+         try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null,
+                upperCase ? TABLE.toUpperCase() : TABLE, upperCase ? OLD_COLUMN.toUpperCase() : OLD_COLUMN)) {
+            return columns.next();
+         }
+      }));
+   }
+
+}
@@ -35,6 +35,13 @@ public final class TaskConstant {
    // Mensajes en la capa Service
    public static final String TASK_ID_NOT_FOUND = "Tarea no encontrada con ID: ";
    public static final String TASK_IS_NULL = "La lista de tareas a crear es 'null'.";
+   public static final String TASK_BULK_UPDATE_NOT_VALID = "Actualización masiva no válida: ";
+   public static final String TASK_IMPORT_NOT_FOUND = "Importación no encontrada con ID: ";
+   public static final String TASK_IMPORT_FORMAT_NOT_VALID = "Formato de importación no soportado (text/csv o application/x-ndjson): ";
+   public static final String PICTURE_NOT_FOUND = "Foto de perfil no encontrada: ";
+   public static final String TASK_VERSION_MISMATCH = "La tarea ha cambiado desde la versión indicada en If-Match: ";
+   public static final String TASK_UPDATE_CONFLICT = "La tarea ha cambiado durante la actualización, vuelva a intentarlo: ";
+   public static final String TASK_ETAG_NOT_VALID = "Cabecera If-Match no válida: ";
    public static final String TASK_DATE_FAIL = "La fecha de finalización debe ser igual o posterior a la fecha de creación.";
 
    // Mensajes en la capa Controller
@@ -57,6 +64,30 @@ public final class TaskConstant {
    public static final String TASK_GET_ALL_SORTED_PAGED = "Obtención de todas las tareas ordenadas y paginadas";
    public static final String TASK_GET_ALL_SORTED_PAGED_SUCCESS = "Se obtiene un objeto de tipo listado tareas ordenadas y paginadas.";
 
+   public static final String TASK_GET_ALL_SLICED = "Obtención de una porción de las tareas";
+   public static final String TASK_GET_ALL_SLICED_SUCCESS = "Se obtiene una porción de tareas e indica si hay más, sin contar el total.";
+
+   public static final String TASK_GET_FILTER_SLICED = "Búsqueda de tareas por texto, por porciones";
+   public static final String TASK_GET_FILTER_SLICED_SUCCESS = "Se obtiene una porción de las tareas que contienen el texto, por relevancia.";
+   public static final String TASK_FILTER_RULE = "Cada palabra del texto debe ser el principio de alguna palabra del título o la descripción, sin distinguir mayúsculas ni acentos ('inf' encuentra 'Informe', pero 'forme' no). Un texto vacío o en blanco devuelve todas las tareas.";
+
+   public static final String TASK_EXPORT = "Exportación de todas las tareas";
+   public static final String TASK_EXPORT_SUCCESS = "Se envían todas las tareas, una por línea (NDJSON), a medida que se leen de la base de datos.";
+
+   public static final String TASK_IMPORT = "Importación masiva de tareas";
+   public static final String TASK_IMPORT_ACCEPTED = "Se acepta el fichero y se importa en segundo plano; el progreso se consulta en la dirección indicada en 'Location'.";
+   public static final String TASK_IMPORT_STATUS = "Estado de la importación";
+   public static final String TASK_IMPORT_STATUS_SUCCESS = "Se obtiene el progreso de la importación y las filas descartadas con su motivo.";
+
+   public static final String TASK_STATISTICS = "Estadísticas de las tareas";
+   public static final String TASK_STATISTICS_SUCCESS = "Se obtiene el número de tareas por estado, completitud, prioridad y día de creación y finalización, mantenido en memoria.";
+
+   public static final String PICTURE_GET = "Obtención de una foto de perfil";
+   public static final String PICTURE_GET_SUCCESS = "Se envía la imagen desde el almacén de fotos; admite 'Range' (respuesta 206) e 'If-None-Match' (respuesta 304).";
+
+   public static final String TASK_GET_ALL_CURSOR = "Obtención de todas las tareas ordenadas por cursor";
+   public static final String TASK_GET_ALL_CURSOR_SUCCESS = "Se obtiene una página de tareas ordenadas y el cursor de la siguiente página.";
+
    public static final String TASK_GET_ALL_SORTED = "Obtención de todas las tareas ordenadas";
    public static final String TASK_GET_ALL_SORTED_SUCCESS = "Se obtiene un objeto de tipo listado tareas ordenadas.";
 
@@ -80,10 +111,16 @@ public final class TaskConstant {
    public static final String TASK_COMPLETED = "Tarea completada";
    public static final String TASK_STATE_UPDATED_SUCCESS = "Estado de la tarea actualizada exitosamente.";
    public static final String TASK_STATE_UPDATED = "Actualización del estado de la tarea";
+   public static final String TASK_BULK_UPDATED = "Actualización masiva de tareas";
+   public static final String TASK_BULK_UPDATED_SUCCESS = "Se aplican los cambios a todas las tareas indicadas y se devuelve el número de tareas modificadas.";
    public static final String TASK_UPDATED_TO_COMPLETED = "Tarea actualizada exitosamente a completada.";
    public static final String TASK_UPDATED_COMPLETED = "Actualización de tarea a completada.";
    public static final String TASK_INVALID_REQUEST = "Solicitud incorrecta.";
    public static final String TASK_REQUEST_NOT_PROCESSED = "No se pudo procesar la solicitud.";
+   public static final String TASK_PRECONDITION_FAILED = "La tarea ha cambiado desde que se leyó.";
+   public static final String TASK_VERSION_CHECK = "Vuelva a leer la tarea y envíe su nueva ETag en If-Match.";
+   public static final String TASK_CONFLICT = "La tarea ha cambiado mientras se actualizaba.";
+   public static final String TASK_CONFLICT_RETRY = "Otra petición ha modificado la tarea a la vez: vuelva a enviar la petición.";
    public static final String TASK_DATE_UPDATED_SUCCESS = "Fecha de finalización actualizada exitosamente.";
    public static final String TASK_DATE_UPDATED = "Actualización de fecha de finalización";
 
@@ -125,6 +162,16 @@ public final class TaskConstant {
           + "\"message\": \"La solicitud enviada no es válida.\""
           + "}";
 
+   public static final String VALUE_ERROR_412 = "{"
+          + STATUS //"\"status\": \"error\","
+          + "\"message\": \"La tarea ha cambiado desde la versión indicada.\""
+          + "}";
+
+   public static final String VALUE_ERROR_409 = "{"
+          + STATUS //"\"status\": \"error\","
+          + "\"message\": \"La tarea ha cambiado durante la actualización.\""
+          + "}";
+
    public static final String VALUE_ERROR_422 = "{"
           + STATUS //"\"status\": \"error\","
           + "\"message\": \"La tarea no cumple las validaciones.\""
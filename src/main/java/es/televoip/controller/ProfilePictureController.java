@@ -0,0 +1,86 @@
+package es.televoip.controller;
+
+import es.televoip.constant.TaskConstant;
+import es.televoip.exceptions.DataException;
+import es.televoip.storage.ProfilePictureStore;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/pictures")
+public class ProfilePictureController {
+
+   // Accesos para OPENAPI Swagger3
+   // http://localhost:8080/swagger-ui/index.html
+   // http://localhost:8080/v3/api-docs
+   //
+   private static final Duration MAX_AGE = Duration.ofDays(365); // el contenido de una referencia no cambia nunca
+
+   private final ProfilePictureStore store;
+
+   public ProfilePictureController(ProfilePictureStore store) {
+      this.store = store;
+   }
+
+   // ********************************************************************************************************
+   /**
+    * getPicture: Obtiene una foto de perfil por su referencia (UserAccess.profilePictureId).
+    *
+    * @param id Referencia de la foto (SHA-256 de su contenido).
+    * @return Respuesta que lee la imagen del disco a medida que se envía.
+    * @apiNote La referencia es también el ETag. Con la cabecera 'Range' se envía solo el rango pedido (206), y con
+    * 'If-None-Match' igual a la referencia no se envía nada (304).
+    */
+   @Operation(summary = "Get a profile picture by its reference")
+   @ApiResponses(value = {
+      @ApiResponse(
+             responseCode = "200",
+             description = TaskConstant.PICTURE_GET_SUCCESS,
+             content = @Content(
+                    mediaType = "image/*",
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.PICTURE_GET,
+                              description = TaskConstant.PICTURE_GET_SUCCESS
+                       )})),
+      @ApiResponse(
+             responseCode = "404",
+             description = TaskConstant.PICTURE_NOT_FOUND,
+             content = @Content(
+                    mediaType = "application/json",
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.PICTURE_NOT_FOUND,
+                              description = TaskConstant.PICTURE_NOT_FOUND,
+                              value = TaskConstant.VALUE_ERROR_404
+                       )}))
+   })
+   @GetMapping("/{id}")
+   public ResponseEntity<Resource> getPicture(@Parameter(description = "reference of the picture") @PathVariable("id") String id) {
+      Path picture = store.find(id)
+             .orElseThrow(() -> new DataException(HttpStatus.NOT_FOUND, TaskConstant.PICTURE_NOT_FOUND + id));
+
+      // Spring responde 304 si 'If-None-Match' coincide con el ETag, y 206 con las regiones del fichero si hay 'Range'
+      return ResponseEntity.ok()
+             .eTag(id)
+             .cacheControl(CacheControl.maxAge(MAX_AGE).cachePublic().immutable())
+             .contentType(store.mediaType(picture))
+             .body(new FileSystemResource(picture));
+   }
+
+}
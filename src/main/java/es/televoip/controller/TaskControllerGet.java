@@ -1,27 +1,45 @@
 package es.televoip.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import es.televoip.constant.TaskConstant;
+import es.televoip.imports.TaskImportService;
+import es.televoip.model.dto.CursorPage;
 import es.televoip.model.dto.TaskDto;
+import es.televoip.model.dto.TaskImportReport;
+import es.televoip.model.dto.TaskStatisticsDto;
 import es.televoip.model.enums.SortFieldTask;
 import es.televoip.model.enums.TaskStatus;
 import es.televoip.service.implement.TaskServiceImpl;
+import es.televoip.statistics.TaskStatistics;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/tasks")
@@ -31,10 +49,22 @@ public class TaskControllerGet {
    // http://localhost:8080/swagger-ui/index.html
    // http://localhost:8080/v3/api-docs
    //
+   private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
    private final TaskServiceImpl service;
 
-   public TaskControllerGet(TaskServiceImpl service) {
+   private final TaskImportService importService;
+
+   private final TaskStatistics statistics;
+
+   private final ObjectWriter exportWriter; // no cierra el flujo de salida tras cada tarea
+
+   public TaskControllerGet(TaskServiceImpl service, TaskImportService importService, TaskStatistics statistics,
+          ObjectMapper objectMapper) {
       this.service = service;
+      this.importService = importService;
+      this.statistics = statistics;
+      this.exportWriter = objectMapper.writerFor(TaskDto.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
    }
 
    // ********************************************************************************************************
@@ -42,7 +72,7 @@ public class TaskControllerGet {
     * getTask: Obtiene una tarea por su ID.
     *
     * @param id
-    * @return Respuesta con el objeto tarea.
+    * @return Respuesta con el objeto tarea y su versión como ETag.
     * @apiNote Devuelve una tarea correspondiente al ID proporcionado.
     */
    @Operation(summary = "Get a book by its id")
@@ -88,7 +118,8 @@ public class TaskControllerGet {
    public ResponseEntity<TaskDto> getTask(@PathVariable("id") Long id) {
       TaskDto taskDto = service.getTaskById(id);
       if (taskDto != null) {
-         return new ResponseEntity<>(taskDto, HttpStatus.OK);
+         // con la ETag, Spring responde 304 sin cuerpo si coincide con la cabecera If-None-Match
+         return TaskETags.response(taskDto, HttpStatus.OK);
       } else {
          return new ResponseEntity<>(HttpStatus.NOT_FOUND);
       }
@@ -222,6 +253,250 @@ public class TaskControllerGet {
       return new ResponseEntity<>(taskPage, HttpStatus.OK);
    }
 
+   // ********************************************************************************************************
+   /**
+    * getAllTasksSliced: Obtiene una porción de las tareas, sin contar el total.
+    *
+    * @param pageable Página, tamaño y orden ('page', 'size', 'sort').
+    * @return Respuesta con la porción de tareas.
+    * @apiNote Pensado para scroll infinito: devuelve 'last' para saber si hay más tareas en lugar del total de páginas.
+    */
+   @Operation(summary = "Get a slice of tasks (no total count)")
+   @ApiResponses(value = {
+      @ApiResponse(
+             responseCode = "200",
+             description = TaskConstant.TASK_RETRIEVED_SUCCESS,
+             content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = TaskDto.class),
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_GET_ALL_SLICED,
+                              description = TaskConstant.TASK_GET_ALL_SLICED_SUCCESS,
+                              value = TaskConstant.VALUE_OK
+                       )})),
+      @ApiResponse(
+             responseCode = "400",
+             description = TaskConstant.TASK_INVALID_REQUEST,
+             content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = TaskDto.class),
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_INVALID_REQUEST,
+                              description = TaskConstant.TASK_PARAM_NOT_VALID,
+                              value = TaskConstant.VALUE_ERROR_400
+                       )}))
+   })
+   @GetMapping("/slice")
+   public ResponseEntity<Slice<TaskDto>> getAllTasksSliced(@ParameterObject Pageable pageable) {
+      Slice<TaskDto> taskSlice = service.getTasksSliced(pageable);
+      return new ResponseEntity<>(taskSlice, HttpStatus.OK);
+   }
+
+   // ********************************************************************************************************
+   /**
+    * getTasksByFilterSliced: Busca tareas por texto en el título o la descripción, por porciones.
+    *
+    * @param filter Texto a buscar: cada palabra debe ser el principio de una palabra de la tarea; vacío devuelve todas.
+    * @param pageable Página, tamaño y orden ('page', 'size', 'sort'); sin orden se devuelven por relevancia.
+    * @return Respuesta con la porción de tareas.
+    * @apiNote Igual que la búsqueda paginada pero sin contar el total de resultados.
+    */
+   @Operation(summary = "Find tasks by text, sliced (no total count)", description = TaskConstant.TASK_FILTER_RULE)
+   @ApiResponses(value = {
+      @ApiResponse(
+             responseCode = "200",
+             description = TaskConstant.TASK_RETRIEVED_SUCCESS,
+             content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = TaskDto.class),
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_GET_FILTER_SLICED,
+                              description = TaskConstant.TASK_GET_FILTER_SLICED_SUCCESS,
+                              value = TaskConstant.VALUE_OK
+                       )})),
+      @ApiResponse(
+             responseCode = "400",
+             description = TaskConstant.TASK_INVALID_REQUEST,
+             content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = TaskDto.class),
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_INVALID_REQUEST,
+                              description = TaskConstant.TASK_PARAM_NOT_VALID,
+                              value = TaskConstant.VALUE_ERROR_400
+                       )}))
+   })
+   @GetMapping("/filter/slice")
+   public ResponseEntity<Slice<TaskDto>> getTasksByFilterSliced(@RequestParam String filter,
+          @ParameterObject Pageable pageable) {
+      Slice<TaskDto> taskSlice = service.getTasksByFilterSliced(filter, pageable);
+      return new ResponseEntity<>(taskSlice, HttpStatus.OK);
+   }
+
+   // ********************************************************************************************************
+   /**
+    * getAllTasksByCursor: Obtiene las tareas ordenadas, página a página mediante un cursor.
+    *
+    * @param sortBy Campo por el cual se ordenarán las tareas.
+    * @param sortOrder Dirección de la ordenación (ASCENDENTE o DESCENDENTE).
+    * @param cursor Cursor devuelto en la página anterior ('nextCursor'); se omite para obtener la primera página.
+    * @param size Número de tareas por página.
+    * @return Respuesta con la página de tareas y el cursor de la siguiente página.
+    * @apiNote A diferencia de la paginación por número de página, el coste no crece con la profundidad de la página.
+    */
+   @Operation(summary = "Get all tasks sorted, paginated by cursor")
+   @ApiResponses(value = {
+      @ApiResponse(
+             responseCode = "200",
+             description = TaskConstant.TASK_RETRIEVED_SUCCESS,
+             content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = CursorPage.class),
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_GET_ALL_CURSOR,
+                              description = TaskConstant.TASK_GET_ALL_CURSOR_SUCCESS,
+                              value = TaskConstant.VALUE_OK
+                       )})),
+      @ApiResponse(
+             responseCode = "400",
+             description = TaskConstant.TASK_INVALID_REQUEST,
+             content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = TaskDto.class),
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_INVALID_REQUEST,
+                              description = TaskConstant.TASK_PARAM_NOT_VALID,
+                              value = TaskConstant.VALUE_ERROR_400
+                       )}))
+   })
+   @GetMapping("/cursor")
+   public ResponseEntity<CursorPage<TaskDto>> getAllTasksByCursor(@RequestParam SortFieldTask sortBy,
+          @RequestParam Sort.Direction sortOrder, @RequestParam(required = false) String cursor,
+          @RequestParam(defaultValue = "20") int size) {
+      CursorPage<TaskDto> taskPage = service.getTasksByCursor(sortBy, sortOrder, cursor, size);
+      return new ResponseEntity<>(taskPage, HttpStatus.OK);
+   }
+
+   // ********************************************************************************************************
+   /**
+    * exportTasks: Exporta todas las tareas en formato NDJSON (un objeto JSON por línea).
+    *
+    * @param gzip Si es 'true', la respuesta se comprime con gzip (Content-Encoding: gzip).
+    * @return Respuesta que escribe las tareas a medida que se leen de la base de datos.
+    * @apiNote La memoria usada no depende del número de tareas: ni la consulta ni la respuesta se acumulan.
+    */
+   @Operation(summary = "Export all tasks as NDJSON")
+   @ApiResponses(value = {
+      @ApiResponse(
+             responseCode = "200",
+             description = TaskConstant.TASK_EXPORT_SUCCESS,
+             content = @Content(
+                    mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                    schema = @Schema(implementation = TaskDto.class),
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_EXPORT,
+                              description = TaskConstant.TASK_EXPORT_SUCCESS,
+                              value = TaskConstant.VALUE_OK
+                       )}))
+   })
+   @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+   public ResponseEntity<StreamingResponseBody> exportTasks(@RequestParam(defaultValue = "false") boolean gzip) {
+      StreamingResponseBody body = outputStream -> {
+         OutputStream out = gzip ? new GZIPOutputStream(outputStream, EXPORT_BUFFER_SIZE)
+                : new BufferedOutputStream(outputStream, EXPORT_BUFFER_SIZE);
+         try (out) {
+            service.exportTasks(task -> {
+               try {
+                  exportWriter.writeValue(out, task);
+                  out.write('\n');
+               } catch (IOException ex) {
+                  throw new UncheckedIOException(ex);
+               }
+            });
+         }
+      };
+
+      ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+             .contentType(MediaType.APPLICATION_NDJSON)
+             .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tasks.ndjson\"");
+      if (gzip) {
+         response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+      }
+      return response.body(body);
+   }
+
+   // ********************************************************************************************************
+   /**
+    * getImport: Obtiene el estado de una importación de tareas.
+    *
+    * @param id ID de la importación devuelto por POST /api/tasks/import.
+    * @return Respuesta con las filas leídas, importadas y descartadas (con la línea y el motivo).
+    */
+   @Operation(summary = "Get the progress of a task import")
+   @ApiResponses(value = {
+      @ApiResponse(
+             responseCode = "200",
+             description = TaskConstant.TASK_IMPORT_STATUS_SUCCESS,
+             content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = TaskImportReport.class),
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_IMPORT_STATUS,
+                              description = TaskConstant.TASK_IMPORT_STATUS_SUCCESS,
+                              value = TaskConstant.VALUE_OK
+                       )})),
+      @ApiResponse(
+             responseCode = "404",
+             description = TaskConstant.TASK_NOT_FOUND,
+             content = @Content(
+                    mediaType = "application/json",
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_NOT_FOUND,
+                              description = TaskConstant.TASK_IMPORT_NOT_FOUND,
+                              value = TaskConstant.VALUE_ERROR_404
+                       )}))
+   })
+   @GetMapping("/import/{id}")
+   public ResponseEntity<TaskImportReport> getImport(@PathVariable("id") String id) {
+      return new ResponseEntity<>(importService.getImport(id), HttpStatus.OK);
+   }
+
+   // ********************************************************************************************************
+   /**
+    * getStatistics: Obtiene las estadísticas de las tareas.
+    *
+    * @return Respuesta con el número de tareas por estado, completitud, prioridad y día de creación y finalización.
+    * @apiNote Se leen de memoria sin consultar la base de datos; ver TaskStatistics.
+    */
+   @Operation(summary = "Get task statistics")
+   @ApiResponses(value = {
+      @ApiResponse(
+             responseCode = "200",
+             description = TaskConstant.TASK_STATISTICS_SUCCESS,
+             content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = TaskStatisticsDto.class),
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_STATISTICS,
+                              description = TaskConstant.TASK_STATISTICS_SUCCESS,
+                              value = TaskConstant.VALUE_OK
+                       )}))
+   })
+   @GetMapping("/statistics")
+   public ResponseEntity<TaskStatisticsDto> getStatistics() {
+      return new ResponseEntity<>(statistics.snapshot(), HttpStatus.OK);
+   }
+
    // ********************************************************************************************************
    /**
     * getAllByTaskStatus: Obtiene todas las tareas según su estado.
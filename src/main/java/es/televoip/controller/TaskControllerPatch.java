@@ -1,6 +1,8 @@
 package es.televoip.controller;
 
 import es.televoip.constant.TaskConstant;
+import es.televoip.model.dto.TaskBulkUpdate;
+import es.televoip.model.dto.TaskBulkUpdateResult;
 import es.televoip.model.dto.TaskDto;
 import es.televoip.model.enums.TaskStatus;
 import es.televoip.service.implement.TaskServiceImpl;
@@ -13,12 +15,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -43,6 +47,7 @@ public class TaskControllerPatch {
     *
     * @param id El ID de la tarea a actualizar.
     * @param taskDto Datos actualizados de la tarea.
+    * @param ifMatch ETag de la tarea leída: si se indica y la tarea ha cambiado desde entonces, responde 412.
     * @return Respuesta con la tarea actualizada.
     * @apiNote Actualiza la tarea correspondiente al ID proporcionado con los datos proporcionados en el cuerpo de la solicitud.
     */
@@ -95,14 +100,38 @@ public class TaskControllerPatch {
                               name = TaskConstant.TASK_NOT_FOUND,
                               description = TaskConstant.TASK_RECORD_CHECK_VALID,
                               value = TaskConstant.VALUE_ERROR_422
+                       )})),
+      @ApiResponse(
+             responseCode = "412",
+             description = TaskConstant.TASK_PRECONDITION_FAILED,
+             content = @Content(
+                    mediaType = "application/json",
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_PRECONDITION_FAILED,
+                              description = TaskConstant.TASK_VERSION_CHECK,
+                              value = TaskConstant.VALUE_ERROR_412
+                       )})),
+      @ApiResponse(
+             responseCode = "409",
+             description = TaskConstant.TASK_CONFLICT,
+             content = @Content(
+                    mediaType = "application/json",
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_CONFLICT,
+                              description = TaskConstant.TASK_CONFLICT_RETRY,
+                              value = TaskConstant.VALUE_ERROR_409
                        )}))
    })
    @PutMapping("/{id}")
    public ResponseEntity<TaskDto> updateTask(@Parameter(description = "id of task to be updated") @PathVariable Long id,
-          @Valid @RequestBody TaskDto taskDto) {
+          @Valid @RequestBody TaskDto taskDto,
+          @Parameter(description = "ETag of the task as read, to update it only if it has not changed")
+          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
       // Valid debe tener anotaciones de validación adecuadas, como @NotBlank, @NotNull, @Size, etc., en su capa DTO
-      TaskDto updatedTask = service.updateTask(id, taskDto);
-      return new ResponseEntity<>(updatedTask, HttpStatus.OK);
+      TaskDto updatedTask = service.updateTask(id, taskDto, TaskETags.expectedVersion(ifMatch));
+      return TaskETags.response(updatedTask, HttpStatus.OK);
    }
 
    // ********************************************************************************************************
@@ -111,6 +140,7 @@ public class TaskControllerPatch {
     *
     * @param id El ID de la tarea a actualizar.
     * @param newDateOfFinished Nueva fecha de finalización de la tarea.
+    * @param ifMatch ETag de la tarea leída (opcional): si ha cambiado desde entonces, responde 412.
     * @return Respuesta con la tarea actualizada.
     * @apiNote Actualiza la fecha de finalización de la tarea correspondiente al ID proporcionado con la nueva fecha especificada.
     */
@@ -163,13 +193,37 @@ public class TaskControllerPatch {
                               name = TaskConstant.TASK_NOT_FOUND,
                               description = TaskConstant.TASK_RECORD_CHECK_VALID,
                               value = TaskConstant.VALUE_ERROR_422
+                       )})),
+      @ApiResponse(
+             responseCode = "412",
+             description = TaskConstant.TASK_PRECONDITION_FAILED,
+             content = @Content(
+                    mediaType = "application/json",
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_PRECONDITION_FAILED,
+                              description = TaskConstant.TASK_VERSION_CHECK,
+                              value = TaskConstant.VALUE_ERROR_412
+                       )})),
+      @ApiResponse(
+             responseCode = "409",
+             description = TaskConstant.TASK_CONFLICT,
+             content = @Content(
+                    mediaType = "application/json",
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_CONFLICT,
+                              description = TaskConstant.TASK_CONFLICT_RETRY,
+                              value = TaskConstant.VALUE_ERROR_409
                        )}))
    })
    @PatchMapping("/{id}/dateOfFinished")
    public ResponseEntity<TaskDto> updateTaskDateOfFinished(@Parameter(description = "id of task to be updated") @PathVariable Long id,
-          @Parameter(description = "date of task to be updated") @RequestParam LocalDateTime newDateOfFinished) {
-      TaskDto updatedTask = service.updateTaskDateOfFinished(id, newDateOfFinished);
-      return new ResponseEntity<>(updatedTask, HttpStatus.OK);
+          @Parameter(description = "date of task to be updated") @RequestParam LocalDateTime newDateOfFinished,
+          @Parameter(description = "ETag of the task as read, to update it only if it has not changed")
+          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+      TaskDto updatedTask = service.updateTaskDateOfFinished(id, newDateOfFinished, TaskETags.expectedVersion(ifMatch));
+      return TaskETags.response(updatedTask, HttpStatus.OK);
    }
 
    // ********************************************************************************************************
@@ -178,6 +232,7 @@ public class TaskControllerPatch {
     *
     * @param id El ID de la tarea a actualizar.
     * @param taskStatus Nuevo estado de la tarea.
+    * @param ifMatch ETag de la tarea leída (opcional): si ha cambiado desde entonces, responde 412.
     * @return Respuesta con la tarea actualizada.
     * @apiNote Actualiza el estado de la tarea correspondiente al ID proporcionado con el nuevo estado especificado.
     */
@@ -230,13 +285,37 @@ public class TaskControllerPatch {
                               name = TaskConstant.TASK_NOT_FOUND,
                               description = TaskConstant.TASK_RECORD_CHECK_VALID,
                               value = TaskConstant.VALUE_ERROR_422
+                       )})),
+      @ApiResponse(
+             responseCode = "412",
+             description = TaskConstant.TASK_PRECONDITION_FAILED,
+             content = @Content(
+                    mediaType = "application/json",
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_PRECONDITION_FAILED,
+                              description = TaskConstant.TASK_VERSION_CHECK,
+                              value = TaskConstant.VALUE_ERROR_412
+                       )})),
+      @ApiResponse(
+             responseCode = "409",
+             description = TaskConstant.TASK_CONFLICT,
+             content = @Content(
+                    mediaType = "application/json",
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_CONFLICT,
+                              description = TaskConstant.TASK_CONFLICT_RETRY,
+                              value = TaskConstant.VALUE_ERROR_409
                        )}))
    })
    @PatchMapping("/{id}/status")
    public ResponseEntity<TaskDto> updateTaskStatus(@Parameter(description = "id of task to be updated") @PathVariable Long id,
-          @Parameter(description = "status of task to be updated") @RequestParam TaskStatus taskStatus) {
-      TaskDto updatedStatus = service.updateTaskStatus(id, taskStatus);
-      return new ResponseEntity<>(updatedStatus, HttpStatus.OK);
+          @Parameter(description = "status of task to be updated") @RequestParam TaskStatus taskStatus,
+          @Parameter(description = "ETag of the task as read, to update it only if it has not changed")
+          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+      TaskDto updatedStatus = service.updateTaskStatus(id, taskStatus, TaskETags.expectedVersion(ifMatch));
+      return TaskETags.response(updatedStatus, HttpStatus.OK);
    }
 
    // ********************************************************************************************************
@@ -245,6 +324,7 @@ public class TaskControllerPatch {
     *
     * @param id El ID de la tarea a actualizar.
     * @param isCompleted Nuevo estado de completitud de la tarea.
+    * @param ifMatch ETag de la tarea leída (opcional): si ha cambiado desde entonces, responde 412.
     * @return Respuesta con la tarea actualizada.
     * @apiNote Actualiza el estado de finalización de la tarea correspondiente al ID proporcionado con el nuevo estado de finalización
     * especificado.
@@ -298,13 +378,37 @@ public class TaskControllerPatch {
                               name = TaskConstant.TASK_NOT_FOUND,
                               description = TaskConstant.TASK_RECORD_CHECK_VALID,
                               value = TaskConstant.VALUE_ERROR_422
+                       )})),
+      @ApiResponse(
+             responseCode = "412",
+             description = TaskConstant.TASK_PRECONDITION_FAILED,
+             content = @Content(
+                    mediaType = "application/json",
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_PRECONDITION_FAILED,
+                              description = TaskConstant.TASK_VERSION_CHECK,
+                              value = TaskConstant.VALUE_ERROR_412
+                       )})),
+      @ApiResponse(
+             responseCode = "409",
+             description = TaskConstant.TASK_CONFLICT,
+             content = @Content(
+                    mediaType = "application/json",
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_CONFLICT,
+                              description = TaskConstant.TASK_CONFLICT_RETRY,
+                              value = TaskConstant.VALUE_ERROR_409
                        )}))
    })
    @PatchMapping("/{id}/isCompleted")
    public ResponseEntity<TaskDto> updateTaskIsCompleted(@Parameter(description = "id of task to be updated") @PathVariable Long id,
-          @Parameter(description = "boolean completed of task to be updated") @RequestParam Boolean isCompleted) {
-      TaskDto updatedCompleted = service.updateTaskIsCompleted(id, isCompleted);
-      return new ResponseEntity<>(updatedCompleted, HttpStatus.OK);
+          @Parameter(description = "boolean completed of task to be updated") @RequestParam Boolean isCompleted,
+          @Parameter(description = "ETag of the task as read, to update it only if it has not changed")
+          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+      TaskDto updatedCompleted = service.updateTaskIsCompleted(id, isCompleted, TaskETags.expectedVersion(ifMatch));
+      return TaskETags.response(updatedCompleted, HttpStatus.OK);
    }
 
    // ********************************************************************************************************
@@ -312,6 +416,7 @@ public class TaskControllerPatch {
     * updateTaskToCompleted: Actualiza el estado de una tarea a completada.
     *
     * @param id El ID de la tarea a actualizar.
+    * @param ifMatch ETag de la tarea leída (opcional): si ha cambiado desde entonces, responde 412.
     * @return Respuesta con la tarea actualizada a completada.
     * @apiNote Actualiza la tarea correspondiente al ID proporcionado y establece su estado como completada.
     */
@@ -364,13 +469,78 @@ public class TaskControllerPatch {
                               name = TaskConstant.TASK_NOT_FOUND,
                               description = TaskConstant.TASK_RECORD_CHECK_VALID,
                               value = TaskConstant.VALUE_ERROR_422
+                       )})),
+      @ApiResponse(
+             responseCode = "412",
+             description = TaskConstant.TASK_PRECONDITION_FAILED,
+             content = @Content(
+                    mediaType = "application/json",
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_PRECONDITION_FAILED,
+                              description = TaskConstant.TASK_VERSION_CHECK,
+                              value = TaskConstant.VALUE_ERROR_412
+                       )})),
+      @ApiResponse(
+             responseCode = "409",
+             description = TaskConstant.TASK_CONFLICT,
+             content = @Content(
+                    mediaType = "application/json",
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_CONFLICT,
+                              description = TaskConstant.TASK_CONFLICT_RETRY,
+                              value = TaskConstant.VALUE_ERROR_409
                        )}))
    })
    @PatchMapping("/{id}/toCompleted")
    public ResponseEntity<TaskDto> updateTaskToCompleted(@Parameter(description = "id of task to be updated as completed")
-          @PathVariable("id") Long id) {
-      TaskDto updatedCompleted = service.markTaskAsCompleted(id);
-      return new ResponseEntity<>(updatedCompleted, HttpStatus.OK);
+          @PathVariable("id") Long id,
+          @Parameter(description = "ETag of the task as read, to update it only if it has not changed")
+          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+      TaskDto updatedCompleted = service.markTaskAsCompleted(id, TaskETags.expectedVersion(ifMatch));
+      return TaskETags.response(updatedCompleted, HttpStatus.OK);
+   }
+
+   // ********************************************************************************************************
+   /**
+    * updateTasksInBulk: Actualiza de una vez varias tareas.
+    *
+    * @param update ID de las tareas (o texto de búsqueda) y cambios a aplicar: completitud, estado y/o fecha de finalización.
+    * @return Respuesta con el número de tareas modificadas.
+    * @apiNote Aplica los cambios con una sentencia UPDATE por cada bloque de tareas, sin leerlas una a una.
+    */
+   @Operation(summary = "Update several tasks at once")
+   @ApiResponses(value = {
+      @ApiResponse(
+             responseCode = "200",
+             description = TaskConstant.TASK_BULK_UPDATED_SUCCESS,
+             content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = TaskBulkUpdateResult.class),
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_BULK_UPDATED,
+                              description = TaskConstant.TASK_BULK_UPDATED_SUCCESS,
+                              value = TaskConstant.VALUE_OK
+                       )})),
+      @ApiResponse(
+             responseCode = "400",
+             description = TaskConstant.TASK_INVALID_REQUEST,
+             content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = TaskDto.class),
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_INVALID_REQUEST,
+                              description = TaskConstant.TASK_PARAM_NOT_VALID,
+                              value = TaskConstant.VALUE_ERROR_400
+                       )}))
+   })
+   @PatchMapping("/bulk")
+   public ResponseEntity<TaskBulkUpdateResult> updateTasksInBulk(@RequestBody TaskBulkUpdate update) {
+      TaskBulkUpdateResult result = service.updateTasksInBulk(update);
+      return new ResponseEntity<>(result, HttpStatus.OK);
    }
 
 }
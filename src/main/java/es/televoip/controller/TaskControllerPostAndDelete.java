@@ -1,7 +1,11 @@
 package es.televoip.controller;
 
 import es.televoip.constant.TaskConstant;
+import es.televoip.exceptions.DataException;
+import es.televoip.imports.TaskImportFormat;
+import es.televoip.imports.TaskImportService;
 import es.televoip.model.dto.TaskDto;
+import es.televoip.model.dto.TaskImportReport;
 import es.televoip.service.implement.TaskServiceImpl;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,12 +15,18 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -30,8 +40,11 @@ public class TaskControllerPostAndDelete {
    //
    private final TaskServiceImpl service;
 
-   public TaskControllerPostAndDelete(TaskServiceImpl service) {
+   private final TaskImportService importService;
+
+   public TaskControllerPostAndDelete(TaskServiceImpl service, TaskImportService importService) {
       this.service = service;
+      this.importService = importService;
    }
 
    // ********************************************************************************************************
@@ -88,6 +101,56 @@ public class TaskControllerPostAndDelete {
       return new ResponseEntity<>(createdTask, HttpStatus.CREATED);
    }
 
+   // ********************************************************************************************************
+   /**
+    * importTasks: Importa tareas desde un fichero CSV (con cabecera) o NDJSON (una tarea JSON por línea).
+    *
+    * @param contentType Formato del fichero: 'text/csv' o 'application/x-ndjson'.
+    * @param content Contenido del fichero.
+    * @return Respuesta 202 con el estado inicial de la importación y su dirección en 'Location'.
+    * @apiNote Las filas se validan con las mismas reglas que al crear una tarea; las filas no válidas se descartan y se
+    * indican en el informe sin detener la importación.
+    */
+   @Operation(summary = "Import tasks from a CSV or NDJSON file")
+   @ApiResponses(value = {
+      @ApiResponse(
+             responseCode = "202",
+             description = TaskConstant.TASK_IMPORT_ACCEPTED,
+             content = @Content(
+                    mediaType = "application/json",
+                    schema = @Schema(implementation = TaskImportReport.class),
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_IMPORT,
+                              description = TaskConstant.TASK_IMPORT_ACCEPTED,
+                              value = TaskConstant.VALUE_OK
+                       )})),
+      @ApiResponse(
+             responseCode = "400",
+             description = TaskConstant.TASK_INVALID_REQUEST,
+             content = @Content(
+                    mediaType = "application/json",
+                    examples = {
+                       @ExampleObject(
+                              name = TaskConstant.TASK_INVALID_REQUEST,
+                              description = TaskConstant.TASK_PARAM_NOT_VALID,
+                              value = TaskConstant.VALUE_ERROR_400
+                       )}))
+   })
+   @PostMapping("/import")
+   public ResponseEntity<TaskImportReport> importTasks(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+          InputStream content) throws IOException {
+      TaskImportFormat format = TaskImportFormat.of(contentType);
+      if (format == null) {
+         throw new DataException(HttpStatus.BAD_REQUEST, TaskConstant.TASK_IMPORT_FORMAT_NOT_VALID + contentType);
+      }
+
+      TaskImportReport report = importService.startImport(content, format);
+      return ResponseEntity.accepted()
+             .location(URI.create("/api/tasks/import/" + report.id()))
+             .body(report);
+   }
+
    // ********************************************************************************************************
    /**
     * deleteTask: Elimina una tarea según su ID.
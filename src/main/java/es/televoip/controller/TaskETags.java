@@ -0,0 +1,49 @@
+package es.televoip.controller;
+
+import es.televoip.constant.TaskConstant;
+import es.televoip.exceptions.DataException;
+import es.televoip.model.dto.TaskDto;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * ETag de una tarea: su versión (bloqueo optimista), p.ej. "3". El cliente la devuelve en If-Match al modificarla y la
+ * modificación solo se aplica si la tarea sigue en esa versión (ver TaskServiceImpl.updateTask).
+ */
+final class TaskETags {
+
+   private TaskETags() {
+   }
+
+   static ResponseEntity<TaskDto> response(TaskDto task, HttpStatus status) {
+      ResponseEntity.BodyBuilder response = ResponseEntity.status(status);
+      if (task.getVersion() != null) {
+         response.eTag(task.getVersion().toString()); // entre comillas: ETag fuerte
+      }
+      return response.body(task);
+   }
+
+   /**
+    * @param ifMatch cabecera If-Match
+    * @return versión esperada, o 'null' si no hay cabecera o es '*' (cualquier versión)
+    */
+   static Long expectedVersion(String ifMatch) {
+      if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+         return null;
+      }
+      String tag = ifMatch.trim();
+      if (tag.startsWith("W/")) {
+         // If-Match usa comparación fuerte: una ETag débil nunca coincide
+         throw new DataException(HttpStatus.PRECONDITION_FAILED, TaskConstant.TASK_VERSION_MISMATCH + tag);
+      }
+      if (tag.length() > 1 && tag.startsWith("\"") && tag.endsWith("\"")) {
+         tag = tag.substring(1, tag.length() - 1);
+      }
+      try {
+         return Long.valueOf(tag);
+      } catch (NumberFormatException ex) {
+         throw new DataException(HttpStatus.BAD_REQUEST, TaskConstant.TASK_ETAG_NOT_VALID + ifMatch);
+      }
+   }
+
+}
@@ -0,0 +1,31 @@
+package es.televoip.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Envía a la base de datos principal las lecturas de los métodos @Cacheable y de los anotados con
+ * {@link ReadFromPrimary}.
+ *
+ * Una escritura desaloja la caché tras el commit, y la réplica puede tardar hasta 'max-lag' en recibirla: si la lectura
+ * que vuelve a llenar la entrada fuese a la réplica, guardaría el valor anterior (o una tarea ya borrada) hasta que la
+ * entrada caduque, y VersionedCaffeineCache no lo puede detectar porque la carga empieza después del desalojo. Las
+ * lecturas sin caché siguen yendo a la réplica.
+ *
+ * Solo se registra con réplica (mirar {@link ReplicaDataSourceConfiguration}).
+ */
+@Aspect
+public class PrimaryReadAspect {
+
+   @Around("@annotation(org.springframework.cache.annotation.Cacheable) || @annotation(ReadFromPrimary)")
+   public Object readFromPrimary(ProceedingJoinPoint joinPoint) throws Throwable {
+      boolean outer = ReplicaRoutingDataSource.enterPrimaryReads();
+      try {
+         return joinPoint.proceed(); // la conexión se elige en la primera sentencia, ya dentro del método
+      } finally {
+         ReplicaRoutingDataSource.exitPrimaryReads(outer);
+      }
+   }
+
+}
@@ -0,0 +1,13 @@
+package es.televoip.datasource;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// las lecturas del método van a la base de datos principal aunque haya réplica (mirar PrimaryReadAspect): para los
+// datos que se guardan en memoria y deben incluir las últimas escrituras
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ReadFromPrimary {
+}
@@ -0,0 +1,65 @@
+package es.televoip.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Con 'spring.datasource.replica.url' definida, la aplicación usa dos pools: la base de datos principal
+ * ('spring.datasource.*') para las escrituras y la réplica para las transacciones de solo lectura. Sin esa propiedad
+ * Spring Boot configura el DataSource habitual y esta clase no interviene.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.datasource.replica", name = "url")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class ReplicaDataSourceConfiguration {
+
+   @Bean
+   @ConfigurationProperties("spring.datasource.hikari")
+   public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+      return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+   }
+
+   @Bean
+   @ConfigurationProperties("spring.datasource.replica.hikari")
+   public HikariDataSource replicaDataSource(ReplicaDataSourceProperties replica, DataSourceProperties primary) {
+      HikariDataSource dataSource = DataSourceBuilder.create()
+             .type(HikariDataSource.class)
+             .url(replica.getUrl())
+             .username(replica.getUsername() != null ? replica.getUsername() : primary.determineUsername())
+             .password(replica.getPassword() != null ? replica.getPassword() : primary.determinePassword())
+             .driverClassName(replica.getDriverClassName() != null
+                    ? replica.getDriverClassName() : primary.determineDriverClassName())
+             .build();
+      dataSource.setReadOnly(true);
+      return dataSource;
+   }
+
+   @Bean
+   public ReplicaRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+          @Qualifier("replicaDataSource") DataSource replica, ReplicaDataSourceProperties properties) {
+      return new ReplicaRoutingDataSource(primary, replica, properties.getMaxLag(), properties.getLagQuery(),
+             properties.getCheckInterval());
+   }
+
+   @Bean
+   public PrimaryReadAspect primaryReadAspect() {
+      return new PrimaryReadAspect();
+   }
+
+   @Bean
+   @Primary // el que usan JPA, JdbcTemplate y el gestor de transacciones
+   public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+      return new LazyConnectionDataSourceProxy(routingDataSource);
+   }
+
+}
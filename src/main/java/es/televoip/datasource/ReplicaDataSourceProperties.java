@@ -0,0 +1,38 @@
+package es.televoip.datasource;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Base de datos réplica para las transacciones de solo lectura (mirar {@link ReplicaRoutingDataSource}), p.ej.:
+ * <pre>
+ * spring.datasource.replica.url=jdbc:mariadb://replica:3306/bd_todo
+ * spring.datasource.replica.max-lag=5s
+ * spring.datasource.replica.lag-query=SHOW SLAVE STATUS
+ * </pre>
+ * Usuario, contraseña y driver se toman de 'spring.datasource' si no se indican; el pool se configura con
+ * 'spring.datasource.replica.hikari.*'.
+ */
+@Data
+@ConfigurationProperties(prefix = "spring.datasource.replica")
+public class ReplicaDataSourceProperties {
+
+   private String url;
+
+   private String username;
+
+   private String password;
+
+   private String driverClassName;
+
+   // retraso máximo admitido; con más retraso las lecturas van a la base de datos principal
+   private Duration maxLag = Duration.ofSeconds(5);
+
+   // consulta que devuelve el retraso en segundos (primera columna o 'Seconds_Behind_Master'); sin ella solo se
+   // comprueba que la réplica responde
+   private String lagQuery;
+
+   private Duration checkInterval = Duration.ofSeconds(5);
+
+}
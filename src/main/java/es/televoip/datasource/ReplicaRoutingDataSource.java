@@ -0,0 +1,190 @@
+package es.televoip.datasource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+/**
+ * Envía las transacciones de solo lectura (@Transactional(readOnly = true)) a la réplica y el resto a la base de datos
+ * principal.
+ *
+ * Debe usarse detrás de un LazyConnectionDataSourceProxy: el gestor de transacciones pide la conexión antes de marcar
+ * la transacción como de solo lectura, y el proxy retrasa la elección hasta la primera sentencia.
+ *
+ * Cada 'checkInterval' se comprueba la réplica; si no responde o su retraso supera 'maxLag', las lecturas van a la
+ * principal hasta que se recupere. Si falla la conexión a la réplica, esa transacción también usa la principal.
+ *
+ * Las lecturas que se guardan en memoria (cachés, estadísticas, índice de búsqueda) van siempre a la principal, aunque
+ * sean de solo lectura: mirar {@link #onPrimary(Supplier)} y {@link PrimaryReadAspect}.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+   public enum Target {
+      PRIMARY, REPLICA
+   }
+
+   private static final String MYSQL_LAG_COLUMN = "Seconds_Behind_Master"; // SHOW SLAVE STATUS de MariaDB/MySQL
+   private static final int VALID_TIMEOUT_SECONDS = 2;
+
+   // lecturas en curso en este hilo que deben ver las últimas escrituras
+   private static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+   private final DataSource replica;
+
+   private final Duration maxLag;
+
+   private final String lagQuery;
+
+   private final Duration checkInterval;
+
+   private volatile boolean replicaUsable = true;
+
+   private ScheduledExecutorService checker;
+
+   public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration maxLag, String lagQuery,
+          Duration checkInterval) {
+      this.replica = replica;
+      this.maxLag = maxLag;
+      this.lagQuery = lagQuery;
+      this.checkInterval = checkInterval;
+      setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+      setDefaultTargetDataSource(primary);
+      setLenientFallback(false);
+   }
+
+   @Override
+   public void afterPropertiesSet() {
+      super.afterPropertiesSet();
+      checkReplica();
+      if (checkInterval != null && !checkInterval.isZero()) {
+         checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+         });
+         checker.scheduleWithFixedDelay(this::checkReplica, checkInterval.toMillis(), checkInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+      }
+   }
+
+   @Override
+   public void destroy() {
+      if (checker != null) {
+         checker.shutdownNow();
+      }
+   }
+
+   /**
+    * Ejecuta 'action' con las lecturas en la base de datos principal, también las de transacciones de solo lectura. La
+    * transacción debe empezar dentro de 'action': la conexión de una transacción ya iniciada no cambia.
+    */
+   public static <T> T onPrimary(Supplier<T> action) {
+      boolean outer = enterPrimaryReads();
+      try {
+         return action.get();
+      } finally {
+         exitPrimaryReads(outer);
+      }
+   }
+
+   static boolean enterPrimaryReads() {
+      boolean outer = PRIMARY_READS.get() != null;
+      PRIMARY_READS.set(Boolean.TRUE);
+      return outer;
+   }
+
+   static void exitPrimaryReads(boolean outer) {
+      if (!outer) {
+         PRIMARY_READS.remove();
+      }
+   }
+
+   @Override
+   protected Object determineCurrentLookupKey() {
+      return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaUsable
+             && PRIMARY_READS.get() == null
+             ? Target.REPLICA : Target.PRIMARY;
+   }
+
+   @Override
+   public Connection getConnection() throws SQLException {
+      if (determineCurrentLookupKey() == Target.REPLICA) {
+         try {
+            return replica.getConnection();
+         } catch (SQLException ex) {
+            replicaFailed(ex.getMessage());
+         }
+      }
+      return getResolvedDefaultDataSource().getConnection();
+   }
+
+   public boolean isReplicaUsable() {
+      return replicaUsable;
+   }
+
+   /**
+    * Comprueba si la réplica responde y, si hay 'lagQuery', si su retraso está dentro de 'maxLag'.
+    */
+   public void checkReplica() {
+      try (Connection connection = replica.getConnection()) {
+         if (!StringUtils.hasText(lagQuery)) {
+            setReplicaUsable(connection.isValid(VALID_TIMEOUT_SECONDS), "not valid");
+            return;
+         }
+         Long lagSeconds = lagSeconds(connection);
+         if (lagSeconds == null) {
+            setReplicaUsable(false, "replication is not running");
+         } else {
+            setReplicaUsable(lagSeconds <= maxLag.toSeconds(), "lag " + lagSeconds + "s > " + maxLag);
+         }
+      } catch (SQLException | RuntimeException ex) {
+         replicaFailed(ex.getMessage());
+      }
+   }
+
+   private Long lagSeconds(Connection connection) throws SQLException {
+      try (Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery(lagQuery)) {
+         if (!resultSet.next()) {
+            return null; // sin fila: el servidor no es una réplica
+         }
+         int column = 1;
+         try {
+            column = resultSet.findColumn(MYSQL_LAG_COLUMN);
+         } catch (SQLException ex) {
+            // consulta propia: el retraso está en la primera columna
+         }
+         long lag = resultSet.getLong(column);
+         return resultSet.wasNull() ? null : lag;
+      }
+   }
+
+   private void replicaFailed(String reason) {
+      setReplicaUsable(false, reason);
+   }
+
+   private void setReplicaUsable(boolean usable, String reason) {
+      if (usable != replicaUsable) {
+         if (usable) {
+            log.info("Replica is back: read-only transactions use it again");
+         } else {
+            log.warn("Replica not usable ({}): read-only transactions use the primary", reason);
+         }
+      }
+      replicaUsable = usable;
+   }
+
+}
@@ -0,0 +1,61 @@
+package es.televoip.datasource;
+
+/**
+ * Totales de las sentencias SQL ejecutadas por el hilo de la petición en curso: sentencias, filas (leídas o
+ * modificadas) y tiempo dentro del driver JDBC. {@link ServerTimingFilter} los inicia y recoge en cada petición y
+ * {@link StatementMetricsDataSource} los va sumando; fuera de una petición no se cuenta nada.
+ */
+public final class RequestStatementMetrics {
+
+   private static final ThreadLocal<RequestStatementMetrics> CURRENT = new ThreadLocal<>();
+
+   private int statements;
+
+   private long rows;
+
+   private long jdbcNanos;
+
+   private RequestStatementMetrics() {
+   }
+
+   static RequestStatementMetrics start() {
+      RequestStatementMetrics metrics = new RequestStatementMetrics();
+      CURRENT.set(metrics);
+      return metrics;
+   }
+
+   static void stop() {
+      CURRENT.remove();
+   }
+
+   static void statementExecuted(long nanos, long rows) {
+      RequestStatementMetrics metrics = CURRENT.get();
+      if (metrics != null) {
+         metrics.statements++;
+         metrics.rows += rows;
+         metrics.jdbcNanos += nanos;
+      }
+   }
+
+   // filas leídas de un ResultSet, con el tiempo de cada next() (el driver puede ir a la base de datos a por más filas)
+   static void rowsFetched(long nanos, long rows) {
+      RequestStatementMetrics metrics = CURRENT.get();
+      if (metrics != null) {
+         metrics.rows += rows;
+         metrics.jdbcNanos += nanos;
+      }
+   }
+
+   public int getStatements() {
+      return statements;
+   }
+
+   public long getRows() {
+      return rows;
+   }
+
+   public long getJdbcNanos() {
+      return jdbcNanos;
+   }
+
+}
@@ -0,0 +1,144 @@
+package es.televoip.datasource;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Cuenta las sentencias SQL de cada petición ({@link RequestStatementMetrics}) y las publica:
+ * <ul>
+ * <li>en la cabecera Server-Timing, p.ej. {@code db;dur=4.210;desc="3 statements, 25 rows", app;dur=6.874}: 'db' es
+ * el tiempo dentro del driver JDBC y 'app' el tiempo hasta que empieza a escribirse la respuesta. Lo que el cliente
+ * mide por encima de 'app' es serialización y red.</li>
+ * <li>en Micrometer: db.request.time (Timer), db.request.statements y db.request.rows, con las etiquetas method y uri
+ * (el patrón de la ruta, p.ej. /api/tasks/{id}).</li>
+ * </ul>
+ * Solo se cuenta el hilo de la petición: las sentencias de una respuesta asíncrona (p.ej. la exportación NDJSON) no se
+ * incluyen.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+   public static final String SERVER_TIMING = "Server-Timing";
+
+   private static final String UNKNOWN_URI = "UNKNOWN";
+
+   private final MeterRegistry meterRegistry;
+
+   private final boolean serverTiming;
+
+   public ServerTimingFilter(MeterRegistry meterRegistry, boolean serverTiming) {
+      this.meterRegistry = meterRegistry;
+      this.serverTiming = serverTiming;
+   }
+
+   @Override
+   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+          throws ServletException, IOException {
+      long start = System.nanoTime();
+      RequestStatementMetrics metrics = RequestStatementMetrics.start();
+      ServerTimingResponse timedResponse = new ServerTimingResponse(response, metrics, start);
+      try {
+         filterChain.doFilter(request, serverTiming ? timedResponse : response);
+      } finally {
+         RequestStatementMetrics.stop();
+         if (serverTiming) {
+            timedResponse.addServerTiming(); // respuestas sin cuerpo
+         }
+         record(request, metrics);
+      }
+   }
+
+   private void record(HttpServletRequest request, RequestStatementMetrics metrics) {
+      Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+      String uri = pattern != null ? pattern.toString() : UNKNOWN_URI;
+      String method = request.getMethod();
+      Timer.builder("db.request.time")
+             .description("Tiempo dentro del driver JDBC por petición")
+             .tags("method", method, "uri", uri)
+             .register(meterRegistry)
+             .record(metrics.getJdbcNanos(), TimeUnit.NANOSECONDS);
+      DistributionSummary.builder("db.request.statements")
+             .description("Sentencias SQL por petición")
+             .tags("method", method, "uri", uri)
+             .register(meterRegistry)
+             .record(metrics.getStatements());
+      DistributionSummary.builder("db.request.rows")
+             .description("Filas leídas o modificadas por petición")
+             .tags("method", method, "uri", uri)
+             .register(meterRegistry)
+             .record(metrics.getRows());
+   }
+
+   /**
+    * Añade la cabecera Server-Timing justo antes de que empiece a escribirse el cuerpo, cuando las cabeceras aún pueden
+    * cambiar y el trabajo con la base de datos ya ha terminado.
+    */
+   private static final class ServerTimingResponse extends HttpServletResponseWrapper {
+
+      private final RequestStatementMetrics metrics;
+
+      private final long start;
+
+      private boolean added;
+
+      private ServerTimingResponse(HttpServletResponse response, RequestStatementMetrics metrics, long start) {
+         super(response);
+         this.metrics = metrics;
+         this.start = start;
+      }
+
+      @Override
+      public ServletOutputStream getOutputStream() throws IOException {
+         addServerTiming();
+         return super.getOutputStream();
+      }
+
+      @Override
+      public PrintWriter getWriter() throws IOException {
+         addServerTiming();
+         return super.getWriter();
+      }
+
+      @Override
+      public void flushBuffer() throws IOException {
+         addServerTiming();
+         super.flushBuffer();
+      }
+
+      @Override
+      public void sendError(int sc, String msg) throws IOException {
+         addServerTiming();
+         super.sendError(sc, msg);
+      }
+
+      @Override
+      public void sendError(int sc) throws IOException {
+         addServerTiming();
+         super.sendError(sc);
+      }
+
+      private void addServerTiming() {
+         if (added || isCommitted()) {
+            return;
+         }
+         added = true;
+         addHeader(SERVER_TIMING, String.format(Locale.ROOT, "db;dur=%.3f;desc=\"%d statements, %d rows\", app;dur=%.3f",
+                metrics.getJdbcNanos() / 1_000_000.0, metrics.getStatements(), metrics.getRows(),
+                (System.nanoTime() - start) / 1_000_000.0));
+      }
+
+   }
+
+}
@@ -0,0 +1,61 @@
+package es.televoip.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Envuelve el DataSource de la aplicación en un {@link StatementMetricsDataSource} y registra el
+ * {@link ServerTimingFilter}. Se desactiva con 'spring.datasource.metrics.enabled=false'.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.datasource.metrics", name = "enabled", matchIfMissing = true)
+@EnableConfigurationProperties(StatementMetricsProperties.class)
+public class StatementMetricsConfiguration {
+
+   private static final String DATA_SOURCE_BEAN = "dataSource";
+
+   @Bean
+   public static BeanPostProcessor statementMetricsDataSourcePostProcessor(
+          ObjectProvider<StatementMetricsProperties> properties) {
+      return new BeanPostProcessor() {
+         @Override
+         public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!DATA_SOURCE_BEAN.equals(beanName) || !(bean instanceof DataSource dataSource)
+                   || bean instanceof StatementMetricsDataSource) {
+               return bean;
+            }
+            StatementMetricsProperties metrics = properties.getObject();
+            if (bean instanceof DelegatingDataSource delegating) {
+               // con réplica el DataSource es un LazyConnectionDataSourceProxy: medimos por debajo de él, solo las
+               // conexiones que llegan a usarse
+               if (!(delegating.getTargetDataSource() instanceof StatementMetricsDataSource)) {
+                  delegating.setTargetDataSource(new StatementMetricsDataSource(delegating.getTargetDataSource(),
+                         metrics.getSlowQueryThreshold()));
+               }
+               return bean;
+            }
+            return new StatementMetricsDataSource(dataSource, metrics.getSlowQueryThreshold());
+         }
+      };
+   }
+
+   @Bean
+   public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(StatementMetricsProperties properties,
+          ObjectProvider<MeterRegistry> meterRegistryProvider) {
+      FilterRegistrationBean<ServerTimingFilter> registration = new FilterRegistrationBean<>(new ServerTimingFilter(
+             meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new), properties.isServerTiming()));
+      registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10); // por fuera del resto de filtros
+      return registration;
+   }
+
+}
@@ -0,0 +1,221 @@
+package es.televoip.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * DataSource que mide las sentencias SQL de sus conexiones: suma sentencias, filas y tiempo JDBC de la petición en curso
+ * ({@link RequestStatementMetrics}) y registra en el log las sentencias que superan 'slowQueryThreshold' con sus
+ * parámetros.
+ *
+ * Conexiones, sentencias y ResultSet son proxies dinámicos que delegan en los del driver; 'unwrap' llega al DataSource
+ * original, por lo que Actuator sigue viendo el pool de Hikari.
+ */
+@Slf4j
+public class StatementMetricsDataSource extends DelegatingDataSource {
+
+   private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+          "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+   private static final int MAX_LOGGED_VALUE_LENGTH = 100;
+
+   private final Duration slowQueryThreshold;
+
+   public StatementMetricsDataSource(DataSource targetDataSource, Duration slowQueryThreshold) {
+      super(targetDataSource);
+      this.slowQueryThreshold = slowQueryThreshold;
+   }
+
+   @Override
+   public Connection getConnection() throws SQLException {
+      return connection(obtainTargetDataSource().getConnection());
+   }
+
+   @Override
+   public Connection getConnection(String username, String password) throws SQLException {
+      return connection(obtainTargetDataSource().getConnection(username, password));
+   }
+
+   private Connection connection(Connection target) {
+      return proxy(Connection.class, target, (proxy, method, args) -> {
+         Object result = invoke(target, method, args);
+         if (result instanceof Statement statement) {
+            // prepareStatement(sql, ...) y prepareCall(sql, ...) reciben la sentencia; createStatement() no
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+            return statement(statement, sql);
+         }
+         return result;
+      });
+   }
+
+   private Statement statement(Statement target, String sql) {
+      Class<? extends Statement> type = target instanceof CallableStatement ? CallableStatement.class
+             : target instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+      return proxy(type, target, new StatementHandler(target, sql));
+   }
+
+   private final class StatementHandler implements InvocationHandler {
+
+      private final Statement target;
+
+      private final String sql;
+
+      // parámetros de la sentencia preparada, solo para el log de sentencias lentas
+      private final Map<Integer, Object> parameters = new TreeMap<>();
+
+      private int batchSize;
+
+      private StatementHandler(Statement target, String sql) {
+         this.target = target;
+         this.sql = sql;
+      }
+
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+         String name = method.getName();
+         if (EXECUTE_METHODS.contains(name)) {
+            return execute(method, args);
+         }
+         if (name.equals("getResultSet")) {
+            return resultSet((ResultSet) StatementMetricsDataSource.invoke(target, method, args));
+         }
+         if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index
+                && slowQueryThreshold != null) {
+            parameters.put(index, name.equals("setNull") ? null : args[1]);
+         } else if (name.equals("clearParameters")) {
+            parameters.clear();
+         } else if (name.equals("addBatch")) {
+            batchSize++;
+         } else if (name.equals("clearBatch")) {
+            batchSize = 0;
+         }
+         return StatementMetricsDataSource.invoke(target, method, args);
+      }
+
+      private Object execute(Method method, Object[] args) throws Throwable {
+         long rows = 0;
+         long start = System.nanoTime();
+         try {
+            Object result = StatementMetricsDataSource.invoke(target, method, args);
+            if (result instanceof ResultSet resultSet) {
+               return resultSet(resultSet); // sus filas se cuentan al leerlas
+            }
+            rows = countRows(result);
+            return result;
+         } finally {
+            long elapsed = System.nanoTime() - start;
+            RequestStatementMetrics.statementExecuted(elapsed, rows);
+            if (slowQueryThreshold != null && elapsed > slowQueryThreshold.toNanos()) {
+               // Statement.execute(sql) recibe la sentencia al ejecutarse
+               String statement = args != null && args.length > 0 && args[0] instanceof String text ? text : sql;
+               log.warn("Slow SQL ({} ms): {} {}", elapsed / 1_000_000, statement,
+                      batchSize > 0 ? "[batch of " + batchSize + "]" : describe(parameters));
+            }
+            if (method.getName().startsWith("execute") && method.getName().endsWith("Batch")) {
+               batchSize = 0;
+            }
+         }
+      }
+
+      private ResultSet resultSet(ResultSet target) {
+         if (target == null) {
+            return null;
+         }
+         return proxy(ResultSet.class, target, (proxy, method, args) -> {
+            if (!method.getName().equals("next")) {
+               return StatementMetricsDataSource.invoke(target, method, args);
+            }
+            long start = System.nanoTime();
+            boolean hasRow = (Boolean) StatementMetricsDataSource.invoke(target, method, args);
+            RequestStatementMetrics.rowsFetched(System.nanoTime() - start, hasRow ? 1 : 0);
+            return hasRow;
+         });
+      }
+
+   }
+
+   // el proxy es igual solo a sí mismo: Hibernate guarda las sentencias abiertas en mapas
+   @SuppressWarnings("unchecked")
+   private static <T> T proxy(Class<? extends T> type, Object target, InvocationHandler handler) {
+      return (T) Proxy.newProxyInstance(StatementMetricsDataSource.class.getClassLoader(), new Class<?>[]{type},
+             (proxy, method, args) -> switch (method.getName()) {
+                case "equals" -> args[0] == proxy;
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> target.toString();
+                default -> handler.invoke(proxy, method, args);
+             });
+   }
+
+   private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+      try {
+         return method.invoke(target, args);
+      } catch (InvocationTargetException ex) {
+         throw ex.getCause();
+      }
+   }
+
+   // filas modificadas según el resultado de executeUpdate o executeBatch; 'execute' devuelve un booleano
+   private static long countRows(Object result) {
+      if (result instanceof Integer count) {
+         return Math.max(count, 0);
+      } else if (result instanceof Long count) {
+         return Math.max(count, 0);
+      } else if (result instanceof int[] counts) {
+         return sum(counts);
+      } else if (result instanceof long[] counts) {
+         return sum(counts);
+      }
+      return 0;
+   }
+
+   private static long sum(int[] counts) {
+      long rows = 0;
+      for (int count : counts) {
+         rows += Math.max(count, 0); // SUCCESS_NO_INFO (-2) no aporta filas
+      }
+      return rows;
+   }
+
+   private static long sum(long[] counts) {
+      long rows = 0;
+      for (long count : counts) {
+         rows += Math.max(count, 0);
+      }
+      return rows;
+   }
+
+   private static String describe(Map<Integer, Object> parameters) {
+      StringBuilder text = new StringBuilder("[");
+      parameters.forEach((index, value) -> {
+         if (text.length() > 1) {
+            text.append(", ");
+         }
+         text.append(index).append('=').append(describe(value));
+      });
+      return text.append(']').toString();
+   }
+
+   private static String describe(Object value) {
+      if (value instanceof byte[] bytes) {
+         return "byte[" + bytes.length + "]";
+      }
+      String text = String.valueOf(value);
+      return text.length() > MAX_LOGGED_VALUE_LENGTH ? text.substring(0, MAX_LOGGED_VALUE_LENGTH) + "..." : text;
+   }
+
+}
@@ -0,0 +1,27 @@
+package es.televoip.datasource;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Medición de las sentencias SQL (mirar {@link StatementMetricsDataSource} y {@link ServerTimingFilter}), p.ej.:
+ * <pre>
+ * spring.datasource.metrics.slow-query-threshold=200ms
+ * spring.datasource.metrics.server-timing=false
+ * </pre>
+ */
+@Data
+@ConfigurationProperties(prefix = "spring.datasource.metrics")
+public class StatementMetricsProperties {
+
+   // con 'false' el DataSource no se envuelve y no hay métricas de sentencias ni cabecera Server-Timing
+   private boolean enabled = true;
+
+   // se registran en el log (con sus parámetros) las sentencias que duran más; sin valor, ninguna
+   private Duration slowQueryThreshold = Duration.ofSeconds(1);
+
+   // cabecera Server-Timing en las respuestas; las métricas de Micrometer se publican igualmente
+   private boolean serverTiming = true;
+
+}
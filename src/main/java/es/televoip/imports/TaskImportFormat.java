@@ -0,0 +1,35 @@
+package es.televoip.imports;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Formatos de fichero admitidos por la importación de tareas.
+ */
+public enum TaskImportFormat {
+
+   CSV("text/csv"), // cabecera con los nombres de los campos de TaskDto, separador ','
+   NDJSON(MediaType.APPLICATION_NDJSON_VALUE); // un objeto TaskDto en JSON por línea
+
+   private final String mediaType;
+
+   private TaskImportFormat(String mediaType) {
+      this.mediaType = mediaType;
+   }
+
+   public String getMediaType() {
+      return mediaType;
+   }
+
+   /**
+    * @return el formato del tipo de contenido, o 'null' si no se admite
+    */
+   public static TaskImportFormat of(MediaType contentType) {
+      for (TaskImportFormat format : values()) {
+         if (contentType != null && MediaType.valueOf(format.mediaType).isCompatibleWith(contentType)) {
+            return format;
+         }
+      }
+      return null;
+   }
+
+}
@@ -0,0 +1,94 @@
+package es.televoip.imports;
+
+import es.televoip.model.dto.TaskImportReport;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progreso de una importación, actualizado por las etapas del pipeline y consultado por GET /api/tasks/import/{id}.
+ */
+class TaskImportJob {
+
+   enum State {
+      QUEUED, RUNNING, COMPLETED, FAILED
+   }
+
+   private final String id = UUID.randomUUID().toString();
+
+   private final int maxErrors;
+
+   private final AtomicLong rowsRead = new AtomicLong();
+
+   private final AtomicLong rowsImported = new AtomicLong();
+
+   private final AtomicLong rowsRejected = new AtomicLong();
+
+   private final List<TaskImportReport.RowError> errors = new ArrayList<>();
+
+   private volatile State state = State.QUEUED;
+
+   private volatile OffsetDateTime startedAt;
+
+   private volatile OffsetDateTime finishedAt;
+
+   private volatile String message;
+
+   TaskImportJob(int maxErrors) {
+      this.maxErrors = maxErrors;
+   }
+
+   String getId() {
+      return id;
+   }
+
+   boolean isFinished() {
+      return state == State.COMPLETED || state == State.FAILED;
+   }
+
+   void started() {
+      startedAt = OffsetDateTime.now();
+      state = State.RUNNING;
+   }
+
+   void completed() {
+      finishedAt = OffsetDateTime.now();
+      state = State.COMPLETED;
+   }
+
+   void failed(String cause) {
+      message = cause;
+      finishedAt = OffsetDateTime.now();
+      state = State.FAILED;
+   }
+
+   void rowRead() {
+      rowsRead.incrementAndGet();
+   }
+
+   void rowsImported(int count) {
+      rowsImported.addAndGet(count);
+   }
+
+   // se guarda el detalle de las primeras 'maxErrors' filas; el resto solo se cuenta
+   void rowRejected(long line, String reason) {
+      rowsRejected.incrementAndGet();
+      synchronized (errors) {
+         if (errors.size() < maxErrors) {
+            errors.add(new TaskImportReport.RowError(line, reason));
+         }
+      }
+   }
+
+   TaskImportReport report() {
+      List<TaskImportReport.RowError> errorsCopy;
+      synchronized (errors) {
+         errorsCopy = List.copyOf(errors);
+      }
+      return new TaskImportReport(id, state.name(), rowsRead.get(), rowsImported.get(), rowsRejected.get(),
+             errorsCopy, startedAt, finishedAt, message);
+   }
+
+}
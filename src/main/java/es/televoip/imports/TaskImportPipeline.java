@@ -0,0 +1,249 @@
+package es.televoip.imports;
+
+import es.televoip.cache.TaskCacheInvalidator;
+import es.televoip.imports.TaskRecordParser.ParsedRow;
+import es.televoip.model.Task;
+import es.televoip.model.dto.TaskDto;
+import es.televoip.model.mapper.TaskMapper;
+import es.televoip.repository.TaskRepository;
+import es.televoip.search.TaskSearchIndex;
+import es.televoip.statistics.TaskStatistics;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Importación de un fichero en etapas unidas por colas acotadas:
+ *
+ * lectura (hilo de la importación) -> validación y conversión a entidad (varios hilos) -> inserción por bloques
+ *
+ * Si la base de datos va más despacio que la lectura, las colas se llenan y la lectura espera: la memoria usada no
+ * depende del tamaño del fichero. Cada bloque se guarda en su propia transacción; si un bloque falla se reintenta fila a
+ * fila, de modo que una fila incorrecta solo descarta esa fila.
+ */
+class TaskImportPipeline {
+
+   /**
+    * Parámetros del pipeline.
+    *
+    * @param chunkSize tareas por transacción
+    * @param queueCapacity capacidad de cada cola entre etapas
+    * @param validationThreads hilos de la etapa de validación
+    */
+   record Settings(int chunkSize, int queueCapacity, int validationThreads) {
+   }
+
+   private record ValidRow(long line, Task task) {
+   }
+
+   private static final ParsedRow END_OF_FILE = new ParsedRow(-1, null, null);
+   private static final ValidRow END_OF_ROWS = new ValidRow(-1, null);
+   private static final long POLL_MILLIS = 100; // cada cuánto comprueba una etapa bloqueada si otra ha fallado
+
+   private final TaskImportJob job;
+   private final Settings settings;
+   private final TaskRepository repository;
+   private final TaskMapper mapper;
+   private final Validator validator;
+   private final TaskCacheInvalidator cacheInvalidator;
+   private final TaskSearchIndex searchIndex;
+   private final TaskStatistics statistics;
+   private final TransactionTemplate transactionTemplate;
+
+   private final BlockingQueue<ParsedRow> parsedRows;
+   private final BlockingQueue<ValidRow> validRows;
+
+   private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+   TaskImportPipeline(TaskImportJob job, Settings settings, TaskRepository repository, TaskMapper mapper,
+          Validator validator, TaskCacheInvalidator cacheInvalidator, TaskSearchIndex searchIndex,
+          TaskStatistics statistics, TransactionTemplate transactionTemplate) {
+      this.job = job;
+      this.settings = settings;
+      this.repository = repository;
+      this.mapper = mapper;
+      this.validator = validator;
+      this.cacheInvalidator = cacheInvalidator;
+      this.searchIndex = searchIndex;
+      this.statistics = statistics;
+      this.transactionTemplate = transactionTemplate;
+      this.parsedRows = new ArrayBlockingQueue<>(settings.queueCapacity());
+      this.validRows = new ArrayBlockingQueue<>(settings.queueCapacity());
+   }
+
+   /**
+    * Lee el fichero en el hilo actual y lanza en 'workers' las etapas de validación e inserción. Vuelve cuando se han
+    * guardado todas las filas o cuando una etapa falla (en ese caso lanza su excepción).
+    */
+   void run(TaskRecordParser parser, ExecutorService workers) throws Exception {
+      List<Future<?>> stages = new ArrayList<>();
+      try {
+         List<Future<?>> validators = new ArrayList<>();
+         for (int i = 0; i < settings.validationThreads(); i++) {
+            validators.add(workers.submit(() -> stage(this::validate)));
+         }
+         stages.addAll(validators);
+         Future<?> writer = workers.submit(() -> stage(this::write));
+         stages.add(writer);
+
+         ParsedRow row;
+         while ((row = parser.next()) != null) {
+            job.rowRead();
+            if (row.error() != null) {
+               job.rowRejected(row.line(), row.error());
+            } else {
+               put(parsedRows, row);
+            }
+         }
+         put(parsedRows, END_OF_FILE);
+         for (Future<?> validatorStage : validators) {
+            validatorStage.get();
+         }
+         put(validRows, END_OF_ROWS);
+         writer.get();
+         throwFailure();
+
+      } catch (Exception ex) {
+         // si ha fallado una etapa, esa es la causa; si no, el fallo es de la lectura y detiene al resto
+         failure.compareAndSet(null, ex);
+         stages.forEach(stage -> stage.cancel(true));
+         throwFailure();
+      }
+   }
+
+   // Etapa 2: validación (las mismas reglas que POST /api/tasks) y conversión a entidad
+   private void validate() throws InterruptedException {
+      while (true) {
+         ParsedRow row = take(parsedRows);
+         if (row == END_OF_FILE) {
+            put(parsedRows, END_OF_FILE); // para el resto de hilos de validación
+            return;
+         }
+
+         Set<ConstraintViolation<TaskDto>> violations = validator.validate(row.task());
+         if (!violations.isEmpty()) {
+            job.rowRejected(row.line(), describe(violations));
+            continue;
+         }
+         Task task = mapper.toEntity(row.task());
+         task.setId(null); // la importación siempre crea tareas nuevas
+         task.setTaskDateCreation(LocalDateTime.now());
+         put(validRows, new ValidRow(row.line(), task));
+      }
+   }
+
+   // Etapa 3: inserción por bloques, cada uno en su propia transacción
+   private void write() throws InterruptedException {
+      List<ValidRow> chunk = new ArrayList<>(settings.chunkSize());
+      while (true) {
+         ValidRow row = take(validRows);
+         if (row == END_OF_ROWS) {
+            insert(chunk);
+            return;
+         }
+         chunk.add(row);
+         if (chunk.size() == settings.chunkSize()) {
+            insert(chunk);
+            chunk = new ArrayList<>(settings.chunkSize());
+         }
+      }
+   }
+
+   private void insert(List<ValidRow> rows) {
+      if (rows.isEmpty()) {
+         return;
+      }
+      try {
+         save(rows.stream().map(ValidRow::task).toList());
+         job.rowsImported(rows.size());
+      } catch (RuntimeException chunkFailure) {
+         // el bloque se ha deshecho entero: lo repetimos fila a fila para descartar solo las que fallan
+         for (ValidRow row : rows) {
+            row.task().setId(null); // el ID asignado en el intento anterior no llegó a guardarse
+            try {
+               save(List.of(row.task()));
+               job.rowsImported(1);
+            } catch (RuntimeException ex) {
+               job.rowRejected(row.line(), NestedExceptionUtils.getMostSpecificCause(ex).getMessage());
+            }
+         }
+      }
+   }
+
+   private void save(List<Task> tasks) {
+      transactionTemplate.executeWithoutResult(status -> {
+         List<Task> saved = repository.saveAll(tasks);
+         repository.flush(); // los errores de la base de datos aparecen aquí y no en el commit
+         List<TaskDto> created = saved.stream().map(mapper::toDto).toList();
+         cacheInvalidator.tasksCreated(created); // tras el commit
+         statistics.tasksCreated(created);
+         searchIndex.indexAll(created);
+      });
+   }
+
+   private void stage(Stage body) {
+      try {
+         body.run();
+      } catch (CancellationException ex) {
+         // otra etapa ha fallado
+      } catch (Exception ex) {
+         failure.compareAndSet(null, ex);
+      }
+   }
+
+   private <T> void put(BlockingQueue<T> queue, T item) throws InterruptedException {
+      while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+         checkNotFailed();
+      }
+   }
+
+   private <T> T take(BlockingQueue<T> queue) throws InterruptedException {
+      T item;
+      while ((item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+         checkNotFailed();
+      }
+      return item;
+   }
+
+   private void checkNotFailed() {
+      if (failure.get() != null) {
+         throw new CancellationException();
+      }
+   }
+
+   private void throwFailure() throws Exception {
+      Exception ex = failure.get();
+      if (ex != null) {
+         throw ex;
+      }
+   }
+
+   private static String describe(Set<ConstraintViolation<TaskDto>> violations) {
+      return violations.stream()
+             .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+             .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+             .collect(Collectors.joining("; "));
+   }
+
+   @FunctionalInterface
+   private interface Stage {
+
+      void run() throws Exception;
+
+   }
+
+}
@@ -0,0 +1,171 @@
+package es.televoip.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.televoip.cache.TaskCacheInvalidator;
+import es.televoip.constant.TaskConstant;
+import es.televoip.exceptions.DataException;
+import es.televoip.model.dto.TaskImportReport;
+import es.televoip.model.mapper.TaskMapper;
+import es.televoip.repository.TaskRepository;
+import es.televoip.search.TaskSearchIndex;
+import es.televoip.statistics.TaskStatistics;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Importación masiva de tareas desde ficheros CSV o NDJSON (ver {@link TaskImportPipeline}).
+ *
+ * El fichero recibido se copia a un fichero temporal y se importa en segundo plano; el progreso y las filas descartadas
+ * se consultan con {@link #getImport(String)}. Las importaciones se guardan en memoria, en cada instancia.
+ */
+@Slf4j
+@Service
+public class TaskImportService {
+
+   private static final int MAX_ERRORS_REPORTED = 1000; // filas descartadas con detalle en el informe
+   private static final int MAX_FINISHED_IMPORTS = 100; // importaciones terminadas que se conservan
+
+   private final TaskRepository repository;
+   private final TaskMapper mapper;
+   private final Validator validator;
+   private final TaskCacheInvalidator cacheInvalidator;
+   private final TaskSearchIndex searchIndex;
+   private final TaskStatistics statistics;
+   private final ObjectMapper objectMapper;
+   private final TransactionTemplate transactionTemplate;
+   private final TaskImportPipeline.Settings settings;
+
+   private final ExecutorService imports; // un hilo por importación en curso (etapa de lectura)
+   private final ExecutorService workers; // etapas de validación e inserción
+
+   private final Map<String, TaskImportJob> jobs = new LinkedHashMap<>();
+
+   public TaskImportService(TaskRepository repository, TaskMapper mapper, Validator validator,
+          TaskCacheInvalidator cacheInvalidator, TaskSearchIndex searchIndex, TaskStatistics statistics,
+          ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+          @Value("${task.import.chunk-size:500}") int chunkSize,
+          @Value("${task.import.queue-capacity:2000}") int queueCapacity,
+          @Value("${task.import.validation-threads:4}") int validationThreads,
+          @Value("${task.import.max-concurrent-imports:2}") int maxConcurrentImports) {
+      this.repository = repository;
+      this.mapper = mapper;
+      this.validator = validator;
+      this.cacheInvalidator = cacheInvalidator;
+      this.searchIndex = searchIndex;
+      this.statistics = statistics;
+      this.objectMapper = objectMapper;
+      this.transactionTemplate = new TransactionTemplate(transactionManager);
+      this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+      this.settings = new TaskImportPipeline.Settings(chunkSize, queueCapacity, validationThreads);
+      this.imports = Executors.newFixedThreadPool(maxConcurrentImports, threadFactory("task-import-"));
+      this.workers = Executors.newCachedThreadPool(threadFactory("task-import-worker-"));
+   }
+
+   /**
+    * Copia el fichero y programa su importación.
+    *
+    * @return el estado inicial de la importación (QUEUED)
+    */
+   public TaskImportReport startImport(InputStream content, TaskImportFormat format) {
+      try {
+         Path file = Files.createTempFile("tasks-import-", "." + format.name().toLowerCase());
+         try {
+            Files.copy(content, file, StandardCopyOption.REPLACE_EXISTING);
+         } catch (IOException ex) {
+            Files.deleteIfExists(file);
+            throw ex;
+         }
+
+         TaskImportJob job = new TaskImportJob(MAX_ERRORS_REPORTED);
+         register(job);
+         imports.submit(() -> run(job, file, format));
+         return job.report();
+
+      } catch (IOException ex) {
+         throw new DataException(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
+      }
+   }
+
+   public TaskImportReport getImport(String id) {
+      TaskImportJob job;
+      synchronized (jobs) {
+         job = jobs.get(id);
+      }
+      if (job == null) {
+         throw new DataException(HttpStatus.NOT_FOUND, TaskConstant.TASK_IMPORT_NOT_FOUND + id);
+      }
+      return job.report();
+   }
+
+   @PreDestroy
+   public void shutdown() {
+      imports.shutdownNow();
+      workers.shutdownNow();
+   }
+
+   private void run(TaskImportJob job, Path file, TaskImportFormat format) {
+      job.started();
+      try (TaskRecordParser parser = TaskRecordParser.of(format,
+             Files.newBufferedReader(file, StandardCharsets.UTF_8), objectMapper)) {
+         new TaskImportPipeline(job, settings, repository, mapper, validator, cacheInvalidator, searchIndex,
+                statistics, transactionTemplate).run(parser, workers);
+         job.completed();
+         log.info("Task import {} completed: {}", job.getId(), job.report());
+      } catch (Exception ex) {
+         if (ex instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+         }
+         log.error("Task import {} failed", job.getId(), ex);
+         job.failed(ex.getMessage());
+      } finally {
+         try {
+            Files.deleteIfExists(file);
+         } catch (IOException ex) {
+            log.warn("Could not delete {}", file, ex);
+         }
+      }
+   }
+
+   private void register(TaskImportJob job) {
+      synchronized (jobs) {
+         jobs.put(job.getId(), job);
+         long finished = jobs.values().stream().filter(TaskImportJob::isFinished).count();
+         var iterator = jobs.values().iterator();
+         while (finished > MAX_FINISHED_IMPORTS && iterator.hasNext()) {
+            if (iterator.next().isFinished()) { // las más antiguas primero
+               iterator.remove();
+               finished--;
+            }
+         }
+      }
+   }
+
+   private static ThreadFactory threadFactory(String prefix) {
+      AtomicInteger counter = new AtomicInteger();
+      return runnable -> {
+         Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+         thread.setDaemon(true);
+         return thread;
+      };
+   }
+
+}
@@ -0,0 +1,175 @@
+package es.televoip.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.televoip.model.dto.TaskDto;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Primera etapa de la importación: lee el fichero fila a fila, sin cargarlo entero. Un error en una fila no detiene la
+ * lectura, se devuelve como fila con error.
+ */
+abstract class TaskRecordParser implements Closeable {
+
+   /**
+    * Fila leída: la tarea o, si no se ha podido interpretar, el error.
+    *
+    * @param line número de fila en el fichero (la cabecera de un CSV es la fila 1)
+    */
+   record ParsedRow(long line, TaskDto task, String error) {
+   }
+
+   protected final BufferedReader reader;
+
+   protected final ObjectMapper objectMapper;
+
+   protected long line;
+
+   protected TaskRecordParser(BufferedReader reader, ObjectMapper objectMapper) {
+      this.reader = reader;
+      this.objectMapper = objectMapper;
+   }
+
+   static TaskRecordParser of(TaskImportFormat format, BufferedReader reader, ObjectMapper objectMapper)
+          throws IOException {
+      return switch (format) {
+         case CSV ->
+            new Csv(reader, objectMapper);
+         case NDJSON ->
+            new Ndjson(reader, objectMapper);
+      };
+   }
+
+   /**
+    * @return la siguiente fila, o 'null' al final del fichero
+    */
+   abstract ParsedRow next() throws IOException;
+
+   @Override
+   public void close() throws IOException {
+      reader.close();
+   }
+
+   private static final class Ndjson extends TaskRecordParser {
+
+      private Ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+         super(reader, objectMapper);
+      }
+
+      @Override
+      ParsedRow next() throws IOException {
+         String text;
+         do {
+            text = reader.readLine();
+            line++;
+         } while (text != null && text.isBlank());
+         if (text == null) {
+            return null;
+         }
+         try {
+            return new ParsedRow(line, objectMapper.readValue(text, TaskDto.class), null);
+         } catch (JsonProcessingException ex) {
+            return new ParsedRow(line, null, "JSON no válido: " + ex.getOriginalMessage());
+         }
+      }
+
+   }
+
+   /**
+    * CSV según RFC 4180: los campos entre comillas pueden contener comas, saltos de línea y comillas dobladas ("").
+    * Los valores vacíos se tratan como ausentes.
+    */
+   private static final class Csv extends TaskRecordParser {
+
+      private final List<String> header;
+
+      private long recordLine; // fila en la que empieza el registro actual
+
+      private Csv(BufferedReader reader, ObjectMapper objectMapper) throws IOException {
+         super(reader, objectMapper);
+         List<String> fields = readRecord();
+         header = fields != null ? fields.stream().map(String::trim).toList() : List.of();
+      }
+
+      @Override
+      ParsedRow next() throws IOException {
+         List<String> fields;
+         do {
+            fields = readRecord();
+         } while (fields != null && fields.size() == 1 && fields.get(0).isBlank());
+         if (fields == null) {
+            return null;
+         }
+         if (fields.size() != header.size()) {
+            return new ParsedRow(recordLine, null,
+                   "Se esperaban " + header.size() + " campos y hay " + fields.size());
+         }
+
+         Map<String, String> values = new LinkedHashMap<>();
+         for (int i = 0; i < fields.size(); i++) {
+            if (!fields.get(i).isEmpty()) {
+               values.put(header.get(i), fields.get(i));
+            }
+         }
+         try {
+            return new ParsedRow(recordLine, objectMapper.convertValue(values, TaskDto.class), null);
+         } catch (IllegalArgumentException ex) {
+            return new ParsedRow(recordLine, null, "Valor no válido: " + ex.getMessage());
+         }
+      }
+
+      // lee un registro completo, que puede ocupar varias líneas si un campo entre comillas contiene saltos de línea
+      private List<String> readRecord() throws IOException {
+         String text = reader.readLine();
+         if (text == null) {
+            return null;
+         }
+         recordLine = ++line;
+
+         List<String> fields = new ArrayList<>();
+         StringBuilder field = new StringBuilder();
+         boolean quoted = false;
+         while (true) {
+            for (int i = 0; i < text.length(); i++) {
+               char c = text.charAt(i);
+               if (quoted) {
+                  if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                     field.append('"');
+                     i++;
+                  } else if (c == '"') {
+                     quoted = false;
+                  } else {
+                     field.append(c);
+                  }
+               } else if (c == '"') {
+                  quoted = true;
+               } else if (c == ',') {
+                  fields.add(field.toString());
+                  field.setLength(0);
+               } else {
+                  field.append(c);
+               }
+            }
+            if (!quoted) {
+               break;
+            }
+            text = reader.readLine(); // el campo continúa en la línea siguiente
+            if (text == null) {
+               break;
+            }
+            line++;
+            field.append('\n');
+         }
+         fields.add(field.toString());
+         return fields;
+      }
+
+   }
+
+}
@@ -0,0 +1,30 @@
+package es.televoip.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("es.televoip.CacheLoad")
+@Label("Cache Load")
+@Category({"Todo API", "Cache"})
+@Description("Carga de una entrada de caché: desde el fallo hasta que se guarda el valor, o la carga de CacheKeyLoader")
+@StackTrace(false)
+public class CacheLoadEvent extends jdk.jfr.Event {
+
+   @Label("Cache")
+   public String cache;
+
+   @Label("Method")
+   @Description("Método del servicio que generó la clave")
+   public String method;
+
+   @Label("Key")
+   public String key;
+
+   @Label("Loader")
+   @Description("Calculada por CacheKeyLoader (LoadingCache: en la propia consulta o al refrescar en segundo plano)")
+   public boolean loader;
+
+}
@@ -0,0 +1,29 @@
+package es.televoip.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("es.televoip.CacheLookup")
+@Label("Cache Lookup")
+@Category({"Todo API", "Cache"})
+@Description("Consulta de una caché Caffeine")
+@StackTrace(false)
+public class CacheLookupEvent extends jdk.jfr.Event {
+
+   @Label("Cache")
+   public String cache;
+
+   @Label("Method")
+   @Description("Método del servicio que generó la clave")
+   public String method;
+
+   @Label("Key")
+   public String key;
+
+   @Label("Hit")
+   public boolean hit;
+
+}
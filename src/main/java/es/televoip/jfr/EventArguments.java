@@ -0,0 +1,79 @@
+package es.televoip.jfr;
+
+import java.time.temporal.Temporal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.stream.BaseStream;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Resumen de argumentos y resultados para los eventos JFR: valores simples tal cual (recortados), colecciones por su
+ * tamaño y el resto de objetos (DTO, entidades, flujos) por su clase, para no copiar datos de usuario ni objetos
+ * grandes en la grabación. Solo se calcula si el evento se va a guardar.
+ */
+public final class EventArguments {
+
+   static final int MAX_LENGTH = 64;
+
+   private EventArguments() {
+   }
+
+   public static String summarize(Object[] args) {
+      StringJoiner summary = new StringJoiner(", ");
+      for (Object arg : args) {
+         summary.add(summarize(arg));
+      }
+      return summary.toString();
+   }
+
+   public static String summarize(Object value) {
+      if (value == null) {
+         return "null";
+      }
+      if (value instanceof Number || value instanceof Boolean || value instanceof Enum<?> || value instanceof Temporal
+             || value instanceof CharSequence || value instanceof Pageable) {
+         String text = value.toString();
+         return text.length() > MAX_LENGTH ? text.substring(0, MAX_LENGTH) + "..." : text;
+      }
+      if (value instanceof Collection<?> collection) {
+         return value.getClass().getSimpleName() + "[" + collection.size() + "]";
+      }
+      if (value instanceof Map<?, ?> map) {
+         return value.getClass().getSimpleName() + "[" + map.size() + "]";
+      }
+      if (value instanceof byte[] bytes) {
+         return "byte[" + bytes.length + "]";
+      }
+      return value.getClass().getSimpleName();
+   }
+
+   /**
+    * Elementos de un resultado: filas de una lista o página, 0/1 de un Optional, el número devuelto por un UPDATE o un
+    * COUNT; -1 si no se conoce (p.ej. un Stream).
+    */
+   public static long size(Object result) {
+      if (result == null) {
+         return 0;
+      }
+      if (result instanceof Collection<?> collection) {
+         return collection.size();
+      }
+      if (result instanceof Slice<?> slice) {
+         return slice.getNumberOfElements(); // también Page
+      }
+      if (result instanceof Optional<?> optional) {
+         return optional.isPresent() ? 1 : 0;
+      }
+      if (result instanceof Number number) {
+         return number.longValue();
+      }
+      if (result instanceof BaseStream<?, ?> || result instanceof Iterable<?>) {
+         return -1;
+      }
+      return 1;
+   }
+
+}
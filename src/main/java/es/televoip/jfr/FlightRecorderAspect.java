@@ -0,0 +1,85 @@
+package es.televoip.jfr;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Emite un {@link ServiceCallEvent} por cada llamada a un método público de los servicios y un
+ * {@link RepositoryQueryEvent} por cada llamada a un repositorio.
+ *
+ * Sin una grabación JFR activa los eventos están desactivados: solo se crea el evento (que el JIT elimina) y no se
+ * calcula ningún resumen de argumentos.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class FlightRecorderAspect {
+
+   private static final String SUCCESS = "SUCCESS";
+
+   @Around("execution(public * es.televoip.service.implement.*ServiceImpl.*(..))")
+   public Object serviceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+      ServiceCallEvent event = new ServiceCallEvent();
+      if (!event.isEnabled()) {
+         return joinPoint.proceed();
+      }
+      event.begin();
+      String outcome = SUCCESS;
+      try {
+         return joinPoint.proceed();
+      } catch (Throwable ex) {
+         outcome = ex.getClass().getSimpleName();
+         throw ex;
+      } finally {
+         event.end();
+         if (event.shouldCommit()) {
+            event.service = joinPoint.getSignature().getDeclaringType().getSimpleName();
+            event.method = joinPoint.getSignature().getName();
+            event.arguments = EventArguments.summarize(joinPoint.getArgs());
+            event.outcome = outcome;
+            event.commit();
+         }
+      }
+   }
+
+   @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+   public Object repositoryQuery(ProceedingJoinPoint joinPoint) throws Throwable {
+      RepositoryQueryEvent event = new RepositoryQueryEvent();
+      if (!event.isEnabled()) {
+         return joinPoint.proceed();
+      }
+      event.begin();
+      String outcome = SUCCESS;
+      Object result = null;
+      try {
+         result = joinPoint.proceed();
+         return result;
+      } catch (Throwable ex) {
+         outcome = ex.getClass().getSimpleName();
+         throw ex;
+      } finally {
+         event.end();
+         if (event.shouldCommit()) {
+            event.repository = repository(joinPoint);
+            event.method = joinPoint.getSignature().getName();
+            event.arguments = EventArguments.summarize(joinPoint.getArgs());
+            event.resultSize = SUCCESS.equals(outcome) ? EventArguments.size(result) : -1;
+            event.outcome = outcome;
+            event.commit();
+         }
+      }
+   }
+
+   // interfaz del repositorio (p.ej. TaskRepository), también para los métodos heredados de JpaRepository
+   private static String repository(ProceedingJoinPoint joinPoint) {
+      Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(joinPoint.getTarget());
+      return interfaces.length > 0 ? interfaces[0].getSimpleName()
+             : joinPoint.getSignature().getDeclaringType().getSimpleName();
+   }
+
+}
@@ -0,0 +1,169 @@
+package es.televoip.jfr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Stream;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Endpoint de Actuator que inicia y detiene una grabación de JDK Flight Recorder en un fichero local, con los eventos
+ * de la aplicación (servicios, cachés y repositorios) además de los de la JVM.
+ *
+ * GET /actuator/flightrecording: estado de la grabación
+ * POST /actuator/flightrecording {"settings": "profile", "maxDuration": "10m"}: inicia una grabación ('settings' es
+ * 'default' o 'profile' de la JVM; sin 'maxDuration' dura hasta que se detiene)
+ * DELETE /actuator/flightrecording: la detiene y escribe el fichero (ábrelo con JDK Mission Control o 'jfr print')
+ *
+ * Cada grabación conserva como mucho 'jfr.recording.max-size' y 'jfr.recording.max-age' de eventos, y al iniciar una
+ * nueva se borran las más antiguas del directorio para no conservar más de 'jfr.recording.max-files' ficheros.
+ */
+@Slf4j
+@Component
+@Endpoint(id = "flightrecording")
+public class FlightRecordingEndpoint implements DisposableBean {
+
+   private static final String DEFAULT_SETTINGS = "default";
+
+   private static final DateTimeFormatter FILE_NAME = DateTimeFormatter.ofPattern("'todo-api-'yyyyMMdd-HHmmss'.jfr'");
+
+   private static final List<Class<? extends Event>> APPLICATION_EVENTS = List.of(ServiceCallEvent.class,
+          RepositoryQueryEvent.class, CacheLookupEvent.class, CacheLoadEvent.class);
+
+   private final Path directory;
+
+   private final DataSize maxSize;
+
+   private final Duration maxAge;
+
+   private final int maxFiles;
+
+   private Recording recording;
+
+   private String settings;
+
+   private Path file;
+
+   public FlightRecordingEndpoint(@Value("${jfr.recording.directory:data/recordings}") Path directory,
+          @Value("${jfr.recording.max-size:250MB}") DataSize maxSize,
+          @Value("${jfr.recording.max-age:24h}") Duration maxAge,
+          @Value("${jfr.recording.max-files:10}") int maxFiles) {
+      this.directory = directory;
+      this.maxSize = maxSize;
+      this.maxAge = maxAge;
+      this.maxFiles = maxFiles;
+   }
+
+   /**
+    * Estado de la última grabación.
+    *
+    * @param recording si está grabando
+    * @param settings configuración de la JVM usada
+    * @param startedAt inicio de la grabación
+    * @param file fichero de la grabación (se escribe al detenerla)
+    * @param bytes tamaño del fichero
+    */
+   public record RecordingStatus(boolean recording, String settings, Instant startedAt, String file, long bytes) {
+   }
+
+   @ReadOperation
+   public synchronized RecordingStatus status() throws IOException {
+      if (recording == null) {
+         return new RecordingStatus(false, null, null, null, 0);
+      }
+      return new RecordingStatus(recording.getState() == RecordingState.RUNNING, settings, recording.getStartTime(),
+             file.toString(), Files.exists(file) ? Files.size(file) : 0);
+   }
+
+   @WriteOperation
+   public synchronized RecordingStatus start(@Nullable String settings, @Nullable Duration maxDuration)
+          throws IOException {
+      if (recording != null && recording.getState() == RecordingState.RUNNING) {
+         return status(); // ya está grabando
+      }
+      String name = settings != null ? settings : DEFAULT_SETTINGS;
+      Configuration configuration;
+      try {
+         configuration = Configuration.getConfiguration(name);
+      } catch (IOException | ParseException ex) {
+         throw new InvalidEndpointRequestException("Unknown JFR settings: " + name, "Unknown JFR settings");
+      }
+
+      closeRecording();
+      Files.createDirectories(directory);
+      deleteOldRecordings();
+      file = directory.resolve(LocalDateTime.now().format(FILE_NAME)).toAbsolutePath();
+      recording = new Recording(configuration);
+      APPLICATION_EVENTS.forEach(event -> recording.enable(event).withoutThreshold());
+      recording.setName("todo-api");
+      recording.setToDisk(true);
+      recording.setDestination(file);
+      recording.setMaxSize(maxSize.toBytes()); // los eventos más antiguos se descartan
+      recording.setMaxAge(maxAge);
+      if (maxDuration != null) {
+         recording.setDuration(maxDuration); // al terminar escribe el fichero él solo
+      }
+      recording.start();
+      this.settings = name;
+      log.info("JFR recording started ({}) to {}", name, file);
+      return status();
+   }
+
+   @DeleteOperation
+   public synchronized RecordingStatus stop() throws IOException {
+      if (recording != null && recording.getState() == RecordingState.RUNNING) {
+         recording.stop(); // escribe el fichero de destino
+         log.info("JFR recording stopped: {}", file);
+      }
+      return status();
+   }
+
+   @Override
+   public synchronized void destroy() throws IOException {
+      stop();
+      closeRecording();
+   }
+
+   // Deja sitio para la nueva grabación: el nombre lleva la fecha de inicio, así que el orden alfabético es el cronológico
+   private void deleteOldRecordings() throws IOException {
+      List<Path> recordings;
+      try (Stream<Path> files = Files.list(directory)) {
+         recordings = files
+                .filter(path -> path.getFileName().toString().matches("todo-api-\\d{8}-\\d{6}\\.jfr"))
+                .sorted()
+                .toList();
+      }
+      for (Path old : recordings.subList(0, Math.max(0, recordings.size() - Math.max(0, maxFiles - 1)))) {
+         Files.deleteIfExists(old);
+         log.info("JFR recording deleted: {}", old);
+      }
+   }
+
+   private void closeRecording() {
+      if (recording != null) {
+         recording.close();
+         recording = null;
+      }
+   }
+
+}
@@ -0,0 +1,34 @@
+package es.televoip.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("es.televoip.RepositoryQuery")
+@Label("Repository Query")
+@Category({"Todo API", "Repository"})
+@Description("Llamada a un método de un repositorio de Spring Data")
+@StackTrace(false)
+public class RepositoryQueryEvent extends jdk.jfr.Event {
+
+   @Label("Repository")
+   public String repository;
+
+   @Label("Method")
+   public String method;
+
+   @Label("Arguments")
+   @Description("Argumentos resumidos (mirar EventArguments)")
+   public String arguments;
+
+   @Label("Result Size")
+   @Description("Elementos devueltos (lista o página, 0/1 de un Optional, filas de un UPDATE); -1 si no se conoce")
+   public long resultSize;
+
+   @Label("Outcome")
+   @Description("SUCCESS o la clase de la excepción lanzada")
+   public String outcome;
+
+}
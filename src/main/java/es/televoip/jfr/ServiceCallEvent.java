@@ -0,0 +1,30 @@
+package es.televoip.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("es.televoip.ServiceCall")
+@Label("Service Call")
+@Category({"Todo API", "Service"})
+@Description("Llamada a un método público de TaskServiceImpl o PersonServiceImpl")
+@StackTrace(false)
+public class ServiceCallEvent extends jdk.jfr.Event {
+
+   @Label("Service")
+   public String service;
+
+   @Label("Method")
+   public String method;
+
+   @Label("Arguments")
+   @Description("Argumentos resumidos (mirar EventArguments)")
+   public String arguments;
+
+   @Label("Outcome")
+   @Description("SUCCESS o la clase de la excepción lanzada")
+   public String outcome;
+
+}
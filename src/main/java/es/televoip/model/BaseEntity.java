@@ -5,11 +5,13 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.Version;
 import java.io.Serializable;
 import java.time.OffsetDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
@@ -21,8 +23,11 @@ public abstract class BaseEntity implements Serializable {
 
    private static final long serialVersionUID = -7643472199261145774L;
 
+   // Secuencia por entidad ('task_seq', 'person_seq') con el optimizador 'pooled' de Hibernate: reserva 50 ID en cada
+   // consulta a la secuencia, y al no depender del INSERT para conocer el ID, Hibernate puede agrupar las inserciones en
+   // lotes JDBC (hibernate.jdbc.batch_size). Con IDENTITY cada INSERT se ejecuta por separado. Ver IdSequenceInitializer.
    @Id
-   @GeneratedValue(strategy = GenerationType.IDENTITY)
+   @GeneratedValue(strategy = GenerationType.SEQUENCE)
    private Long id;
 
    @CreatedDate // Para auditoria. Usamos la zona horaria Spain/Madrid -> mirar clase DomainConfig
@@ -33,4 +38,13 @@ public abstract class BaseEntity implements Serializable {
    @Column(name = "last_updated", nullable = true, updatable = true)
    private OffsetDateTime logLastUpdated; // incluye información sobre la zona horaria y el desplazamiento con respecto a UTC
 
+   // Bloqueo optimista: Hibernate lo incrementa en cada UPDATE de la entidad y comprueba que no ha cambiado desde que se
+   // leyó; las sentencias UPDATE de los repositorios lo incrementan ellas mismas. Es la ETag de GET /api/tasks/{id}.
+   // Tipo primitivo: con Long, Spring Data consideraría nueva (persist en lugar de merge) una entidad sin versión.
+   // El valor por defecto rellena las filas existentes al añadir la columna ('ddl-auto=update').
+   @Version
+   @ColumnDefault("0")
+   @Column(nullable = false)
+   private long version;
+
 }
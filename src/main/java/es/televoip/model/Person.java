@@ -19,6 +19,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import org.springframework.format.annotation.DateTimeFormat;
 
@@ -66,6 +67,7 @@ public class Person extends BaseEntity {
 
    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
    @JoinColumn(name = "person_id") // Nombre de la columna en la tabla Task que hace referencia a Person
+   @BatchSize(size = 50) // al recorrer varias personas, las tareas se cargan de 50 en 50 personas y no de una en una
    private List<Task> tasks;
 
 }
@@ -4,6 +4,8 @@ import es.televoip.model.enums.TaskStatus;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -16,6 +18,15 @@ import org.springframework.format.annotation.DateTimeFormat;
 @SuppressWarnings("serial")
 @Entity
 @EntityListeners(AuditingEntityListener.class)
+@Table(indexes = { // un índice (campo, id) por cada SortFieldTask para la paginación por cursor
+   @Index(name = "idx_task_title_id", columnList = "title, id"),
+   @Index(name = "idx_task_description_id", columnList = "description, id"),
+   @Index(name = "idx_task_status_id", columnList = "taskStatus, id"),
+   @Index(name = "idx_task_is_completed_id", columnList = "isCompleted, id"),
+   @Index(name = "idx_task_priority_id", columnList = "priority, id"),
+   @Index(name = "idx_task_date_creation_id", columnList = "taskDateCreation, id"),
+   @Index(name = "idx_task_date_finished_id", columnList = "taskDateFinished, id")
+})
 @Data
 @EqualsAndHashCode(callSuper = false)
 @NoArgsConstructor
@@ -0,0 +1,16 @@
+package es.televoip.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.List;
+
+/**
+ * Página obtenida por cursor (keyset): el contenido y el cursor opaco que hay que enviar para pedir la siguiente.
+ *
+ * @param content elementos de la página
+ * @param nextCursor cursor de la siguiente página, 'null' si no hay más
+ * @param hasNext indica si hay más elementos tras esta página
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CursorPage<T>(List<T> content, String nextCursor, boolean hasNext) {
+
+}
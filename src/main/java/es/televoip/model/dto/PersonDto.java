@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import es.televoip.model.embeded.Address;
 import es.televoip.model.embeded.UserAccess;
 import es.televoip.model.enums.Gender;
+import es.televoip.model.enums.Role;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -72,4 +73,33 @@ public class PersonDto {
    @Null
    private List<TaskDto> tasks;
 
+   @Schema(accessMode = Schema.AccessMode.READ_ONLY)
+   @Null
+   private Long taskCount; // solo en los listados con el número de tareas, en lugar de las tareas
+
+
+   /**
+    * Constructor para las consultas de listados de PersonRepository: recibe solo las columnas que se muestran, sin la
+    * contraseña de UserAccess y sin las tareas, que no se cargan.
+    */
+   public PersonDto(Long id, String firstName, String lastName, String dni, String email, Gender gender, String phone,
+          LocalDate dateOfBirth, boolean important, String userName, Role roles, String profilePictureId, String street,
+          Integer postalCode, String city, String country) {
+      this(id, firstName, lastName, dni, email, gender, phone, dateOfBirth, important,
+             UserAccess.builder().userName(userName).roles(roles).profilePictureId(profilePictureId).build(),
+             street != null ? new Address(street, postalCode, city, country) : null,
+             null, null);
+   }
+
+   /**
+    * Constructor para los listados con el número de tareas de cada persona (COUNT ... GROUP BY), sin cargar las tareas.
+    */
+   public PersonDto(Long id, String firstName, String lastName, String dni, String email, Gender gender, String phone,
+          LocalDate dateOfBirth, boolean important, String userName, Role roles, String profilePictureId, String street,
+          Integer postalCode, String city, String country, Long taskCount) {
+      this(id, firstName, lastName, dni, email, gender, phone, dateOfBirth, important, userName, roles,
+             profilePictureId, street, postalCode, city, country);
+      this.taskCount = taskCount;
+   }
+
 }
@@ -0,0 +1,30 @@
+package es.televoip.model.dto;
+
+import es.televoip.model.enums.TaskStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Cambios que se aplican de una vez a un conjunto de tareas, elegidas por ID o por el mismo texto que
+ * GET /api/tasks/filter/slice (cada palabra es el principio de una palabra de la tarea). Los campos a 'null' no se
+ * modifican.
+ *
+ * @param ids ID de las tareas a modificar
+ * @param filter texto de búsqueda, se usa si no se indican 'ids'
+ * @param isCompleted nuevo estado de completitud
+ * @param taskStatus nuevo estado
+ * @param taskDateFinished nueva fecha de finalización
+ */
+public record TaskBulkUpdate(
+       @Schema(example = "[1, 2, 3]") List<Long> ids,
+       @Schema(example = "informe") String filter,
+       @Schema(example = "true") Boolean isCompleted,
+       TaskStatus taskStatus,
+       LocalDateTime taskDateFinished) {
+
+   public boolean hasChanges() {
+      return isCompleted != null || taskStatus != null || taskDateFinished != null;
+   }
+
+}
@@ -0,0 +1,10 @@
+package es.televoip.model.dto;
+
+/**
+ * Resultado de una actualización masiva de tareas.
+ *
+ * @param updated número de tareas modificadas
+ */
+public record TaskBulkUpdateResult(int updated) {
+
+}
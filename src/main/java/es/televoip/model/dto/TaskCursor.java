@@ -0,0 +1,87 @@
+package es.televoip.model.dto;
+
+import es.televoip.model.Task;
+import es.televoip.model.enums.SortFieldTask;
+import es.televoip.model.enums.TaskStatus;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Posición de la última tarea entregada en una paginación por cursor: el orden usado y el par (valor, id) de esa
+ * tarea. Se entrega al cliente codificado en Base64 como un valor opaco.
+ *
+ * @param sortBy campo de ordenación
+ * @param direction dirección de la ordenación
+ * @param value valor del campo de ordenación de la última tarea (puede ser 'null')
+ * @param id ID de la última tarea, que desempata los valores repetidos
+ */
+public record TaskCursor(SortFieldTask sortBy, Sort.Direction direction, Object value, Long id) {
+
+   private static final String SEPARATOR = "|";
+   private static final String NULL_VALUE = "~";
+   private static final String VALUE_PREFIX = "=";
+
+   public static TaskCursor of(SortFieldTask sortBy, Sort.Direction direction, Task task) {
+      return new TaskCursor(sortBy, direction, valueOf(sortBy, task), task.getId());
+   }
+
+   public String encode() {
+      String raw = sortBy.name() + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR
+             + (value == null ? NULL_VALUE : VALUE_PREFIX + value);
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+   }
+
+   /**
+    * @throws IllegalArgumentException si el cursor no es válido
+    */
+   public static TaskCursor decode(String cursor) {
+      try {
+         String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+         String[] parts = raw.split("\\" + SEPARATOR, 4); // el valor va al final y puede contener el separador
+         SortFieldTask sortBy = SortFieldTask.valueOf(parts[0]);
+         Sort.Direction direction = Sort.Direction.valueOf(parts[1]);
+         Long id = Long.valueOf(parts[2]);
+         Object value = parts[3].equals(NULL_VALUE) ? null : parseValue(sortBy, parts[3].substring(VALUE_PREFIX.length()));
+         return new TaskCursor(sortBy, direction, value, id);
+      } catch (RuntimeException ex) {
+         throw new IllegalArgumentException("Invalid task cursor: " + cursor, ex);
+      }
+   }
+
+   private static Object valueOf(SortFieldTask sortBy, Task task) {
+      return switch (sortBy) {
+         case TASK_TITLE ->
+            task.getTitle();
+         case TASK_DESCRIPTION ->
+            task.getDescription();
+         case TASK_STATUS ->
+            task.getTaskStatus();
+         case TASK_IS_COMPLETED ->
+            task.getIsCompleted();
+         case TASK_PRIORITYD ->
+            task.getPriority();
+         case TASK_DATE_OF_CREATION ->
+            task.getTaskDateCreation();
+         case TASK_DATE_OF_FINISHED ->
+            task.getTaskDateFinished();
+      };
+   }
+
+   private static Object parseValue(SortFieldTask sortBy, String value) {
+      return switch (sortBy) {
+         case TASK_TITLE, TASK_DESCRIPTION ->
+            value;
+         case TASK_STATUS ->
+            TaskStatus.valueOf(value);
+         case TASK_IS_COMPLETED ->
+            Boolean.valueOf(value);
+         case TASK_PRIORITYD ->
+            Integer.valueOf(value);
+         case TASK_DATE_OF_CREATION, TASK_DATE_OF_FINISHED ->
+            LocalDateTime.parse(value);
+      };
+   }
+
+}
@@ -1,6 +1,7 @@
 package es.televoip.model.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import es.televoip.model.enums.TaskStatus;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.Max;
@@ -19,7 +20,7 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true) // toBuilder: copia con los valores anteriores a una actualización
 @JsonInclude(JsonInclude.Include.NON_NULL) // No se incluye en la respuesta JSON cuando su valor sea 'null'
 public class TaskDto {
 
@@ -74,4 +75,8 @@ public class TaskDto {
    @Schema(hidden = true)
    private OffsetDateTime logLastUpdated; // incluye información sobre la zona horaria y el desplazamiento con respecto a UTC
 
+   @JsonProperty(access = JsonProperty.Access.READ_ONLY) // se ignora en las peticiones: la versión llega en If-Match
+   @Schema(hidden = true)
+   private Long version; // bloqueo optimista, se envía también como ETag
+
 }
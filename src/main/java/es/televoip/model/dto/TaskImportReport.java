@@ -0,0 +1,31 @@
+package es.televoip.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Estado y progreso de una importación de tareas.
+ *
+ * @param id identificador de la importación
+ * @param state estado: QUEUED, RUNNING, COMPLETED o FAILED
+ * @param rowsRead filas leídas del fichero
+ * @param rowsImported tareas guardadas
+ * @param rowsRejected filas descartadas por no poder leerse, no ser válidas o no poder guardarse
+ * @param errors detalle de las primeras filas descartadas
+ * @param startedAt inicio de la importación
+ * @param finishedAt fin de la importación, 'null' si no ha terminado
+ * @param message causa del fallo si la importación se ha detenido (FAILED)
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TaskImportReport(String id, String state, long rowsRead, long rowsImported, long rowsRejected,
+       List<RowError> errors, OffsetDateTime startedAt, OffsetDateTime finishedAt, String message) {
+
+   /**
+    * @param line fila del fichero
+    * @param message motivo por el que se descarta
+    */
+   public record RowError(long line, String message) {
+   }
+
+}
@@ -0,0 +1,23 @@
+package es.televoip.model.dto;
+
+import es.televoip.model.enums.TaskStatus;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+/**
+ * Estadísticas de las tareas (ver TaskStatistics). Solo aparecen las claves con alguna tarea.
+ *
+ * @param total número de tareas
+ * @param byTaskStatus tareas por estado
+ * @param byCompletion tareas por completitud
+ * @param byPriority tareas por prioridad (1 a 9)
+ * @param createdPerDay tareas creadas cada día
+ * @param finishedPerDay tareas finalizadas cada día
+ * @param reconciledAt última vez que se recalcularon desde la base de datos, 'null' si aún no se ha hecho
+ */
+public record TaskStatisticsDto(long total, Map<TaskStatus, Long> byTaskStatus, Map<Boolean, Long> byCompletion,
+       Map<Integer, Long> byPriority, Map<LocalDate, Long> createdPerDay, Map<LocalDate, Long> finishedPerDay,
+       OffsetDateTime reconciledAt) {
+
+}
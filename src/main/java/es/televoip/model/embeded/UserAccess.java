@@ -37,7 +37,8 @@ public class UserAccess {
    @Builder.Default
    private Role roles = Role.USER;
 
-   @Column(nullable = false, updatable = true)
-   private byte[] profilePicture;
+   // Referencia (SHA-256) de la foto en ProfilePictureStore: la imagen no se guarda en la fila de Person
+   @Column(length = 64)
+   private String profilePictureId;
 
 }
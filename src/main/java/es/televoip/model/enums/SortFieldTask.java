@@ -6,8 +6,8 @@ public enum SortFieldTask {
    TASK_STATUS("taskStatus"),
    TASK_IS_COMPLETED("isCompleted"),
    TASK_PRIORITYD("priority"),
-   TASK_DATE_OF_CREATION("dateOfCreation"),
-   TASK_DATE_OF_FINISHED("dateOfFinished");
+   TASK_DATE_OF_CREATION("taskDateCreation"),
+   TASK_DATE_OF_FINISHED("taskDateFinished");
 
    private final String fieldName;
 
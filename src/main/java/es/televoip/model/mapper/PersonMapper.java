@@ -14,11 +14,13 @@ public interface PersonMapper extends BaseMapper<Person, PersonDto> {
    @Override
    Person toEntity(PersonDto personDto);
 
+   @Mapping(ignore = true, target = "taskCount")
    @Override
    PersonDto toDto(Person person);
 
    @Mapping(ignore = true, target = "logDateCreated")
    @Mapping(ignore = true, target = "logLastUpdated")
+   @Mapping(ignore = true, target = "version")
    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
    @Override
    void updateEntity(PersonDto personDto, @MappingTarget Person person);
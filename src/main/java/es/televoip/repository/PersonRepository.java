@@ -1,15 +1,80 @@
 package es.televoip.repository;
 
 import es.televoip.model.Person;
+import es.televoip.model.dto.PersonDto;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface PersonRepository extends BaseRepository<Person, Long> {
 
+   // Proyección de los listados: sin las tareas de cada persona (de la foto de perfil solo hay una referencia)
+   public static final String PERSON_SUMMARY_SELECT = "SELECT new es.televoip.model.dto.PersonDto(p.id, p.firstName, p.lastName, p.dni,"
+          + " p.email, p.gender, p.phone, p.dateOfBirth, p.important, p.userAccess.userName, p.userAccess.roles,"
+          + " p.userAccess.profilePictureId, p.address.street, p.address.postalCode, p.address.city, p.address.country)"
+          + " FROM Person p";
+
+   public static final String PERSON_FILTER_WHERE = " WHERE LOWER(p.firstName) LIKE LOWER(CONCAT('%', :filter, '%'))"
+          + " OR LOWER(p.lastName) LIKE LOWER(CONCAT('%', :filter, '%'))"
+          + " OR LOWER(p.email) LIKE LOWER(CONCAT('%', :filter, '%'))"
+          + " OR LOWER(p.dni) LIKE LOWER(CONCAT('%', :filter, '%'))";
+
+   // Proyección con el número de tareas de cada persona: una sola consulta con LEFT JOIN y GROUP BY
+   public static final String PERSON_TASK_COUNT_SELECT = "SELECT new es.televoip.model.dto.PersonDto(p.id, p.firstName,"
+          + " p.lastName, p.dni, p.email, p.gender, p.phone, p.dateOfBirth, p.important, p.userAccess.userName,"
+          + " p.userAccess.roles, p.userAccess.profilePictureId, p.address.street, p.address.postalCode, p.address.city,"
+          + " p.address.country, COUNT(t))"
+          + " FROM Person p LEFT JOIN p.tasks t"
+          + " GROUP BY p.id, p.firstName, p.lastName, p.dni, p.email, p.gender, p.phone, p.dateOfBirth, p.important,"
+          + " p.userAccess.userName, p.userAccess.roles, p.userAccess.profilePictureId, p.address.street,"
+          + " p.address.postalCode, p.address.city, p.address.country";
+
+   @Query(PERSON_SUMMARY_SELECT)
+   public List<PersonDto> findAllAsDto(Sort sort);
+
+   @Query(PERSON_TASK_COUNT_SELECT)
+   public List<PersonDto> findAllWithTaskCount(Sort sort);
+
+   @Query(value = PERSON_TASK_COUNT_SELECT, countQuery = "SELECT COUNT(p) FROM Person p")
+   public Page<PersonDto> findPageWithTaskCount(Pageable page);
+
+   // Personas con sus tareas en una sola consulta (LEFT JOIN FETCH), en lugar de una consulta de tareas por persona
+   @EntityGraph(attributePaths = "tasks")
+   @Query("SELECT p FROM Person p")
+   public List<Person> findAllWithTasks(Sort sort);
+
+   @EntityGraph(attributePaths = "tasks")
+   public List<Person> findAllWithTasksByIdIn(Collection<Long> ids);
+
+   // Con JOIN FETCH la paginación se haría en memoria: primero se pagina sobre los ID y luego se cargan esas personas
+   @Query(value = "SELECT p.id FROM Person p", countQuery = "SELECT COUNT(p) FROM Person p")
+   public Page<Long> findPageOfIds(Pageable page);
+
+   @Query(value = PERSON_SUMMARY_SELECT, countQuery = "SELECT COUNT(p) FROM Person p")
+   public Page<PersonDto> findPageAsDto(Pageable page);
+
+   @Query(PERSON_SUMMARY_SELECT)
+   public Slice<PersonDto> findSliceAsDto(Pageable page);
+
+   @Query(PERSON_SUMMARY_SELECT + PERSON_FILTER_WHERE)
+   public List<PersonDto> findAllAsDtoByFilter(@Param("filter") String filter);
+
+   @Query(value = PERSON_SUMMARY_SELECT + PERSON_FILTER_WHERE,
+          countQuery = "SELECT COUNT(p) FROM Person p" + PERSON_FILTER_WHERE)
+   public Page<PersonDto> findPageAsDtoByFilter(@Param("filter") String filter, Pageable page);
+
+   @Query(PERSON_SUMMARY_SELECT + PERSON_FILTER_WHERE)
+   public Slice<PersonDto> findSliceAsDtoByFilter(@Param("filter") String filter, Pageable page);
+
    public List<Person> findByFirstNameContainingOrLastNameContainingOrEmailContainingOrDniContainingAllIgnoreCase(
           String name, String lastname, String email, String dni);
 
@@ -1,27 +1,156 @@
 package es.televoip.repository;
 
 import es.televoip.model.Task;
+import es.televoip.model.dto.TaskDto;
 import es.televoip.model.enums.TaskStatus;
+import es.televoip.statistics.TaskStatisticsGroup;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface TaskRepository extends BaseRepository<Task, Long> {
+public interface TaskRepository extends BaseRepository<Task, Long>, TaskRepositoryCustom {
 
-   @Modifying(clearAutomatically = true) // anotación que indica que se modificará los datos en la base de datos
-   @Query("UPDATE Task t SET t.isCompleted = TRUE WHERE t.id = :id")
-   public void markTaskAsCompleted(@Param("id") Long id);
+   // Proyección directa a TaskDto (orden de su constructor): sin entidades gestionadas, sin copia de estado para el
+   // 'dirty checking' y sin pasar por TaskMapper
+   public static final String TASK_DTO_SELECT = "SELECT new es.televoip.model.dto.TaskDto(t.id, t.title, "
+          + "t.description, t.taskStatus, t.isCompleted, t.priority, t.taskDateCreation, t.taskDateFinished, "
+          + "t.logDateCreated, t.logLastUpdated, t.version) FROM Task t";
+
+   // Actualizaciones de una tarea (PUT y PATCH): una sentencia UPDATE sin cargar la entidad, siempre condicionada a una
+   // versión. Devuelven las filas modificadas: 0 si no existe la tarea o si su versión ya no es esa. Las sentencias no pasan
+   // por Hibernate: incrementan ellas la versión y reciben 'lastUpdated' porque la auditoría no se aplica.
+   public static final String VERSIONED_UPDATE = "t.version = t.version + 1, t.logLastUpdated = :lastUpdated "
+          + "WHERE t.id = :id AND t.version = :version";
+
+   @Modifying(clearAutomatically = true, flushAutomatically = true)
+   @Query("UPDATE Task t SET t.title = :#{#task.title}, t.description = :#{#task.description}, "
+          + "t.taskStatus = :#{#task.taskStatus}, t.isCompleted = :#{#task.isCompleted}, "
+          + "t.priority = :#{#task.priority}, t.taskDateFinished = :#{#task.taskDateFinished}, " + VERSIONED_UPDATE)
+   public int updateById(@Param("id") Long id, @Param("task") TaskDto task, @Param("version") Long version,
+          @Param("lastUpdated") OffsetDateTime lastUpdated);
+
+   @Modifying(clearAutomatically = true, flushAutomatically = true)
+   @Query("UPDATE Task t SET t.taskStatus = :status, " + VERSIONED_UPDATE)
+   public int updateTaskStatusById(@Param("id") Long id, @Param("status") TaskStatus status,
+          @Param("version") Long version, @Param("lastUpdated") OffsetDateTime lastUpdated);
+
+   @Modifying(clearAutomatically = true, flushAutomatically = true)
+   @Query("UPDATE Task t SET t.isCompleted = :isCompleted, " + VERSIONED_UPDATE)
+   public int updateIsCompletedById(@Param("id") Long id, @Param("isCompleted") Boolean isCompleted,
+          @Param("version") Long version, @Param("lastUpdated") OffsetDateTime lastUpdated);
+
+   // También devuelve 0 si la fecha es anterior a la de creación
+   @Modifying(clearAutomatically = true, flushAutomatically = true)
+   @Query("UPDATE Task t SET t.taskDateFinished = :dateFinished, " + VERSIONED_UPDATE
+          + " AND (t.taskDateCreation IS NULL OR t.taskDateCreation <= :dateFinished)")
+   public int updateTaskDateFinishedById(@Param("id") Long id, @Param("dateFinished") LocalDateTime dateFinished,
+          @Param("version") Long version, @Param("lastUpdated") OffsetDateTime lastUpdated);
+
+   // Actualización masiva (ver TaskServiceImpl.updateTasksInBulk): un parámetro a 'null' conserva el valor de la fila.
+   // La auditoría (@LastModifiedDate) no se aplica a las sentencias UPDATE, por eso se recibe 'lastUpdated'.
+   @Modifying(clearAutomatically = true, flushAutomatically = true)
+   @Query("UPDATE Task t SET t.isCompleted = COALESCE(:isCompleted, t.isCompleted), "
+          + "t.taskStatus = COALESCE(:status, t.taskStatus), "
+          + "t.taskDateFinished = COALESCE(:dateFinished, t.taskDateFinished), "
+          + "t.logLastUpdated = :lastUpdated, t.version = t.version + 1 "
+          + "WHERE t.id IN :ids")
+   public int updateAllByIdIn(@Param("ids") Collection<Long> ids, @Param("isCompleted") Boolean isCompleted,
+          @Param("status") TaskStatus status, @Param("dateFinished") LocalDateTime dateFinished,
+          @Param("lastUpdated") OffsetDateTime lastUpdated);
+
+   // Recuentos para reconciliar las estadísticas en memoria (TaskStatistics): cada fila es [clave, número de tareas]
+   @Query("SELECT t.taskStatus, COUNT(t) FROM Task t GROUP BY t.taskStatus")
+   public List<Object[]> countGroupedByTaskStatus();
+
+   @Query("SELECT t.isCompleted, COUNT(t) FROM Task t GROUP BY t.isCompleted")
+   public List<Object[]> countGroupedByIsCompleted();
+
+   @Query("SELECT t.priority, COUNT(t) FROM Task t GROUP BY t.priority")
+   public List<Object[]> countGroupedByPriority();
+
+   @Query("SELECT CAST(t.taskDateCreation AS LocalDate), COUNT(t) FROM Task t "
+          + "WHERE t.taskDateCreation IS NOT NULL GROUP BY CAST(t.taskDateCreation AS LocalDate)")
+   public List<Object[]> countGroupedByCreationDay();
+
+   @Query("SELECT CAST(t.taskDateFinished AS LocalDate), COUNT(t) FROM Task t "
+          + "WHERE t.taskDateFinished IS NOT NULL GROUP BY CAST(t.taskDateFinished AS LocalDate)")
+   public List<Object[]> countGroupedByFinishedDay();
+
+   // Valores de estadística de las tareas indicadas, agrupados: lo que resta una actualización masiva
+   @Query("SELECT new es.televoip.statistics.TaskStatisticsGroup(t.taskStatus, t.isCompleted, t.priority, "
+          + "CAST(t.taskDateCreation AS LocalDate), CAST(t.taskDateFinished AS LocalDate), COUNT(t)) "
+          + "FROM Task t WHERE t.id IN :ids GROUP BY t.taskStatus, t.isCompleted, t.priority, "
+          + "CAST(t.taskDateCreation AS LocalDate), CAST(t.taskDateFinished AS LocalDate)")
+   public List<TaskStatisticsGroup> findStatisticsGroupsByIdIn(@Param("ids") Collection<Long> ids);
+
+   public boolean existsByIdInAndTaskDateCreationAfter(Collection<Long> ids, LocalDateTime date);
 
    @Query("SELECT t FROM Task t WHERE LOWER(t.title) LIKE LOWER(CONCAT('%', :title, '%'))")
    public List<Task> findAllByTitleContainingIgnoreCase(String title);
 
    public List<Task> findAllByTaskStatus(TaskStatus status);
 
+   @Query(TASK_DTO_SELECT)
+   public List<TaskDto> findAllAsDto();
+
+   @Query(TASK_DTO_SELECT + " WHERE t.id = :id")
+   public Optional<TaskDto> findAsDtoById(@Param("id") Long id);
+
+   @Query(TASK_DTO_SELECT + " WHERE t.taskStatus = :status")
+   public List<TaskDto> findAllAsDtoByTaskStatus(@Param("status") TaskStatus status);
+
+   @Query(TASK_DTO_SELECT + " WHERE t.isCompleted = :isCompleted")
+   public List<TaskDto> findAllAsDtoByIsCompleted(@Param("isCompleted") boolean isCompleted);
+
+   // Recorrido completo para la exportación: el driver entrega las filas por bloques de EXPORT_FETCH_SIZE en lugar de
+   // cargar el resultado entero, y las entidades se leen en modo solo lectura (sin copia para el 'dirty checking').
+   // El Stream debe cerrarse y consumirse dentro de una transacción.
+   public static final String EXPORT_FETCH_SIZE = "500";
+
+   @QueryHints({
+      @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+      @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true"),
+      @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "false")
+   })
+   @Query("SELECT t FROM Task t ORDER BY t.id")
+   public Stream<Task> streamAllByOrderById();
+
+   // Proyección con solo los campos de texto, para construir el índice de búsqueda (TaskSearchIndex)
+   public interface TaskText {
+
+      Long getId();
+
+      String getTitle();
+
+      String getDescription();
+
+   }
+
+   public List<TaskText> findAllProjectedBy();
+
+   public Page<Task> findAllByIdIn(Collection<Long> ids, Pageable page);
+
+   // Variantes Slice: leen una fila de más para saber si hay página siguiente, sin la consulta COUNT de Page
+   public Slice<Task> findSliceBy(Pageable page);
+
+   public Slice<Task> findSliceByIdIn(Collection<Long> ids, Pageable page);
+
+   public Slice<Task> findSliceByTitleContainingOrDescriptionContainingAllIgnoreCase(String title, String description, Pageable page);
+
    public List<Task> findByIsCompletedTrue();
 
    public List<Task> findByIsCompletedFalse();
@@ -0,0 +1,23 @@
+package es.televoip.repository;
+
+import es.televoip.model.Task;
+import es.televoip.model.enums.SortFieldTask;
+import java.util.List;
+import org.springframework.data.domain.Sort;
+
+// Consultas de TaskRepository que no se pueden expresar como métodos derivados ni con @Query
+public interface TaskRepositoryCustom {
+
+   /**
+    * Paginación por cursor (keyset): devuelve las tareas que siguen a (lastValue, lastId) en el orden indicado, con el
+    * ID como desempate. La consulta busca directamente la posición en el índice (campo, id) en lugar de saltar las
+    * filas anteriores con OFFSET, por lo que cualquier página cuesta lo mismo que la primera.
+    *
+    * Los valores 'null' se consideran menores que cualquier otro: van al principio en orden ascendente y al final en
+    * descendente.
+    *
+    * @param lastId ID de la última tarea entregada, 'null' para la primera página
+    */
+   public List<Task> findAllAfter(SortFieldTask sortBy, Sort.Direction direction, Object lastValue, Long lastId, int limit);
+
+}
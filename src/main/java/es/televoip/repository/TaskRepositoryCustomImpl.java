@@ -0,0 +1,75 @@
+package es.televoip.repository;
+
+import es.televoip.model.Task;
+import es.televoip.model.enums.SortFieldTask;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.List;
+import org.hibernate.query.criteria.JpaOrder;
+import org.hibernate.query.sqm.NullPrecedence;
+import org.springframework.data.domain.Sort;
+
+// Spring Data enlaza esta implementación con TaskRepository por el sufijo 'Impl' de TaskRepositoryCustom
+public class TaskRepositoryCustomImpl implements TaskRepositoryCustom {
+
+   @PersistenceContext
+   private EntityManager entityManager;
+
+   @Override
+   @SuppressWarnings({"unchecked", "rawtypes"})
+   public List<Task> findAllAfter(SortFieldTask sortBy, Sort.Direction direction, Object lastValue, Long lastId, int limit) {
+      CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+      CriteriaQuery<Task> query = cb.createQuery(Task.class);
+      Root<Task> task = query.from(Task.class);
+      Path<Comparable> value = task.get(sortBy.getFieldName());
+      Path<Long> id = task.get("id");
+
+      if (lastId != null) {
+         query.where(direction.isAscending()
+                ? after(cb, value, id, (Comparable) lastValue, lastId)
+                : before(cb, value, id, (Comparable) lastValue, lastId));
+      }
+
+      // 'null' primero en ascendente y último en descendente, igual que el predicado (orden por defecto de MariaDB)
+      Order valueOrder = direction.isAscending()
+             ? ((JpaOrder) cb.asc(value)).nullPrecedence(NullPrecedence.FIRST)
+             : ((JpaOrder) cb.desc(value)).nullPrecedence(NullPrecedence.LAST);
+      query.orderBy(valueOrder, direction.isAscending() ? cb.asc(id) : cb.desc(id));
+
+      return entityManager.createQuery(query)
+             .setMaxResults(limit)
+             .getResultList();
+   }
+
+   // (value, id) > (lastValue, lastId)
+   @SuppressWarnings({"unchecked", "rawtypes"})
+   private Predicate after(CriteriaBuilder cb, Path<Comparable> value, Path<Long> id, Comparable lastValue, Long lastId) {
+      if (lastValue == null) {
+         return cb.or(
+                cb.and(cb.isNull(value), cb.greaterThan(id, lastId)),
+                cb.isNotNull(value));
+      }
+      return cb.or(
+             cb.greaterThan(value, lastValue),
+             cb.and(cb.equal(value, lastValue), cb.greaterThan(id, lastId)));
+   }
+
+   // (value, id) < (lastValue, lastId)
+   @SuppressWarnings({"unchecked", "rawtypes"})
+   private Predicate before(CriteriaBuilder cb, Path<Comparable> value, Path<Long> id, Comparable lastValue, Long lastId) {
+      if (lastValue == null) {
+         return cb.and(cb.isNull(value), cb.lessThan(id, lastId));
+      }
+      return cb.or(
+             cb.lessThan(value, lastValue),
+             cb.and(cb.equal(value, lastValue), cb.lessThan(id, lastId)),
+             cb.isNull(value));
+   }
+
+}
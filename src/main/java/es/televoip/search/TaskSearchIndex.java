@@ -0,0 +1,228 @@
+package es.televoip.search;
+
+import es.televoip.datasource.ReadFromPrimary;
+import es.televoip.model.dto.TaskDto;
+import es.televoip.repository.TaskRepository;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Índice invertido en memoria sobre el título y la descripción de las tareas, para que las búsquedas por texto no
+ * recorran la tabla completa con LIKE '%texto%'.
+ *
+ * Cada palabra (analizada con {@link TaskTextAnalyzer}) apunta a las tareas que la contienen con un peso (las palabras
+ * del título pesan más que las de la descripción). Una búsqueda exige que cada palabra de la consulta sea el principio
+ * de alguna palabra de la tarea y ordena el resultado por relevancia (peso × rareza de la palabra).
+ *
+ * Una consulta sin palabras (vacía o solo con signos) no se resuelve con el índice: {@link #canSearch(String)} devuelve
+ * 'false' y el servicio consulta la base de datos, donde un texto vacío o en blanco devuelve todas las tareas.
+ *
+ * El índice se construye al arrancar la aplicación y se mantiene con las escrituras de TaskServiceImpl, que se aplican
+ * tras el commit. Mientras no está listo, {@link #isReady()} devuelve 'false' y el servicio consulta la base de datos.
+ * Es local a cada instancia de la aplicación.
+ */
+@Slf4j
+@Component
+public class TaskSearchIndex {
+
+   private static final int TITLE_WEIGHT = 3;
+   private static final int DESCRIPTION_WEIGHT = 1;
+   private static final double PREFIX_FACTOR = 0.5; // una coincidencia por prefijo puntúa menos que la palabra exacta
+
+   private final TaskRepository repository;
+
+   private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+   // palabra -> (ID de tarea -> peso); ordenado para buscar por prefijo
+   private final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+
+   // ID de tarea -> palabras indexadas, para poder retirarla
+   private final Map<Long, Set<String>> documents = new HashMap<>();
+
+   // tareas modificadas mientras se construye el índice: la carga inicial no debe sobrescribirlas
+   private Set<Long> changedDuringBuild;
+
+   private volatile boolean ready;
+
+   public TaskSearchIndex(TaskRepository repository) {
+      this.repository = repository;
+   }
+
+   @EventListener(ApplicationReadyEvent.class)
+   @ReadFromPrimary // la réplica podría no tener aún las últimas tareas
+   public void rebuild() {
+      lock.writeLock().lock();
+      try {
+         ready = false;
+         postings.clear();
+         documents.clear();
+         changedDuringBuild = new HashSet<>();
+      } finally {
+         lock.writeLock().unlock();
+      }
+
+      long start = System.nanoTime();
+      List<TaskRepository.TaskText> texts = repository.findAllProjectedBy();
+
+      lock.writeLock().lock();
+      try {
+         texts.stream()
+                .filter(text -> !changedDuringBuild.contains(text.getId()))
+                .forEach(text -> put(text.getId(), text.getTitle(), text.getDescription()));
+         changedDuringBuild = null;
+         ready = true;
+         log.info("Task search index built: {} tasks, {} terms in {} ms",
+                documents.size(), postings.size(), (System.nanoTime() - start) / 1_000_000);
+      } finally {
+         lock.writeLock().unlock();
+      }
+   }
+
+   public boolean isReady() {
+      return ready;
+   }
+
+   /**
+    * Indica si la consulta se puede resolver con el índice: está listo y la consulta tiene alguna palabra.
+    */
+   public boolean canSearch(String query) {
+      return ready && !TaskTextAnalyzer.tokens(query).isEmpty();
+   }
+
+   public void index(TaskDto task) {
+      indexAll(Collections.singletonList(task));
+   }
+
+   public void indexAll(Collection<TaskDto> tasks) {
+      List<TaskDto> copy = tasks.stream().filter(Objects::nonNull).toList();
+      afterCommit(() -> {
+         lock.writeLock().lock();
+         try {
+            copy.forEach(task -> {
+               markChanged(task.getId());
+               put(task.getId(), task.getTitle(), task.getDescription());
+            });
+         } finally {
+            lock.writeLock().unlock();
+         }
+      });
+   }
+
+   public void remove(Long id) {
+      afterCommit(() -> {
+         lock.writeLock().lock();
+         try {
+            markChanged(id);
+            delete(id);
+         } finally {
+            lock.writeLock().unlock();
+         }
+      });
+   }
+
+   /**
+    * Busca las tareas cuyo título o descripción contienen palabras que empiezan por cada palabra de la consulta.
+    *
+    * @return los ID de las tareas, de mayor a menor relevancia
+    */
+   public List<Long> search(String query) {
+      List<String> queryTokens = TaskTextAnalyzer.tokens(query).stream().distinct().toList();
+      if (queryTokens.isEmpty()) {
+         return List.of();
+      }
+
+      lock.readLock().lock();
+      try {
+         Map<Long, Double> scores = null;
+         for (String queryToken : queryTokens) {
+            Map<Long, Double> tokenScores = score(queryToken);
+            if (scores == null) {
+               scores = tokenScores;
+            } else {
+               scores.keySet().retainAll(tokenScores.keySet()); // todas las palabras de la consulta deben aparecer
+               scores.replaceAll((id, score) -> score + tokenScores.get(id));
+            }
+            if (scores.isEmpty()) {
+               return List.of();
+            }
+         }
+         return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+      } finally {
+         lock.readLock().unlock();
+      }
+   }
+
+   private Map<Long, Double> score(String queryToken) {
+      Map<Long, Double> scores = new HashMap<>();
+      int totalDocuments = Math.max(documents.size(), 1);
+      postings.subMap(queryToken, true, queryToken + Character.MAX_VALUE, true).forEach((term, posting) -> {
+         double idf = Math.log(1 + (double) totalDocuments / posting.size());
+         double factor = term.equals(queryToken) ? 1 : PREFIX_FACTOR;
+         posting.forEach((id, weight) -> scores.merge(id, weight * idf * factor, Double::sum));
+      });
+      return scores;
+   }
+
+   // se llama con el bloqueo de escritura
+   private void put(Long id, String title, String description) {
+      delete(id);
+      Map<String, Integer> weights = new HashMap<>();
+      TaskTextAnalyzer.tokens(title).forEach(token -> weights.merge(token, TITLE_WEIGHT, Integer::sum));
+      TaskTextAnalyzer.tokens(description).forEach(token -> weights.merge(token, DESCRIPTION_WEIGHT, Integer::sum));
+      weights.forEach((token, weight) -> postings.computeIfAbsent(token, key -> new HashMap<>()).put(id, weight));
+      documents.put(id, weights.keySet());
+   }
+
+   // se llama con el bloqueo de escritura
+   private void delete(Long id) {
+      Set<String> tokens = documents.remove(id);
+      if (tokens == null) {
+         return;
+      }
+      tokens.forEach(token -> {
+         Map<Long, Integer> posting = postings.get(token);
+         posting.remove(id);
+         if (posting.isEmpty()) {
+            postings.remove(token);
+         }
+      });
+   }
+
+   private void markChanged(Long id) {
+      if (changedDuringBuild != null) {
+         changedDuringBuild.add(id);
+      }
+   }
+
+   private void afterCommit(Runnable action) {
+      if (TransactionSynchronizationManager.isSynchronizationActive()) {
+         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+               action.run();
+            }
+         });
+      } else {
+         action.run();
+      }
+   }
+
+}
@@ -0,0 +1,52 @@
+package es.televoip.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Analizador de texto del índice de búsqueda: separa el texto en palabras, lo pasa a minúsculas y elimina los acentos
+ * y la diéresis (canción → cancion, pingüino → pinguino), de modo que las búsquedas en español no dependan de ellos.
+ */
+public final class TaskTextAnalyzer {
+
+   private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+   private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+   private TaskTextAnalyzer() {
+   }
+
+   public static List<String> tokens(String text) {
+      List<String> tokens = new ArrayList<>();
+      if (text == null || text.isBlank()) {
+         return tokens;
+      }
+      String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+      for (String token : SEPARATORS.split(folded.toLowerCase(Locale.ROOT))) {
+         if (!token.isEmpty()) {
+            tokens.add(token);
+         }
+      }
+      return tokens;
+   }
+
+   /**
+    * Indica si un texto cumple la consulta con la misma regla que el índice: cada palabra de la consulta es el
+    * principio de alguna palabra del texto.
+    */
+   public static boolean matches(String query, String... texts) {
+      List<String> queryTokens = tokens(query);
+      if (queryTokens.isEmpty()) {
+         return false;
+      }
+      List<String> textTokens = new ArrayList<>();
+      for (String text : texts) {
+         textTokens.addAll(tokens(text));
+      }
+      return queryTokens.stream()
+             .allMatch(queryToken -> textTokens.stream().anyMatch(token -> token.startsWith(queryToken)));
+   }
+
+}
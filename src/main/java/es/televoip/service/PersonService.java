@@ -3,19 +3,37 @@ package es.televoip.service;
 import es.televoip.model.dto.PersonDto;
 import es.televoip.model.enums.SortFieldPerson;
 import jakarta.validation.Valid;
+import java.io.InputStream;
 import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 
+/**
+ * Los listados (getAllPersons, getPersonsPaged, getPersonsSliced, getPersonsSorted*, getPersonsByFilter*) son
+ * resúmenes: devuelven cada persona con 'tasks' a null, sin leer sus tareas ni la foto de perfil. Las tareas se
+ * obtienen con getPersonById o con los listados *WithTasks, y su número con los listados *WithTaskCount.
+ */
 public interface PersonService {
 
    PersonDto getPersonById(Long id);
 
+   // resumen: 'tasks' a null
    List<PersonDto> getAllPersons();
 
    Page<PersonDto> getPersonsPaged(Pageable page);
 
+   Slice<PersonDto> getPersonsSliced(Pageable page);
+
+   List<PersonDto> getAllPersonsWithTasks();
+
+   Page<PersonDto> getPersonsWithTasksPaged(Pageable page);
+
+   List<PersonDto> getPersonsWithTaskCount();
+
+   Page<PersonDto> getPersonsWithTaskCountPaged(Pageable page);
+
    List<PersonDto> getPersonsSorted(SortFieldPerson sortBy, Sort.Direction sortOrder);
 
    Page<PersonDto> getPersonsSortedAndPaged(SortFieldPerson sortBy, Sort.Direction sortOrder, Pageable pageable);
@@ -24,6 +42,8 @@ public interface PersonService {
 
    Page<PersonDto> getPersonsByFilterPageable(String filter, Pageable page);
 
+   Slice<PersonDto> getPersonsByFilterSliced(String filter, Pageable page);
+
    PersonDto getPersonByDni(String dni);
 
    PersonDto getPersonByEmail(String email);
@@ -36,6 +56,8 @@ public interface PersonService {
 
    PersonDto updatePerson(Long id, @Valid PersonDto personDto);
 
+   PersonDto updateProfilePicture(Long id, InputStream picture);
+
    void deletePersonById(Long id);
 
 }
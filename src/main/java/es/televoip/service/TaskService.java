@@ -1,13 +1,18 @@
 package es.televoip.service;
 
+import es.televoip.model.dto.CursorPage;
+import es.televoip.model.dto.TaskBulkUpdate;
+import es.televoip.model.dto.TaskBulkUpdateResult;
 import es.televoip.model.dto.TaskDto;
 import es.televoip.model.enums.SortFieldTask;
 import es.televoip.model.enums.TaskStatus;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 
 public interface TaskService {
@@ -18,14 +23,32 @@ public interface TaskService {
 
    Page<TaskDto> getTasksPaged(Pageable page);
 
+   Slice<TaskDto> getTasksSliced(Pageable page);
+
    List<TaskDto> getTasksSorted(SortFieldTask sortBy, Sort.Direction sortOrder);
 
    Page<TaskDto> getTasksSortedAndPaged(SortFieldTask sortBy, Sort.Direction sortOrder, Pageable pageable);
 
+   /**
+    * Recorre todas las tareas en orden de ID y entrega cada una a 'sink' sin acumularlas en memoria.
+    *
+    * @return número de tareas entregadas
+    */
+   long exportTasks(Consumer<TaskDto> sink);
+
+   CursorPage<TaskDto> getTasksByCursor(SortFieldTask sortBy, Sort.Direction sortOrder, String cursor, int size);
+
+   /**
+    * Busca las tareas en las que cada palabra de 'filter' es el principio de alguna palabra del título o de la
+    * descripción (mirar TaskSearchIndex), por relevancia. Un texto sin palabras se busca con LIKE y, si está vacío o en
+    * blanco, devuelve todas las tareas.
+    */
    List<TaskDto> getTasksByFilter(String filter);
 
    Page<TaskDto> getTasksByFilterPageable(String filter, Pageable page);
 
+   Slice<TaskDto> getTasksByFilterSliced(String filter, Pageable page);
+
    List<TaskDto> getTasksByTitleContaining(String title);
 
    List<TaskDto> getTasksByTaskStatus(TaskStatus status);
@@ -36,15 +59,17 @@ public interface TaskService {
 
    List<TaskDto> saveAllTasks(List<TaskDto> taskDtos);
 
-   TaskDto updateTask(Long id, @Valid TaskDto taskDto);
+   TaskDto updateTask(Long id, @Valid TaskDto taskDto, Long expectedVersion);
+
+   TaskDto updateTaskDateOfFinished(Long id, LocalDateTime newDateOfFinished, Long expectedVersion);
 
-   TaskDto updateTaskDateOfFinished(Long id, LocalDateTime newDateOfFinished);
+   TaskDto updateTaskStatus(Long id, TaskStatus taskStatus, Long expectedVersion);
 
-   TaskDto updateTaskStatus(Long id, TaskStatus taskStatus);
+   TaskDto updateTaskIsCompleted(Long id, Boolean isCompleted, Long expectedVersion);
 
-   TaskDto updateTaskIsCompleted(Long id, Boolean isCompleted);
+   TaskDto markTaskAsCompleted(Long id, Long expectedVersion);
 
-   TaskDto markTaskAsCompleted(Long id);
+   TaskBulkUpdateResult updateTasksInBulk(TaskBulkUpdate update);
 
    void deleteTaskById(Long id);
 
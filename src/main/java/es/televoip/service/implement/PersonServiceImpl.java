@@ -1,6 +1,8 @@
 package es.televoip.service.implement;
 
 import es.televoip.aspects.LogExecutionTime;
+import es.televoip.cache.CacheKeyGenerator;
+import es.televoip.cache.PersonCacheInvalidator;
 import es.televoip.exceptions.DataException;
 import es.televoip.model.Person;
 import es.televoip.model.dto.PersonDto;
@@ -8,16 +10,22 @@ import es.televoip.model.enums.SortFieldPerson;
 import es.televoip.model.mapper.PersonMapper;
 import es.televoip.repository.PersonRepository;
 import es.televoip.service.PersonService;
+import es.televoip.storage.ProfilePictureStore;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -28,6 +36,7 @@ import org.springframework.validation.annotation.Validated;
 @Slf4j // nos permite enviar texto a la consola mediante "log"
 @Service
 @Transactional
+@CacheConfig(keyGenerator = CacheKeyGenerator.NAME) // claves tipadas: método + argumentos normalizados
 public class PersonServiceImpl implements PersonService {
 // public class PersonServiceImpl extends BaseService<Person, Long, PersonDto> implements PersonService {
 
@@ -35,13 +44,21 @@ public class PersonServiceImpl implements PersonService {
 
    private PersonMapper mapper;
 
-   public PersonServiceImpl(PersonRepository repository, PersonMapper mapper) {
+   private PersonCacheInvalidator cacheInvalidator;
+
+   private ProfilePictureStore pictureStore;
+
+   public PersonServiceImpl(PersonRepository repository, PersonMapper mapper, PersonCacheInvalidator cacheInvalidator,
+          ProfilePictureStore pictureStore) {
       this.mapper = mapper;
       this.repository = repository;
+      this.cacheInvalidator = cacheInvalidator;
+      this.pictureStore = pictureStore;
    }
 
    @LogExecutionTime // medimos el tiempo de ejecución
    @Cacheable("cacheOnePerson")
+   @Transactional(readOnly = true)
    @Override
    public PersonDto getPersonById(Long id) {
       try {
@@ -62,11 +79,12 @@ public class PersonServiceImpl implements PersonService {
 
    @LogExecutionTime // medimos el tiempo de ejecución
    @Cacheable("cacheManyPersons")
+   @Transactional(readOnly = true)
    @Override
    public List<PersonDto> getAllPersons() {
       try {
-         List<Person> list = repository.findAll();
-         return convertToDtoList(list);
+         // proyección directa a DTO: las tareas no se leen para un listado
+         return repository.findAllAsDto(Sort.unsorted());
 
       } catch (DataException ex) {
          throw ex;
@@ -77,12 +95,94 @@ public class PersonServiceImpl implements PersonService {
 
    @LogExecutionTime // medimos el tiempo de ejecución
    @Cacheable("cacheManyPersons")
+   @Transactional(readOnly = true)
    @Override
    public Page<PersonDto> getPersonsPaged(Pageable page) {
       try {
-         Page<Person> pageE = repository.findAll(page);
-         return pageE // se utiliza map directamente con 'taskPage' para convertirla en una página de DTO.
-                .map(entity -> mapper.toDto(entity));
+         return repository.findPageAsDto(page);
+
+      } catch (DataException ex) {
+         throw ex;
+      } catch (Exception ex) {
+         throw new DataException(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
+      }
+   }
+
+   @LogExecutionTime // medimos el tiempo de ejecución
+   @Cacheable("cacheManyPersons")
+   @Transactional(readOnly = true)
+   @Override
+   public Slice<PersonDto> getPersonsSliced(Pageable page) {
+      try {
+         // Slice solo indica si hay página siguiente: nos ahorramos la consulta COUNT de Page
+         return repository.findSliceAsDto(page);
+
+      } catch (DataException ex) {
+         throw ex;
+      } catch (Exception ex) {
+         throw new DataException(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
+      }
+   }
+
+   // Los listados con tareas o con su número no se cachean: las tareas cambian desde TaskService, que no desaloja
+   // 'cacheManyPersons'
+   @LogExecutionTime // medimos el tiempo de ejecución
+   @Transactional(readOnly = true)
+   @Override
+   public List<PersonDto> getAllPersonsWithTasks() {
+      try {
+         // una sola consulta con las tareas (entity graph), en lugar de una consulta más por persona al convertir a DTO
+         return convertToDtoList(repository.findAllWithTasks(Sort.unsorted()));
+
+      } catch (DataException ex) {
+         throw ex;
+      } catch (Exception ex) {
+         throw new DataException(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
+      }
+   }
+
+   @LogExecutionTime // medimos el tiempo de ejecución
+   @Transactional(readOnly = true)
+   @Override
+   public Page<PersonDto> getPersonsWithTasksPaged(Pageable page) {
+      try {
+         // página de ID (y COUNT) y después esas personas con sus tareas: tres consultas sea cual sea el tamaño de página
+         Page<Long> ids = repository.findPageOfIds(page);
+         if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), page, ids.getTotalElements());
+         }
+         Map<Long, Person> persons = repository.findAllWithTasksByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(Person::getId, Function.identity()));
+         return ids.map(id -> mapper.toDto(persons.get(id))); // en el orden de la página
+
+      } catch (DataException ex) {
+         throw ex;
+      } catch (Exception ex) {
+         throw new DataException(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
+      }
+   }
+
+   @LogExecutionTime // medimos el tiempo de ejecución
+   @Transactional(readOnly = true)
+   @Override
+   public List<PersonDto> getPersonsWithTaskCount() {
+      try {
+         // resumen: el número de tareas de cada persona con un único GROUP BY, sin leer las tareas
+         return repository.findAllWithTaskCount(Sort.unsorted());
+
+      } catch (DataException ex) {
+         throw ex;
+      } catch (Exception ex) {
+         throw new DataException(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
+      }
+   }
+
+   @LogExecutionTime // medimos el tiempo de ejecución
+   @Transactional(readOnly = true)
+   @Override
+   public Page<PersonDto> getPersonsWithTaskCountPaged(Pageable page) {
+      try {
+         return repository.findPageWithTaskCount(page);
 
       } catch (DataException ex) {
          throw ex;
@@ -93,13 +193,13 @@ public class PersonServiceImpl implements PersonService {
 
    @LogExecutionTime // medimos el tiempo de ejecución
    @Cacheable("cacheManyPersons")
+   @Transactional(readOnly = true)
    @Override
    public List<PersonDto> getPersonsSorted(SortFieldPerson sortBy, Sort.Direction sortOrder) {
       try {
 
          Sort sort = Sort.by(new Sort.Order(sortOrder, sortBy.getFieldName()));
-         List<Person> list = repository.findAll(sort);
-         return convertToDtoList(list);
+         return repository.findAllAsDto(sort);
 
       } catch (DataException ex) {
          throw ex;
@@ -110,6 +210,7 @@ public class PersonServiceImpl implements PersonService {
 
    @LogExecutionTime // medimos el tiempo de ejecución
    @Cacheable("cacheManyPersons")
+   @Transactional(readOnly = true)
    @Override
    public Page<PersonDto> getPersonsSortedAndPaged(SortFieldPerson sortBy, Sort.Direction sortOrder, Pageable pageable) {
       try {
@@ -117,9 +218,7 @@ public class PersonServiceImpl implements PersonService {
          Sort sort = Sort.by(new Sort.Order(sortOrder, sortBy.getFieldName()));
          pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
 
-         Page<Person> pageE = repository.findAll(pageable);
-         return pageE // se utiliza map directamente para convertirla en una página de DTO.
-                .map(entity -> mapper.toDto(entity));
+         return repository.findPageAsDto(pageable);
 
       } catch (DataException ex) {
          throw ex;
@@ -130,15 +229,12 @@ public class PersonServiceImpl implements PersonService {
 
    @LogExecutionTime // medimos el tiempo de ejecución
    @Cacheable("cacheManyPersons")
+   @Transactional(readOnly = true)
    @Override
    public List<PersonDto> getPersonsByFilter(String filter) {
       try {
          // Realizamos una consulta a la base de datos para obtener las tareas que coincidan con el filtro
-         List<Person> persons = repository.findByFirstNameContainingOrLastNameContainingOrEmailContainingOrDniContainingAllIgnoreCase(
-                filter, filter, filter, filter);
-
-         // Convertimos las entidades a DTOs
-         return convertToDtoList(persons);
+         return repository.findAllAsDtoByFilter(filter);
 
       } catch (DataException ex) {
          throw ex;
@@ -149,15 +245,28 @@ public class PersonServiceImpl implements PersonService {
 
    @LogExecutionTime // medimos el tiempo de ejecución
    @Cacheable("cacheManyPersons")
+   @Transactional(readOnly = true)
    @Override
    public Page<PersonDto> getPersonsByFilterPageable(String filter, Pageable page) {
       try {
          // Realizamos una consulta a la base de datos para obtener las tareas que coincidan con el filtro
-         Page<Person> persons = repository.findByFirstNameContainingOrLastNameContainingOrEmailContainingOrDniContainingAllIgnoreCase(
-                filter, filter, filter, filter, page);
+         return repository.findPageAsDtoByFilter(filter, page);
+
+      } catch (DataException ex) {
+         throw ex;
+      } catch (Exception ex) {
+         throw new DataException(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
+      }
+   }
 
-         // Convertimos las entidades a DTOs
-         return persons.map(entity -> mapper.toDto(entity));
+   @LogExecutionTime // medimos el tiempo de ejecución
+   @Cacheable("cacheManyPersons")
+   @Transactional(readOnly = true)
+   @Override
+   public Slice<PersonDto> getPersonsByFilterSliced(String filter, Pageable page) {
+      try {
+         // Misma consulta que getPersonsByFilterPageable, sin el COUNT de los cuatro LIKE
+         return repository.findSliceAsDtoByFilter(filter, page);
 
       } catch (DataException ex) {
          throw ex;
@@ -168,6 +277,7 @@ public class PersonServiceImpl implements PersonService {
 
    @LogExecutionTime // medimos el tiempo de ejecución
    @Cacheable("cacheOnePerson")
+   @Transactional(readOnly = true)
    @Override
    public PersonDto getPersonByDni(String dni) {
       try {
@@ -188,6 +298,7 @@ public class PersonServiceImpl implements PersonService {
 
    @LogExecutionTime // medimos el tiempo de ejecución
    @Cacheable("cacheOnePerson")
+   @Transactional(readOnly = true)
    @Override
    public PersonDto getPersonByEmail(String email) {
       try {
@@ -208,6 +319,7 @@ public class PersonServiceImpl implements PersonService {
 
    @LogExecutionTime // medimos el tiempo de ejecución
    @Cacheable("cacheOnePerson")
+   @Transactional(readOnly = true)
    @Override
    public PersonDto getPersonByUserAccessUserName(String username) {
       try {
@@ -226,9 +338,7 @@ public class PersonServiceImpl implements PersonService {
       }
    }
 
-   @Caching(evict = {
-      @CacheEvict(value = "PersonOneTask", allEntries = true),
-      @CacheEvict(value = "PersonManyTasks", allEntries = true)})
+   @CacheEvict(value = "cacheManyPersons", allEntries = true) // 'cacheOnePerson' se desaloja por clave exacta
    @Override
    public PersonDto savePerson(PersonDto personDto) {
       try {
@@ -236,6 +346,7 @@ public class PersonServiceImpl implements PersonService {
          Person entity = mapper.toEntity(personDto);
          // Grabamos en la base de datos
          Person savedEntity = repository.save(entity);
+         cacheInvalidator.personChanged(savedEntity);
          // devolvermos el objeto Dto
          return mapper.toDto(savedEntity);
 
@@ -246,9 +357,7 @@ public class PersonServiceImpl implements PersonService {
       }
    }
 
-   @Caching(evict = {
-      @CacheEvict(value = "PersonOneTask", allEntries = true),
-      @CacheEvict(value = "PersonManyTasks", allEntries = true)})
+   @CacheEvict(value = "cacheManyPersons", allEntries = true) // 'cacheOnePerson' se desaloja por clave exacta
    @Override
    public List<PersonDto> saveAllPersons(List<PersonDto> personDtos) {
       try {
@@ -262,6 +371,7 @@ public class PersonServiceImpl implements PersonService {
                 .collect(Collectors.toList()); // crea una lista de objetos
 
          List<Person> listE = repository.saveAll(list);
+         listE.forEach(cacheInvalidator::personChanged);
          return convertToDtoList(listE);
 
       } catch (DataException ex) {
@@ -271,18 +381,19 @@ public class PersonServiceImpl implements PersonService {
       }
    }
 
-   @Caching(evict = {
-      @CacheEvict(value = "PersonOneTask", allEntries = true),
-      @CacheEvict(value = "PersonManyTasks", allEntries = true)})
+   @CacheEvict(value = "cacheManyPersons", allEntries = true) // 'cacheOnePerson' se desaloja por clave exacta
    @Override
    public PersonDto updatePerson(Long id, PersonDto personDto) {
       try {
-         repository.findById(id)
+         Person existingPerson = repository.findById(id)
                 .orElseThrow(() -> new DataException(HttpStatus.NOT_FOUND, "PERSON_ID_NOT_FOUND: " + id));
+         cacheInvalidator.personChanged(existingPerson); // claves con los valores anteriores (DNI, email...)
 
          Person entity = mapper.toEntity(personDto);
          entity.setId(id); // Asegurar que el ID se mantenga igual
+         entity.setVersion(existingPerson.getVersion()); // sobrescribe la versión actual: el 'merge' no falla
          repository.save(entity);
+         cacheInvalidator.personChanged(entity); // claves con los valores nuevos
          return mapper.toDto(entity);
 
       } catch (DataException ex) { // Lo pongo antes del Exception final para poder capturar mis excepciones
@@ -292,12 +403,33 @@ public class PersonServiceImpl implements PersonService {
       }
    }
 
-   @Caching(evict = {
-      @CacheEvict(value = "PersonOneTask", allEntries = true),
-      @CacheEvict(value = "PersonManyTasks", allEntries = true)})
+   @CacheEvict(value = "cacheManyPersons", allEntries = true) // 'cacheOnePerson' se desaloja por clave exacta
+   @Override
+   public PersonDto updateProfilePicture(Long id, InputStream picture) {
+      try {
+         Person person = repository.findById(id)
+                .orElseThrow(() -> new DataException(HttpStatus.NOT_FOUND, "PERSON_ID_NOT_FOUND: " + id));
+         if (person.getUserAccess() == null) {
+            throw new DataException(HttpStatus.BAD_REQUEST, "USER_ACCESS_IS_NULL: " + id);
+         }
+
+         // la imagen va al almacén de fotos; la fila solo guarda su referencia
+         person.getUserAccess().setProfilePictureId(pictureStore.store(picture));
+         cacheInvalidator.personChanged(person);
+         return mapper.toDto(person);
+
+      } catch (DataException ex) {
+         throw ex;
+      } catch (Exception ex) {
+         throw new DataException(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
+      }
+   }
+
+   @CacheEvict(value = "cacheManyPersons", allEntries = true) // 'cacheOnePerson' se desaloja por clave exacta
    @Override
    public void deletePersonById(Long id) {
       try {
+         repository.findById(id).ifPresent(cacheInvalidator::personChanged);
          repository.deleteById(id);
       } catch (DataException ex) {
          throw ex;
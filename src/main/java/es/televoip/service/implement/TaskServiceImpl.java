@@ -1,28 +1,55 @@
 package es.televoip.service.implement;
 
 import es.televoip.aspects.LogExecutionTime;
+import es.televoip.cache.CacheKeyGenerator;
+import es.televoip.cache.TaskCacheInvalidator;
 import es.televoip.constant.TaskConstant;
 import es.televoip.exceptions.DataException;
 import es.televoip.model.Task;
+import es.televoip.model.dto.CursorPage;
+import es.televoip.model.dto.TaskBulkUpdate;
+import es.televoip.model.dto.TaskBulkUpdateResult;
+import es.televoip.model.dto.TaskCursor;
 import es.televoip.model.dto.TaskDto;
 import es.televoip.model.enums.SortFieldTask;
 import es.televoip.model.enums.TaskStatus;
 import es.televoip.model.mapper.TaskMapper;
 import es.televoip.repository.TaskRepository;
+import es.televoip.search.TaskSearchIndex;
 import es.televoip.service.TaskService;
+import es.televoip.statistics.TaskStatistics;
+import es.televoip.statistics.TaskStatisticsGroup;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.annotation.Validated;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.auditing.DateTimeProvider;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.transaction.annotation.Transactional;
@@ -31,20 +58,44 @@ import org.springframework.transaction.annotation.Transactional;
 @Slf4j // nos permite enviar texto a la consola mediante "log"
 @Service
 @Transactional
+@CacheConfig(keyGenerator = CacheKeyGenerator.NAME) // claves tipadas: método + argumentos normalizados
 public class TaskServiceImpl implements TaskService {
 // public class TaskServiceImpl extends BaseService<Task, Long, TaskDto> implements TaskService {
 
+   private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+
+   private static final int EXPORT_CLEAR_INTERVAL = 500; // filas exportadas entre dos vaciados de la sesión
+
+   private static final int BULK_UPDATE_CHUNK_SIZE = 1000; // ID por sentencia UPDATE (tamaño de la lista IN)
+
    private TaskRepository repository;
 
    private TaskMapper mapper;
 
-   public TaskServiceImpl(TaskRepository repository, TaskMapper mapper) {
+   private TaskCacheInvalidator cacheInvalidator;
+
+   private TaskSearchIndex searchIndex;
+
+   private TaskStatistics statistics;
+
+   private DateTimeProvider dateTimeProvider;
+
+   @PersistenceContext
+   private EntityManager entityManager;
+
+   public TaskServiceImpl(TaskRepository repository, TaskMapper mapper, TaskCacheInvalidator cacheInvalidator,
+          TaskSearchIndex searchIndex, TaskStatistics statistics, DateTimeProvider dateTimeProvider) {
       this.mapper = mapper;
       this.repository = repository;
+      this.cacheInvalidator = cacheInvalidator;
+      this.searchIndex = searchIndex;
+      this.statistics = statistics;
+      this.dateTimeProvider = dateTimeProvider;
    }
 
    @LogExecutionTime // medimos el tiempo de ejecución
-   @Cacheable("cacheOneTask")
+   @Cacheable(value = "cacheOneTask", key = "#id")
+   @Transactional(readOnly = true)
    @Override
    public TaskDto getTaskById(Long id) {
       try {
@@ -65,11 +116,12 @@ public class TaskServiceImpl implements TaskService {
 
    @LogExecutionTime // medimos el tiempo de ejecución
    @Cacheable("cacheManyTasks")
+   @Transactional(readOnly = true)
    @Override
    public List<TaskDto> getAllTasks() {
       try {
-         List<Task> list = repository.findAll();
-         return convertToDtoList(list);
+         // Proyección directa a DTO: no cargamos entidades en el contexto de persistencia ni usamos el mapper
+         return repository.findAllAsDto();
 
       } catch (DataException ex) {
          throw ex;
@@ -80,6 +132,7 @@ public class TaskServiceImpl implements TaskService {
 
    @LogExecutionTime // medimos el tiempo de ejecución
    @Cacheable("cacheManyTasks")
+   @Transactional(readOnly = true)
    @Override
    public Page<TaskDto> getTasksPaged(Pageable page) {
       try {
@@ -96,6 +149,24 @@ public class TaskServiceImpl implements TaskService {
 
    @LogExecutionTime // medimos el tiempo de ejecución
    @Cacheable("cacheManyTasks")
+   @Transactional(readOnly = true)
+   @Override
+   public Slice<TaskDto> getTasksSliced(Pageable page) {
+      try {
+         // Slice solo indica si hay página siguiente: nos ahorramos la consulta COUNT de Page
+         Slice<Task> sliceE = repository.findSliceBy(page);
+         return sliceE.map(entity -> mapper.toDto(entity));
+
+      } catch (DataException ex) {
+         throw ex;
+      } catch (Exception ex) {
+         throw new DataException(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
+      }
+   }
+
+   @LogExecutionTime // medimos el tiempo de ejecución
+   @Cacheable("cacheManyTasks")
+   @Transactional(readOnly = true)
    @Override
    public List<TaskDto> getTasksSorted(SortFieldTask sortBy, Sort.Direction sortOrder) {
       try {
@@ -113,6 +184,7 @@ public class TaskServiceImpl implements TaskService {
 
    @LogExecutionTime // medimos el tiempo de ejecución
    @Cacheable("cacheManyTasks")
+   @Transactional(readOnly = true)
    @Override
    public Page<TaskDto> getTasksSortedAndPaged(SortFieldTask sortBy, Sort.Direction sortOrder, Pageable pageable) {
       try {
@@ -132,16 +204,74 @@ public class TaskServiceImpl implements TaskService {
    }
 
    @LogExecutionTime // medimos el tiempo de ejecución
-   @Cacheable("cacheManyTasks")
+   @Transactional(readOnly = true)
+   @Override
+   public long exportTasks(Consumer<TaskDto> sink) {
+      // sin caché: el resultado es la tabla completa y se escribe a medida que se lee
+      try (Stream<Task> tasks = repository.streamAllByOrderById()) {
+         long count = 0;
+         for (Iterator<Task> iterator = tasks.iterator(); iterator.hasNext();) {
+            sink.accept(mapper.toDto(iterator.next()));
+            if (++count % EXPORT_CLEAR_INTERVAL == 0) {
+               entityManager.clear(); // las tareas ya exportadas dejan de ocupar el contexto de persistencia
+            }
+         }
+         return count;
+
+      } catch (DataException | UncheckedIOException ex) {
+         throw ex; // UncheckedIOException: el cliente ha cerrado la conexión
+      } catch (Exception ex) {
+         throw new DataException(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
+      }
+   }
+
+   // No se cachea: cada cursor es una clave distinta y la consulta ya cuesta lo mismo en cualquier página
+   @LogExecutionTime // medimos el tiempo de ejecución
+   @Transactional(readOnly = true)
+   @Override
+   public CursorPage<TaskDto> getTasksByCursor(SortFieldTask sortBy, Sort.Direction sortOrder, String cursor, int size) {
+      try {
+         if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new DataException(HttpStatus.BAD_REQUEST, "TASK_PAGE_SIZE_NOT_VALID: " + size);
+         }
+
+         TaskCursor after = cursor != null && !cursor.isBlank() ? TaskCursor.decode(cursor) : null;
+         if (after != null && (after.sortBy() != sortBy || after.direction() != sortOrder)) {
+            throw new DataException(HttpStatus.BAD_REQUEST, "TASK_CURSOR_NOT_VALID: " + cursor);
+         }
+
+         // pedimos una tarea más para saber si hay página siguiente sin contar el total
+         List<Task> list = repository.findAllAfter(sortBy, sortOrder,
+                after != null ? after.value() : null, after != null ? after.id() : null, size + 1);
+         boolean hasNext = list.size() > size;
+         List<Task> content = hasNext ? list.subList(0, size) : list;
+
+         String nextCursor = hasNext ? TaskCursor.of(sortBy, sortOrder, content.get(size - 1)).encode() : null;
+         return new CursorPage<>(convertToDtoList(content), nextCursor, hasNext);
+
+      } catch (DataException ex) {
+         throw ex;
+      } catch (IllegalArgumentException ex) {
+         throw new DataException(HttpStatus.BAD_REQUEST, "TASK_CURSOR_NOT_VALID: " + cursor);
+      } catch (Exception ex) {
+         throw new DataException(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
+      }
+   }
+
+   @LogExecutionTime // medimos el tiempo de ejecución
+   @Cacheable(cacheNames = "cacheManyTasks", condition = "@taskSearchIndex.isReady()") // sin índice no se cachea
+   @Transactional(readOnly = true)
    @Override
    public List<TaskDto> getTasksByFilter(String filter) {
       try {
-         // Realizamos una consulta a la base de datos para obtener las tareas que coincidan con el filtro
-         List<Task> tasks = repository.findByTitleContainingOrDescriptionContainingAllIgnoreCase(
-                filter, filter);
+         if (!searchIndex.canSearch(filter)) {
+            // Mientras se construye el índice, o si el texto no tiene palabras, consultamos la base de datos
+            return convertToDtoList(repository.findByTitleContainingOrDescriptionContainingAllIgnoreCase(
+                   likeText(filter), likeText(filter)));
+         }
 
-         // Convertimos las entidades a DTOs
-         return convertToDtoList(tasks);
+         // Buscamos en el índice de texto y leemos solo las tareas encontradas, por orden de relevancia
+         return convertToDtoList(findAllByIdInOrder(searchIndex.search(filter)));
 
       } catch (DataException ex) {
          throw ex;
@@ -151,16 +281,62 @@ public class TaskServiceImpl implements TaskService {
    }
 
    @LogExecutionTime // medimos el tiempo de ejecución
-   @Cacheable("cacheManyTasks")
+   @Cacheable(cacheNames = "cacheManyTasks", condition = "@taskSearchIndex.isReady()") // sin índice no se cachea
+   @Transactional(readOnly = true)
    @Override
    public Page<TaskDto> getTasksByFilterPageable(String filter, Pageable page) {
       try {
-         // Realizamos una consulta a la base de datos para obtener las tareas que coincidan con el filtro
-         Page<Task> tasks = repository.findByTitleContainingOrDescriptionContainingAllIgnoreCase(
-                filter, filter, page);
+         if (!searchIndex.canSearch(filter)) {
+            // Mientras se construye el índice, o si el texto no tiene palabras, consultamos la base de datos
+            return repository.findByTitleContainingOrDescriptionContainingAllIgnoreCase(
+                   likeText(filter), likeText(filter), page)
+                   .map(entity -> mapper.toDto(entity));
+         }
+
+         List<Long> ids = searchIndex.search(filter);
+         if (page.getSort().isSorted()) {
+            // El cliente pide otro orden: la base de datos ordena y pagina solo las tareas encontradas
+            return repository.findAllByIdIn(ids, page).map(entity -> mapper.toDto(entity));
+         }
+
+         // Orden por relevancia: leemos solo las tareas de la página pedida
+         List<Long> pageIds = page.isPaged()
+                ? ids.subList((int) Math.min(page.getOffset(), ids.size()),
+                       (int) Math.min(page.getOffset() + page.getPageSize(), ids.size()))
+                : ids;
+         return new PageImpl<>(convertToDtoList(findAllByIdInOrder(pageIds)), page, ids.size());
+
+      } catch (DataException ex) {
+         throw ex;
+      } catch (Exception ex) {
+         throw new DataException(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
+      }
+   }
+
+   @LogExecutionTime // medimos el tiempo de ejecución
+   @Cacheable(cacheNames = "cacheManyTasks", condition = "@taskSearchIndex.isReady()") // sin índice no se cachea
+   @Transactional(readOnly = true)
+   @Override
+   public Slice<TaskDto> getTasksByFilterSliced(String filter, Pageable page) {
+      try {
+         if (!searchIndex.canSearch(filter)) {
+            // Mientras se construye el índice, o si el texto no tiene palabras, consultamos la base de datos (sin COUNT)
+            return repository.findSliceByTitleContainingOrDescriptionContainingAllIgnoreCase(
+                   likeText(filter), likeText(filter), page)
+                   .map(entity -> mapper.toDto(entity));
+         }
 
-         // Convertimos las entidades a DTOs
-         return tasks.map(entity -> mapper.toDto(entity));
+         List<Long> ids = searchIndex.search(filter);
+         if (page.getSort().isSorted()) {
+            return repository.findSliceByIdIn(ids, page).map(entity -> mapper.toDto(entity));
+         }
+
+         if (page.isUnpaged()) {
+            return new SliceImpl<>(convertToDtoList(findAllByIdInOrder(ids)), page, false);
+         }
+         int from = (int) Math.min(page.getOffset(), ids.size());
+         int to = (int) Math.min(page.getOffset() + page.getPageSize(), ids.size());
+         return new SliceImpl<>(convertToDtoList(findAllByIdInOrder(ids.subList(from, to))), page, to < ids.size());
 
       } catch (DataException ex) {
          throw ex;
@@ -171,6 +347,7 @@ public class TaskServiceImpl implements TaskService {
 
    @LogExecutionTime // medimos el tiempo de ejecución
    @Cacheable("cacheManyTasks")
+   @Transactional(readOnly = true)
    @Override
    public List<TaskDto> getTasksByTitleContaining(String title) {
       try {
@@ -187,12 +364,12 @@ public class TaskServiceImpl implements TaskService {
 
    @LogExecutionTime // medimos el tiempo de ejecución
    @Cacheable("cacheManyTasks")
+   @Transactional(readOnly = true)
    @Override
    public List<TaskDto> getTasksByTaskStatus(TaskStatus status) {
       try {
 
-         List<Task> tasks = repository.findAllByTaskStatus(status);
-         return convertToDtoList(tasks);
+         return repository.findAllAsDtoByTaskStatus(status); // proyección directa a DTO
 
       } catch (DataException ex) {
          throw ex;
@@ -203,18 +380,12 @@ public class TaskServiceImpl implements TaskService {
 
    @LogExecutionTime // medimos el tiempo de ejecución
    @Cacheable("cacheManyTasks")
+   @Transactional(readOnly = true)
    @Override
    public List<TaskDto> getTasksByCompletion(boolean isCompleted) {
       try {
 
-         List<Task> tasks;
-         if (isCompleted) {
-            tasks = repository.findByIsCompletedTrue();
-         } else {
-            tasks = repository.findByIsCompletedFalse();
-         }
-
-         return convertToDtoList(tasks);
+         return repository.findAllAsDtoByIsCompleted(isCompleted); // proyección directa a DTO
 
       } catch (DataException ex) {
          throw ex;
@@ -224,19 +395,27 @@ public class TaskServiceImpl implements TaskService {
    }
 
    @LogExecutionTime // medimos el tiempo de ejecución
-   @Caching(evict = {
-      @CacheEvict(value = "cacheOneTask", allEntries = true),
-      @CacheEvict(value = "cacheManyTasks", allEntries = true)})
+   @CachePut(value = "cacheOneTask", key = "#result.id") // refrescamos solo la tarea afectada
    @Override
    public TaskDto saveTask(TaskDto taskDto) {
       try {
 
-         Task task = mapper.toEntity(taskDto);
-         if (task.getTaskDateCreation() == null) {
-            task.setTaskDateCreation(LocalDateTime.now());
-         }
+         // con ID puede sobrescribir una tarea existente: guardamos sus valores antes de la actualización
+         Optional<Task> existingTask = taskDto.getId() != null ? repository.findById(taskDto.getId()) : Optional.empty();
+         TaskStatisticsGroup before = existingTask.map(TaskStatisticsGroup::of).orElse(null);
+         TaskDto previous = existingTask.map(mapper::toDto).orElse(null);
+         Task task = toEntity(taskDto, existingTask.orElse(null));
          Task createdTask = repository.save(task);
-         return mapper.toDto(createdTask);
+         TaskDto createdTaskDto = mapper.toDto(createdTask);
+         if (existingTask.isEmpty()) { // sin ID o con el de una tarea que no existe se crea una nueva
+            cacheInvalidator.taskCreated(createdTaskDto);
+            statistics.taskCreated(createdTaskDto);
+         } else {
+            cacheInvalidator.taskUpdated(previous, createdTaskDto, null); // sobrescribe una tarea existente
+            statistics.taskUpdated(before, createdTaskDto);
+         }
+         searchIndex.index(createdTaskDto);
+         return createdTaskDto;
 
       } catch (DataException ex) {
          throw ex;
@@ -246,9 +425,8 @@ public class TaskServiceImpl implements TaskService {
    }
 
    @LogExecutionTime // medimos el tiempo de ejecución
-   @Caching(evict = {
-      @CacheEvict(value = "cacheOneTask", allEntries = true),
-      @CacheEvict(value = "cacheManyTasks", allEntries = true)})
+   // solo vaciamos 'cacheOneTask' si alguna tarea de la lista trae ID, es decir, si puede sobrescribir una existente
+   @CacheEvict(value = "cacheOneTask", allEntries = true, condition = "#taskDtos.?[id != null].size() > 0")
    @Override
    public List<TaskDto> saveAllTasks(List<TaskDto> taskDtos) {
       try {
@@ -256,17 +434,34 @@ public class TaskServiceImpl implements TaskService {
          if (taskDtos.isEmpty()) {
             throw new DataException(HttpStatus.BAD_REQUEST, TaskConstant.TASK_IS_NULL);
          }
+         // las tareas con ID pueden sobrescribir tareas existentes: las leemos con una sola consulta
+         List<Long> ids = taskDtos.stream().map(TaskDto::getId).filter(Objects::nonNull).toList();
+         Map<Long, Task> existingTasks = ids.isEmpty() ? Map.of() : repository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Task::getId, Function.identity()));
+         // valores antes de sobrescribirlas: el 'merge' copia los nuevos sobre estas mismas entidades
+         Map<Long, TaskDto> previous = existingTasks.values().stream()
+                .collect(Collectors.toMap(Task::getId, mapper::toDto));
          List<Task> tasks = taskDtos.stream() // convierte la lista taskDtos en un flujo (stream) de elementos
-                .map(mapper::toEntity) // convierte cada elemento de la lista taskDtos en un objeto Task
-                .peek(action -> { //permite realizar una acción en cada elemento del flujo sin cambiar los elementos mismos
-                   if (action.getTaskDateCreation() == null) {
-                      action.setTaskDateCreation(LocalDateTime.now());
-                   }
-                })
+                // convierte cada elemento de la lista taskDtos en un objeto Task, como en saveTask
+                .map(taskDto -> toEntity(taskDto, taskDto.getId() != null ? existingTasks.get(taskDto.getId()) : null))
                 .collect(Collectors.toList()); // crea una lista de objetos Task
 
          List<Task> createdTasks = repository.saveAll(tasks);
-         return convertToDtoList(createdTasks);
+         List<TaskDto> createdTaskDtos = convertToDtoList(createdTasks);
+         // las tareas sobrescritas se tratan como en saveTask: una actualización, no una tarea nueva
+         Map<Boolean, List<TaskDto>> overwritten = createdTaskDtos.stream()
+                .collect(Collectors.partitioningBy(taskDto -> previous.containsKey(taskDto.getId())));
+         cacheInvalidator.tasksCreated(overwritten.get(false));
+         statistics.tasksCreated(overwritten.get(false));
+         overwritten.get(true).stream() // una sola vez por tarea aunque su ID se repita en la lista
+                .collect(Collectors.toMap(TaskDto::getId, Function.identity(), (first, last) -> last))
+                .values().forEach(taskDto -> {
+                   TaskDto previousDto = previous.get(taskDto.getId());
+                   cacheInvalidator.taskUpdated(previousDto, taskDto, null);
+                   statistics.taskUpdated(TaskStatisticsGroup.of(previousDto), taskDto);
+                });
+         searchIndex.indexAll(createdTaskDtos);
+         return createdTaskDtos;
 
       } catch (DataException ex) {
          throw ex;
@@ -275,20 +470,41 @@ public class TaskServiceImpl implements TaskService {
       }
    }
 
+   // Las actualizaciones (PUT y PATCH) leen la tarea como DTO, sin cargar la entidad, y la modifican con una sentencia
+   // UPDATE que incrementa su versión; el DTO devuelto se completa en memoria, sin volver a leer la fila.
+   // La lectura previa se mantiene porque el estado anterior hace falta para las estadísticas (TaskStatisticsGroup) y
+   // para devolver la tarea completa (y guardarla en 'cacheOneTask'); la versión solo se comprueba en la sentencia.
+   // Con 'expectedVersion' (cabecera If-Match) la sentencia solo modifica la fila si sigue en esa versión: si otra
+   // petición la ha cambiado desde que el cliente la leyó, se responde 412 en lugar de sobrescribir sus cambios. Sin
+   // ella se condiciona a la versión leída, así el DTO devuelto es exactamente la fila nueva: si otra petición la cambia
+   // entre medias se responde 409 en lugar de mezclar ambas.
    @LogExecutionTime // medimos el tiempo de ejecución
-   @Caching(evict = {
-      @CacheEvict(value = "cacheOneTask", allEntries = true),
-      @CacheEvict(value = "cacheManyTasks", allEntries = true)})
+   @CachePut(value = "cacheOneTask", key = "#result.id") // refrescamos solo la tarea afectada
    @Override
-   public TaskDto updateTask(Long id, TaskDto taskDto) {
+   public TaskDto updateTask(Long id, TaskDto taskDto, Long expectedVersion) {
       try {
-         repository.findById(id)
+         TaskDto task = repository.findAsDtoById(id)
                 .orElseThrow(() -> new DataException(HttpStatus.NOT_FOUND, "TASK_ID_NOT_FOUND: " + id));
+         TaskDto previous = task.toBuilder().build(); // el DTO leído se completa con los cambios
+         TaskStatisticsGroup before = TaskStatisticsGroup.of(previous);
+         OffsetDateTime lastUpdated = lastUpdated();
+
+         if (repository.updateById(id, taskDto, version(task, expectedVersion), lastUpdated) == 0) {
+            throw notUpdated(id, expectedVersion);
+         }
 
-         Task entity = mapper.toEntity(taskDto);
-         entity.setId(id); // Asegurar que el ID se mantenga igual
-         repository.save(entity);
-         return mapper.toDto(entity);
+         // se sustituye la tarea completa salvo los campos no actualizables (fecha de creación y auditoría)
+         task.setTitle(taskDto.getTitle());
+         task.setDescription(taskDto.getDescription());
+         task.setTaskStatus(taskDto.getTaskStatus());
+         task.setIsCompleted(taskDto.getIsCompleted());
+         task.setPriority(taskDto.getPriority());
+         task.setTaskDateFinished(taskDto.getTaskDateFinished());
+         updated(task, lastUpdated);
+         cacheInvalidator.taskUpdated(previous, task, null);
+         statistics.taskUpdated(before, task);
+         searchIndex.index(task); // el resto de actualizaciones no cambian el título ni la descripción
+         return task;
 
       } catch (DataException ex) { // Lo pongo antes del Exception final para poder capturar mis excepciones
          throw ex;
@@ -298,24 +514,30 @@ public class TaskServiceImpl implements TaskService {
    }
 
    @LogExecutionTime // medimos el tiempo de ejecución
-   @Caching(evict = {
-      @CacheEvict(value = "cacheOneTask", allEntries = true),
-      @CacheEvict(value = "cacheManyTasks", allEntries = true)})
+   @CachePut(value = "cacheOneTask", key = "#result.id") // refrescamos solo la tarea afectada
    @Override
-   public TaskDto updateTaskDateOfFinished(Long id, LocalDateTime newDateOfFinished) {
+   public TaskDto updateTaskDateOfFinished(Long id, LocalDateTime newDateOfFinished, Long expectedVersion) {
       try {
 
-         Task existingTask = repository.findById(id)
-                .orElseThrow(() -> new DataException(HttpStatus.NOT_FOUND, TaskConstant.TASK_ID_NOT_FOUND + id));
-
-         //  Ejecutar validaciones personalizadas. ¡OJO! si funciona cuando querramos realizar TaskServiceTest
-         if (existingTask.getTaskDateCreation() != null && newDateOfFinished.isBefore(existingTask.getTaskDateCreation())) {
-            throw new DataException(HttpStatus.BAD_REQUEST, TaskConstant.TASK_DATE_FAIL);
+         TaskDto task = findDtoById(id);
+         TaskDto previous = task.toBuilder().build(); // el DTO leído se completa con los cambios
+         TaskStatisticsGroup before = TaskStatisticsGroup.of(previous);
+         OffsetDateTime lastUpdated = lastUpdated();
+
+         // la sentencia solo modifica la fila si la fecha no es anterior a la de creación
+         if (repository.updateTaskDateFinishedById(id, newDateOfFinished, version(task, expectedVersion),
+                lastUpdated) == 0) {
+            if (task.getTaskDateCreation() != null && newDateOfFinished.isBefore(task.getTaskDateCreation())) {
+               throw new DataException(HttpStatus.BAD_REQUEST, TaskConstant.TASK_DATE_FAIL);
+            }
+            throw notUpdated(id, expectedVersion);
          }
 
-         existingTask.setTaskDateFinished(newDateOfFinished);
-         Task updatedTask = repository.save(existingTask);
-         return mapper.toDto(updatedTask);
+         task.setTaskDateFinished(newDateOfFinished);
+         updated(task, lastUpdated);
+         cacheInvalidator.taskUpdated(previous, task, Set.of("taskDateFinished"));
+         statistics.taskUpdated(before, task);
+         return task;
 
       } catch (DataException ex) { // Lo pongo antes del Exception final para poder capturar mis excepciones
          throw ex;
@@ -325,19 +547,25 @@ public class TaskServiceImpl implements TaskService {
    }
 
    @LogExecutionTime // medimos el tiempo de ejecución
-   @Caching(evict = {
-      @CacheEvict(value = "cacheOneTask", allEntries = true),
-      @CacheEvict(value = "cacheManyTasks", allEntries = true)})
+   @CachePut(value = "cacheOneTask", key = "#result.id") // refrescamos solo la tarea afectada
    @Override
-   public TaskDto updateTaskStatus(Long id, TaskStatus taskStatus) {
+   public TaskDto updateTaskStatus(Long id, TaskStatus taskStatus, Long expectedVersion) {
       try {
 
-         Task existingTask = repository.findById(id)
-                .orElseThrow(() -> new DataException(HttpStatus.NOT_FOUND, TaskConstant.TASK_ID_NOT_FOUND + id));
+         TaskDto task = findDtoById(id);
+         TaskDto previous = task.toBuilder().build(); // el DTO leído se completa con los cambios
+         TaskStatisticsGroup before = TaskStatisticsGroup.of(previous);
+         OffsetDateTime lastUpdated = lastUpdated();
+
+         if (repository.updateTaskStatusById(id, taskStatus, version(task, expectedVersion), lastUpdated) == 0) {
+            throw notUpdated(id, expectedVersion);
+         }
 
-         existingTask.setTaskStatus(taskStatus);
-         Task updatedTask = repository.save(existingTask);
-         return mapper.toDto(updatedTask);
+         task.setTaskStatus(taskStatus);
+         updated(task, lastUpdated);
+         cacheInvalidator.taskUpdated(previous, task, Set.of("taskStatus"));
+         statistics.taskUpdated(before, task);
+         return task;
 
       } catch (DataException ex) { // Lo pongo antes del Exception final para poder capturar mis excepciones
          throw ex;
@@ -347,19 +575,27 @@ public class TaskServiceImpl implements TaskService {
    }
 
    @LogExecutionTime // medimos el tiempo de ejecución
-   @Caching(evict = {
-      @CacheEvict(value = "cacheOneTask", allEntries = true),
-      @CacheEvict(value = "cacheManyTasks", allEntries = true)})
+   @CachePut(value = "cacheOneTask", key = "#result.id") // refrescamos solo la tarea afectada
    @Override
-   public TaskDto updateTaskIsCompleted(Long id, Boolean isCompleted) {
+   public TaskDto updateTaskIsCompleted(Long id, Boolean isCompleted, Long expectedVersion) {
       try {
 
-         Task existingTask = repository.findById(id)
-                .orElseThrow(() -> new DataException(HttpStatus.NOT_FOUND, TaskConstant.TASK_ID_NOT_FOUND + id));
+         return updateIsCompleted(id, isCompleted, expectedVersion);
 
-         existingTask.setIsCompleted(isCompleted);
-         Task updatedTask = repository.save(existingTask);
-         return mapper.toDto(updatedTask);
+      } catch (DataException ex) { // Lo pongo antes del Exception final para poder capturar mis excepciones
+         throw ex;
+      } catch (Exception ex) {
+         throw new DataException(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
+      }
+   }
+
+   @LogExecutionTime // medimos el tiempo de ejecución
+   @CachePut(value = "cacheOneTask", key = "#result.id") // refrescamos solo la tarea afectada
+   @Override
+   public TaskDto markTaskAsCompleted(Long id, Long expectedVersion) {
+      try {
+
+         return updateIsCompleted(id, Boolean.TRUE, expectedVersion);
 
       } catch (DataException ex) { // Lo pongo antes del Exception final para poder capturar mis excepciones
          throw ex;
@@ -369,21 +605,57 @@ public class TaskServiceImpl implements TaskService {
    }
 
    @LogExecutionTime // medimos el tiempo de ejecución
-   @Caching(evict = {
-      @CacheEvict(value = "cacheOneTask", allEntries = true),
-      @CacheEvict(value = "cacheManyTasks", allEntries = true)})
    @Override
-   public TaskDto markTaskAsCompleted(Long id) {
+   public TaskBulkUpdateResult updateTasksInBulk(TaskBulkUpdate update) {
       try {
+         if (update == null || !update.hasChanges()) {
+            throw new DataException(HttpStatus.BAD_REQUEST, TaskConstant.TASK_BULK_UPDATE_NOT_VALID
+                   + "no se indica ningún cambio.");
+         }
+         if (update.ids() == null && (update.filter() == null || update.filter().isBlank())) {
+            throw new DataException(HttpStatus.BAD_REQUEST, TaskConstant.TASK_BULK_UPDATE_NOT_VALID
+                   + "se requiere 'ids' o 'filter'.");
+         }
 
-         Task existingTask = repository.findById(id)
-                .orElseThrow(() -> new DataException(HttpStatus.NOT_FOUND, TaskConstant.TASK_ID_NOT_FOUND + id));
+         List<Long> ids = update.ids() != null
+                ? update.ids().stream().filter(Objects::nonNull).distinct().toList()
+                : findIdsByFilter(update.filter());
+         OffsetDateTime lastUpdated = lastUpdated();
+
+         // una sentencia UPDATE por bloque de ID, en la misma transacción: o se aplican todos los bloques o ninguno
+         int updated = 0;
+         List<TaskStatisticsGroup> before = new ArrayList<>();
+         for (int from = 0; from < ids.size(); from += BULK_UPDATE_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BULK_UPDATE_CHUNK_SIZE, ids.size()));
+            if (update.taskDateFinished() != null
+                   && repository.existsByIdInAndTaskDateCreationAfter(chunk, update.taskDateFinished())) {
+               throw new DataException(HttpStatus.BAD_REQUEST, TaskConstant.TASK_DATE_FAIL);
+            }
+            before.addAll(repository.findStatisticsGroupsByIdIn(chunk)); // una fila por combinación de valores
+            updated += repository.updateAllByIdIn(chunk, update.isCompleted(), update.taskStatus(),
+                   update.taskDateFinished(), lastUpdated);
+         }
 
-         repository.markTaskAsCompleted(id);
-         existingTask.setIsCompleted(Boolean.TRUE);
-         return mapper.toDto(existingTask);
+         // una única invalidación para todo el lote; el título y la descripción no cambian, el índice de texto tampoco
+         Set<String> changedFields = new HashSet<>();
+         TaskDto values = new TaskDto();
+         values.setIsCompleted(update.isCompleted());
+         values.setTaskStatus(update.taskStatus());
+         values.setTaskDateFinished(update.taskDateFinished());
+         if (update.isCompleted() != null) {
+            changedFields.add("isCompleted");
+         }
+         if (update.taskStatus() != null) {
+            changedFields.add("taskStatus");
+         }
+         if (update.taskDateFinished() != null) {
+            changedFields.add("taskDateFinished");
+         }
+         cacheInvalidator.tasksUpdated(ids, values, changedFields);
+         statistics.tasksUpdated(before, update.taskStatus(), update.isCompleted(), update.taskDateFinished());
+         return new TaskBulkUpdateResult(updated);
 
-      } catch (DataException ex) { // Lo pongo antes del Exception final para poder capturar mis excepciones
+      } catch (DataException ex) {
          throw ex;
       } catch (Exception ex) {
          throw new DataException(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
@@ -391,13 +663,14 @@ public class TaskServiceImpl implements TaskService {
    }
 
    @LogExecutionTime // medimos el tiempo de ejecución
-   @Caching(evict = {
-      @CacheEvict(value = "cacheOneTask", allEntries = true),
-      @CacheEvict(value = "cacheManyTasks", allEntries = true)})
+   @CacheEvict(value = "cacheOneTask", key = "#id") // eliminamos solo la tarea borrada
    @Override
    public void deleteTaskById(Long id) {
       try {
+         repository.findById(id).map(TaskStatisticsGroup::of).ifPresent(statistics::taskDeleted);
          repository.deleteById(id);
+         cacheInvalidator.taskDeleted(id);
+         searchIndex.remove(id);
       } catch (DataException ex) {
          throw ex;
       } catch (Exception ex) {
@@ -405,6 +678,99 @@ public class TaskServiceImpl implements TaskService {
       }
    }
 
+   private TaskDto updateIsCompleted(Long id, Boolean isCompleted, Long expectedVersion) {
+      TaskDto task = findDtoById(id);
+      TaskDto previous = task.toBuilder().build(); // el DTO leído se completa con los cambios
+      TaskStatisticsGroup before = TaskStatisticsGroup.of(previous);
+      OffsetDateTime lastUpdated = lastUpdated();
+
+      if (repository.updateIsCompletedById(id, isCompleted, version(task, expectedVersion), lastUpdated) == 0) {
+         throw notUpdated(id, expectedVersion);
+      }
+
+      task.setIsCompleted(isCompleted);
+      updated(task, lastUpdated);
+      cacheInvalidator.taskUpdated(previous, task, Set.of("isCompleted"));
+      statistics.taskUpdated(before, task);
+      return task;
+   }
+
+   // TaskMapper no copia el ID: una tarea con el ID de otra existente la sobrescribe conservando su versión (sin If-Match:
+   // con otra versión el 'merge' fallaría por bloqueo optimista) y sus fechas de creación; sin ella se crea una nueva
+   private Task toEntity(TaskDto taskDto, Task existing) {
+      Task task = mapper.toEntity(taskDto);
+      if (existing != null) {
+         task.setId(existing.getId());
+         task.setVersion(existing.getVersion());
+         task.setLogDateCreated(existing.getLogDateCreated());
+         if (task.getTaskDateCreation() == null) {
+            task.setTaskDateCreation(existing.getTaskDateCreation());
+         }
+      }
+      if (task.getTaskDateCreation() == null) {
+         task.setTaskDateCreation(LocalDateTime.now());
+      }
+      return task;
+   }
+
+   private TaskDto findDtoById(Long id) {
+      return repository.findAsDtoById(id)
+             .orElseThrow(() -> new DataException(HttpStatus.NOT_FOUND, TaskConstant.TASK_ID_NOT_FOUND + id));
+   }
+
+   // Versión a la que se condiciona la sentencia UPDATE: la de If-Match o, sin ella, la leída
+   private Long version(TaskDto task, Long expectedVersion) {
+      return expectedVersion != null ? expectedVersion : task.getVersion();
+   }
+
+   // La sentencia UPDATE no ha modificado la fila leída: la tarea se ha borrado o ha cambiado entre medias (sin If-Match
+   // no se reintenta: en la misma transacción, con REPEATABLE READ, volver a leer la fila devolvería la misma versión)
+   private DataException notUpdated(Long id, Long expectedVersion) {
+      if (!repository.existsById(id)) {
+         return new DataException(HttpStatus.NOT_FOUND, TaskConstant.TASK_ID_NOT_FOUND + id);
+      }
+      return expectedVersion != null
+             ? new DataException(HttpStatus.PRECONDITION_FAILED, TaskConstant.TASK_VERSION_MISMATCH + expectedVersion)
+             : new DataException(HttpStatus.CONFLICT, TaskConstant.TASK_UPDATE_CONFLICT + id);
+   }
+
+   // Lo que ha hecho la sentencia UPDATE, aplicado al DTO leído antes
+   private void updated(TaskDto task, OffsetDateTime lastUpdated) {
+      task.setVersion(task.getVersion() != null ? task.getVersion() + 1 : null);
+      task.setLogLastUpdated(lastUpdated);
+   }
+
+   // Las sentencias UPDATE no pasan por la auditoría (@LastModifiedDate): usamos la misma fecha que ella
+   private OffsetDateTime lastUpdated() {
+      return dateTimeProvider.getNow().map(OffsetDateTime::from).orElseGet(OffsetDateTime::now);
+   }
+
+   // Mismo criterio que getTasksByFilter: índice de texto o, mientras se construye o si el texto no tiene palabras,
+   // LIKE de la base de datos
+   private List<Long> findIdsByFilter(String filter) {
+      if (!searchIndex.canSearch(filter)) {
+         return repository.findByTitleContainingOrDescriptionContainingAllIgnoreCase(filter, filter).stream()
+                .map(Task::getId)
+                .toList();
+      }
+      return searchIndex.search(filter);
+   }
+
+   // Texto de las búsquedas con LIKE: un texto en blanco, como uno vacío, devuelve todas las tareas
+   private static String likeText(String filter) {
+      return filter == null || filter.isBlank() ? "" : filter;
+   }
+
+   //    Método auxiliar para leer las tareas de una lista de IDs conservando su orden
+   private List<Task> findAllByIdInOrder(List<Long> ids) {
+      Map<Long, Task> tasksById = repository.findAllById(ids).stream()
+             .collect(Collectors.toMap(Task::getId, Function.identity()));
+      return ids.stream()
+             .map(tasksById::get)
+             .filter(Objects::nonNull) // borrada después de la búsqueda
+             .collect(Collectors.toList());
+   }
+
    //    Método auxiliar para convertir una lista de entidades a DTOs
    private List<TaskDto> convertToDtoList(List<Task> tasks) {
       return tasks.stream() // se utiliza stream() y collect(Collectors.toList()) para convertirlo en una lista de DTO
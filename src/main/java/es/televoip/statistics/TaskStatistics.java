@@ -0,0 +1,186 @@
+package es.televoip.statistics;
+
+import es.televoip.model.dto.TaskDto;
+import es.televoip.model.dto.TaskStatisticsDto;
+import es.televoip.model.enums.TaskStatus;
+import es.televoip.repository.TaskRepository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Estadísticas de las tareas en memoria: número de tareas por estado, por completitud, por prioridad y creadas y
+ * finalizadas por día. Consultarlas cuesta lo mismo sea cual sea el número de tareas.
+ *
+ * Se mantienen con las escrituras de TaskServiceImpl (y de la importación masiva), que se aplican tras el commit, y se
+ * recalculan con GROUP BY al arrancar y cada 'task.statistics.reconcile-interval' para corregir lo que no pasa por el
+ * servicio (p.ej. las tareas guardadas en cascada con una persona). Son locales a cada instancia de la aplicación.
+ */
+@Slf4j
+@Component
+public class TaskStatistics {
+
+   private final TaskRepository repository;
+
+   private Counters counters = new Counters(); // protegido por 'this'
+
+   private OffsetDateTime reconciledAt;
+
+   public TaskStatistics(TaskRepository repository) {
+      this.repository = repository;
+   }
+
+   public void taskCreated(TaskDto task) {
+      tasksCreated(Collections.singletonList(task));
+   }
+
+   public void tasksCreated(Collection<TaskDto> tasks) {
+      change(List.of(), tasks.stream().filter(Objects::nonNull).map(TaskStatisticsGroup::of).toList());
+   }
+
+   /**
+    * @param before valores de la tarea antes del cambio
+    * @param after la tarea guardada
+    */
+   public void taskUpdated(TaskStatisticsGroup before, TaskDto after) {
+      change(before != null ? List.of(before) : List.of(), after != null ? List.of(TaskStatisticsGroup.of(after)) : List.of());
+   }
+
+   /**
+    * @param before grupos de las tareas afectadas antes de la actualización masiva
+    */
+   public void tasksUpdated(List<TaskStatisticsGroup> before, TaskStatus taskStatus, Boolean isCompleted,
+          LocalDateTime taskDateFinished) {
+      change(before, before.stream().map(group -> group.with(taskStatus, isCompleted, taskDateFinished)).toList());
+   }
+
+   public void taskDeleted(TaskStatisticsGroup before) {
+      change(List.of(before), List.of());
+   }
+
+   public synchronized TaskStatisticsDto snapshot() {
+      return new TaskStatisticsDto(counters.total, new EnumMap<>(counters.byStatus), new HashMap<>(counters.byCompletion),
+             new TreeMap<>(counters.byPriority), new TreeMap<>(counters.createdPerDay),
+             new TreeMap<>(counters.finishedPerDay), reconciledAt);
+   }
+
+   /**
+    * Recalcula las estadísticas desde la base de datos. Las escrituras confirmadas mientras se ejecutan las consultas
+    * pueden quedar contadas dos veces o ninguna hasta la siguiente reconciliación.
+    *
+    * La transacción no es de solo lectura para que, con réplica (mirar ReplicaRoutingDataSource), las consultas vayan a
+    * la base de datos principal: los recuentos de una réplica retrasada sustituirían a los contadores y perderían las
+    * escrituras de los últimos segundos hasta la siguiente reconciliación.
+    */
+   @EventListener(ApplicationReadyEvent.class)
+   @Scheduled(initialDelayString = "${task.statistics.reconcile-interval:PT5M}",
+          fixedDelayString = "${task.statistics.reconcile-interval:PT5M}")
+   @Transactional
+   public void reconcile() {
+      long start = System.nanoTime();
+      Counters fresh = new Counters();
+      repository.countGroupedByTaskStatus().forEach(row -> fresh.add(fresh.byStatus, (TaskStatus) row[0], count(row)));
+      repository.countGroupedByIsCompleted().forEach(row -> fresh.add(fresh.byCompletion, (Boolean) row[0], count(row)));
+      repository.countGroupedByPriority().forEach(row -> {
+         fresh.add(fresh.byPriority, (Integer) row[0], count(row));
+         fresh.total += count(row);
+      });
+      repository.countGroupedByCreationDay().forEach(row -> fresh.add(fresh.createdPerDay, (LocalDate) row[0], count(row)));
+      repository.countGroupedByFinishedDay().forEach(row -> fresh.add(fresh.finishedPerDay, (LocalDate) row[0], count(row)));
+
+      synchronized (this) {
+         if (!fresh.equals(counters)) {
+            log.info("Task statistics reconciled: {} tasks (in memory: {})", fresh.total, counters.total);
+         }
+         counters = fresh;
+         reconciledAt = OffsetDateTime.now();
+      }
+      log.debug("Task statistics computed in {} ms", (System.nanoTime() - start) / 1_000_000);
+   }
+
+   private void change(List<TaskStatisticsGroup> removed, List<TaskStatisticsGroup> added) {
+      afterCommit(() -> {
+         synchronized (this) {
+            removed.forEach(group -> counters.apply(group, -group.count()));
+            added.forEach(group -> counters.apply(group, group.count()));
+         }
+      });
+   }
+
+   private static long count(Object[] row) {
+      return ((Number) row[1]).longValue();
+   }
+
+   private void afterCommit(Runnable action) {
+      if (TransactionSynchronizationManager.isSynchronizationActive()) {
+         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+               action.run();
+            }
+         });
+      } else {
+         action.run();
+      }
+   }
+
+   private static final class Counters {
+
+      private long total;
+
+      private final Map<TaskStatus, Long> byStatus = new EnumMap<>(TaskStatus.class);
+
+      private final Map<Boolean, Long> byCompletion = new HashMap<>();
+
+      private final Map<Integer, Long> byPriority = new TreeMap<>();
+
+      private final Map<LocalDate, Long> createdPerDay = new TreeMap<>();
+
+      private final Map<LocalDate, Long> finishedPerDay = new TreeMap<>();
+
+      private void apply(TaskStatisticsGroup group, long delta) {
+         total += delta;
+         add(byStatus, group.taskStatus(), delta);
+         add(byCompletion, group.isCompleted(), delta);
+         add(byPriority, group.priority(), delta);
+         add(createdPerDay, group.created(), delta);
+         add(finishedPerDay, group.finished(), delta);
+      }
+
+      private <K> void add(Map<K, Long> counts, K key, long delta) {
+         if (key != null) {
+            counts.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b); // sin entradas a cero
+         }
+      }
+
+      @Override
+      public boolean equals(Object other) {
+         return other instanceof Counters that && total == that.total && byStatus.equals(that.byStatus)
+                && byCompletion.equals(that.byCompletion) && byPriority.equals(that.byPriority)
+                && createdPerDay.equals(that.createdPerDay) && finishedPerDay.equals(that.finishedPerDay);
+      }
+
+      @Override
+      public int hashCode() {
+         return Long.hashCode(total);
+      }
+
+   }
+
+}
@@ -0,0 +1,40 @@
+package es.televoip.statistics;
+
+import es.televoip.model.Task;
+import es.televoip.model.dto.TaskDto;
+import es.televoip.model.enums.TaskStatus;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Número de tareas que comparten los valores que cuentan en las estadísticas (estado, completitud, prioridad y días de
+ * creación y finalización). Una tarea es un grupo con 'count' 1; TaskRepository.findStatisticsGroupsByIdIn agrupa
+ * varias tareas con GROUP BY.
+ */
+public record TaskStatisticsGroup(TaskStatus taskStatus, Boolean isCompleted, Integer priority, LocalDate created,
+       LocalDate finished, Long count) {
+
+   public static TaskStatisticsGroup of(Task task) {
+      return new TaskStatisticsGroup(task.getTaskStatus(), task.getIsCompleted(), task.getPriority(),
+             day(task.getTaskDateCreation()), day(task.getTaskDateFinished()), 1L);
+   }
+
+   public static TaskStatisticsGroup of(TaskDto task) {
+      return new TaskStatisticsGroup(task.getTaskStatus(), task.getIsCompleted(), task.getPriority(),
+             day(task.getTaskDateCreation()), day(task.getTaskDateFinished()), 1L);
+   }
+
+   /**
+    * El mismo grupo con los valores de una actualización masiva; los valores 'null' no cambian (COALESCE).
+    */
+   public TaskStatisticsGroup with(TaskStatus newStatus, Boolean newIsCompleted, LocalDateTime newDateFinished) {
+      return new TaskStatisticsGroup(newStatus != null ? newStatus : taskStatus,
+             newIsCompleted != null ? newIsCompleted : isCompleted, priority, created,
+             newDateFinished != null ? newDateFinished.toLocalDate() : finished, count);
+   }
+
+   private static LocalDate day(LocalDateTime dateTime) {
+      return dateTime != null ? dateTime.toLocalDate() : null;
+   }
+
+}
@@ -0,0 +1,114 @@
+package es.televoip.storage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URLConnection;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Almacén de fotos de perfil en disco, direccionado por contenido: cada fichero se guarda con el SHA-256 de sus bytes
+ * como nombre (p.ej. 'ab/ab12…'). La fila de Person solo guarda esa referencia, de modo que las lecturas de personas (y
+ * las cachés) no cargan la imagen; la misma imagen subida dos veces ocupa un solo fichero.
+ *
+ * Los ficheros no se modifican nunca una vez escritos: la referencia sirve también de ETag.
+ */
+@Slf4j
+@Component
+public class ProfilePictureStore {
+
+   private static final Pattern ID = Pattern.compile("[0-9a-f]{64}"); // SHA-256 en hexadecimal
+   private static final int SNIFF_BYTES = 16; // bytes iniciales para reconocer el tipo de imagen
+
+   private final Path directory;
+
+   public ProfilePictureStore(@Value("${person.picture.directory:data/pictures}") Path directory) {
+      this.directory = directory.toAbsolutePath();
+   }
+
+   /**
+    * Guarda el contenido sin cargarlo entero en memoria.
+    *
+    * @return la referencia (SHA-256) de la imagen
+    */
+   public String store(InputStream content) {
+      try {
+         Files.createDirectories(directory);
+         Path temp = Files.createTempFile(directory, "upload-", ".tmp");
+         try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+               content.transferTo(out);
+            }
+            String id = HexFormat.of().formatHex(digest.digest());
+
+            Path target = path(id);
+            if (!Files.exists(target)) {
+               Files.createDirectories(target.getParent());
+               try {
+                  Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+               } catch (FileAlreadyExistsException ex) {
+                  // otra subida de la misma imagen ha llegado antes: el contenido es idéntico
+               }
+            }
+            return id;
+
+         } finally {
+            Files.deleteIfExists(temp);
+         }
+      } catch (IOException ex) {
+         throw new UncheckedIOException(ex);
+      } catch (NoSuchAlgorithmException ex) {
+         throw new IllegalStateException(ex);
+      }
+   }
+
+   public String store(byte[] content) {
+      return store(new ByteArrayInputStream(content));
+   }
+
+   /**
+    * @return el fichero de la imagen, vacío si la referencia no es válida o no existe
+    */
+   public Optional<Path> find(String id) {
+      if (id == null || !ID.matcher(id).matches()) {
+         return Optional.empty();
+      }
+      Path path = path(id);
+      return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+   }
+
+   /**
+    * Reconoce el tipo de imagen por sus primeros bytes (PNG, JPEG, GIF...); si no, 'application/octet-stream'.
+    */
+   public MediaType mediaType(Path picture) {
+      try (InputStream in = new BufferedInputStream(Files.newInputStream(picture), SNIFF_BYTES)) {
+         String type = URLConnection.guessContentTypeFromStream(in);
+         return type != null ? MediaType.parseMediaType(type) : MediaType.APPLICATION_OCTET_STREAM;
+      } catch (IOException ex) {
+         log.warn("Could not read {}", picture, ex);
+         return MediaType.APPLICATION_OCTET_STREAM;
+      }
+   }
+
+   private Path path(String id) {
+      return directory.resolve(id.substring(0, 2)).resolve(id);
+   }
+
+}
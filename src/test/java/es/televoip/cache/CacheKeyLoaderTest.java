@@ -0,0 +1,198 @@
+package es.televoip.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import es.televoip.model.Task;
+import es.televoip.model.dto.TaskDto;
+import es.televoip.model.enums.TaskStatus;
+import es.televoip.repository.TaskRepository;
+import es.televoip.service.implement.TaskServiceImpl;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) // cada prueba parte de una caché vacía
+@SpringBootTest(properties = {
+   "spring.config.location=classpath:application-test.properties",
+   "cache.enabled=true",
+   "cache.caffeine.caches.cacheManyTasks.refresh-after-write=" + CacheKeyLoaderTest.REFRESH_MILLIS + "ms"})
+@Import(CacheKeyLoaderTest.AmbiguousConfiguration.class)
+class CacheKeyLoaderTest {
+
+   static final long REFRESH_MILLIS = 300;
+
+   private static final CacheKey LATE_TASKS = CacheKey.of(TaskServiceImpl.class, "getTasksByTaskStatus", TaskStatus.LATE);
+
+   @SpyBean
+   private CacheKeyLoader loader;
+
+   @Autowired
+   private TaskServiceImpl taskService;
+
+   @Autowired
+   private TaskRepository repository;
+
+   @Autowired
+   private CacheManager cacheManager;
+
+   @Test
+   public void testConcurrentMissesOfOneKeyTriggerOneLoad() throws Exception {
+      // La carga queda bloqueada hasta que todos los hilos han pedido la misma clave
+      CountDownLatch release = new CountDownLatch(1);
+      doAnswer(invocation -> {
+         release.await(5, TimeUnit.SECONDS);
+         return invocation.callRealMethod();
+      }).when(loader).load(any());
+
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+         List<Future<List<TaskDto>>> results = new ArrayList<>();
+         for (int i = 0; i < 4; i++) {
+            results.add(executor.submit(() -> taskService.getTasksByTaskStatus(TaskStatus.LATE)));
+         }
+         Thread.sleep(200);
+         release.countDown();
+
+         for (Future<List<TaskDto>> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEmpty();
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+
+      // Los cuatro hilos esperaron a una única carga
+      verify(loader, times(1)).load(LATE_TASKS);
+   }
+
+   @Test
+   public void testRefreshServesTheStaleValueAndThenReplacesIt() throws Exception {
+      assertThat(taskService.getTasksByTaskStatus(TaskStatus.LATE)).isEmpty();
+
+      // Se inserta sin pasar por el servicio: la caché no se entera del cambio
+      repository.save(createLateTask());
+      Thread.sleep(REFRESH_MILLIS + 100);
+
+      // La entrada vencida se sigue sirviendo mientras se refresca en segundo plano
+      assertThat(taskService.getTasksByTaskStatus(TaskStatus.LATE)).isEmpty();
+
+      // El refresco termina sustituyendo el valor antiguo
+      List<TaskDto> refreshed = awaitValue(tasks -> tasks.size() == 1);
+      assertThat(refreshed).extracting(TaskDto::getTitle).containsExactly("Informe");
+      verify(loader, atLeast(2)).load(LATE_TASKS);
+   }
+
+   @Test
+   public void testEvictionDuringARefreshIsNotOverwritten() throws Exception {
+      assertThat(taskService.getTasksByTaskStatus(TaskStatus.LATE)).isEmpty();
+      repository.save(createLateTask());
+      Thread.sleep(REFRESH_MILLIS + 100);
+
+      // El refresco se bloquea dentro del cargador
+      CountDownLatch loading = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+      CountDownLatch loaded = new CountDownLatch(1);
+      doAnswer(invocation -> {
+         loading.countDown();
+         release.await(5, TimeUnit.SECONDS);
+         try {
+            return invocation.callRealMethod();
+         } finally {
+            loaded.countDown();
+         }
+      }).when(loader).load(any());
+
+      assertThat(taskService.getTasksByTaskStatus(TaskStatus.LATE)).isEmpty();
+      assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+      // Una escritura desaloja la clave mientras el refresco está en curso
+      cacheManager.getCache("cacheManyTasks").evict(LATE_TASKS);
+      release.countDown();
+      assertTrue(loaded.await(5, TimeUnit.SECONDS));
+      Thread.sleep(200); // Caffeine instala el resultado del refresco después de que el cargador devuelve
+
+      // El resultado del refresco se descarta: la clave sigue desalojada
+      assertThat(nativeCache().asMap()).doesNotContainKey(LATE_TASKS);
+   }
+
+   @Test
+   public void testAmbiguousCacheableOverloadsFailFast() {
+      CacheKey key = new CacheKey("AmbiguousService", "find", List.of("abc"));
+
+      IllegalStateException ex = assertThrows(IllegalStateException.class, () -> loader.load(key));
+
+      assertThat(ex.getMessage()).startsWith("Ambiguous cacheable methods");
+   }
+
+   // Dos sobrecargas cacheadas con el mismo nombre y número de argumentos
+   @TestConfiguration
+   static class AmbiguousConfiguration {
+
+      @Bean
+      AmbiguousService ambiguousService() {
+         return new AmbiguousService();
+      }
+
+   }
+
+   static class AmbiguousService {
+
+      @Cacheable("cacheManyTasks")
+      public String find(String title) {
+         return title;
+      }
+
+      @Cacheable("cacheManyTasks")
+      public String find(Long id) {
+         return String.valueOf(id);
+      }
+
+   }
+
+   private static Task createLateTask() {
+      return Task.builder()
+             .title("Informe")
+             .description("description1")
+             .priority(1)
+             .isCompleted(Boolean.FALSE)
+             .taskStatus(TaskStatus.LATE)
+             .build();
+   }
+
+   @SuppressWarnings("unchecked")
+   private Cache<Object, Object> nativeCache() {
+      return (Cache<Object, Object>) cacheManager.getCache("cacheManyTasks").getNativeCache();
+   }
+
+   private List<TaskDto> awaitValue(Predicate<List<TaskDto>> condition) throws InterruptedException {
+      long deadline = System.currentTimeMillis() + 5000;
+      List<TaskDto> tasks = taskService.getTasksByTaskStatus(TaskStatus.LATE);
+      while (!condition.test(tasks) && System.currentTimeMillis() < deadline) {
+         Thread.sleep(50);
+         tasks = taskService.getTasksByTaskStatus(TaskStatus.LATE);
+      }
+      return tasks;
+   }
+
+}
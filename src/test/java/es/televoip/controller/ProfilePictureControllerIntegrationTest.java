@@ -0,0 +1,111 @@
+package es.televoip.controller;
+
+import es.televoip.model.Person;
+import es.televoip.model.dto.PersonDto;
+import es.televoip.model.embeded.Address;
+import es.televoip.model.embeded.UserAccess;
+import es.televoip.repository.PersonRepository;
+import es.televoip.service.PersonService;
+import java.io.ByteArrayInputStream;
+import java.time.LocalDate;
+import java.util.Arrays;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+*  Fotos de perfil: la persona guarda solo la referencia y la imagen se sirve desde ProfilePictureStore con soporte de
+*  ETag y Range.
+*
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = "spring.config.location=classpath:application-test.properties")
+@AutoConfigureMockMvc
+class ProfilePictureControllerIntegrationTest {
+
+   // cabecera PNG seguida de 24 bytes de contenido
+   private static final byte[] PICTURE = new byte[32];
+
+   static {
+      byte[] header = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+      System.arraycopy(header, 0, PICTURE, 0, header.length);
+      for (int i = header.length; i < PICTURE.length; i++) {
+         PICTURE[i] = (byte) i;
+      }
+   }
+
+   @Autowired
+   private MockMvc mockMvc;
+
+   @Autowired
+   private PersonRepository personRepository;
+
+   @Autowired
+   private PersonService personService;
+
+   @Test
+   void shouldStoreOnlyAReferenceAndServeThePicture() throws Exception {
+      Person person = personRepository.save(person("12345678Z"));
+
+      PersonDto updated = personService.updateProfilePicture(person.getId(), new ByteArrayInputStream(PICTURE));
+      String pictureId = updated.getUserAccess().getProfilePictureId();
+
+      assertThat(pictureId).hasSize(64);
+      assertEquals(pictureId, personService.getPersonByDni("12345678Z").getUserAccess().getProfilePictureId());
+
+      mockMvc.perform(get("/api/pictures/" + pictureId))
+             .andExpect(status().isOk())
+             .andExpect(header().string(HttpHeaders.ETAG, "\"" + pictureId + "\""))
+             .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+             .andExpect(content().bytes(PICTURE));
+
+      // la misma imagen da la misma referencia
+      Person other = personRepository.save(person("87654321X"));
+      assertEquals(pictureId, personService.updateProfilePicture(other.getId(), new ByteArrayInputStream(PICTURE))
+             .getUserAccess().getProfilePictureId());
+   }
+
+   @Test
+   void shouldServeRangesAndHonourIfNoneMatch() throws Exception {
+      Person person = personRepository.save(person("11223344B"));
+      String pictureId = personService.updateProfilePicture(person.getId(), new ByteArrayInputStream(PICTURE))
+             .getUserAccess().getProfilePictureId();
+
+      mockMvc.perform(get("/api/pictures/" + pictureId).header(HttpHeaders.RANGE, "bytes=8-15"))
+             .andExpect(status().isPartialContent())
+             .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 8-15/" + PICTURE.length))
+             .andExpect(content().bytes(Arrays.copyOfRange(PICTURE, 8, 16)));
+
+      mockMvc.perform(get("/api/pictures/" + pictureId).header(HttpHeaders.IF_NONE_MATCH, "\"" + pictureId + "\""))
+             .andExpect(status().isNotModified());
+
+      mockMvc.perform(get("/api/pictures/" + "f".repeat(64)))
+             .andExpect(status().isNotFound());
+      mockMvc.perform(get("/api/pictures/../application.properties"))
+             .andExpect(status().isNotFound());
+   }
+
+   private Person person(String dni) {
+      return Person.builder()
+             .firstName("name")
+             .lastName("surname")
+             .dni(dni)
+             .email(dni + "@example.com")
+             .phone("600000000")
+             .dateOfBirth(LocalDate.of(1980, 1, 1))
+             .userAccess(UserAccess.builder().userName("user" + dni).hashedPassword("hashed-password").build())
+             .address(new Address("street", 28000, "Madrid", "Spain"))
+             .build();
+   }
+
+}
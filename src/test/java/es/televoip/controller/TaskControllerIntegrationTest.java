@@ -2,31 +2,56 @@ package es.televoip.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import es.televoip.model.Task;
+import es.televoip.model.dto.TaskCursor;
+import es.televoip.model.enums.SortFieldTask;
 import es.televoip.model.enums.TaskStatus;
+import es.televoip.model.mapper.TaskMapper;
 import es.televoip.repository.TaskRepository;
+import es.televoip.statistics.TaskStatistics;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.test.context.ActiveProfiles;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
@@ -50,6 +75,12 @@ class TaskControllerIntegrationTest {
    @MockBean
    private TaskRepository repository;
 
+   @Autowired
+   private TaskMapper taskMapper;
+
+   @Autowired
+   private TaskStatistics statistics;
+
    @Autowired
    private ObjectMapper objectMapper; // clase Jackson que se utiliza para convertir objetos Java en JSON y viceversa
 
@@ -151,13 +182,186 @@ class TaskControllerIntegrationTest {
       tasks.add(task2);
       tasks.add(task3);
 
-      when(repository.findAll()).thenReturn(tasks);
+      // el servicio consulta directamente la proyección a DTO
+      when(repository.findAllAsDto()).thenReturn(tasks.stream().map(taskMapper::toDto).toList());
       mockMvc.perform(get("/api/tasks/all"))
              .andExpect(status().isOk())
              .andExpect(jsonPath("$.size()").value(tasks.size()))
              .andDo(print());
    }
 
+   @Test
+   void shouldReturnTasksByCursor() throws Exception {
+      List<Task> tasks = new ArrayList<>();
+      for (int i = 1; i <= 3; i++) {
+         Task task = Task.builder()
+                .description("description" + i)
+                .title("title" + i)
+                .priority(i)
+                .isCompleted(Boolean.FALSE)
+                .taskStatus(TaskStatus.ON_TIME)
+                .build();
+         task.setId((long) i);
+         tasks.add(task);
+      }
+
+      // se piden 2 tareas: el repositorio recibe 3 para saber si hay página siguiente
+      when(repository.findAllAfter(SortFieldTask.TASK_PRIORITYD, Sort.Direction.ASC, null, null, 3)).thenReturn(tasks);
+      mockMvc.perform(get("/api/tasks/cursor")
+             .param("sortBy", "TASK_PRIORITYD")
+             .param("sortOrder", "ASC")
+             .param("size", "2"))
+             .andExpect(status().isOk())
+             .andExpect(jsonPath("$.content.size()").value(2))
+             .andExpect(jsonPath("$.hasNext").value(true))
+             .andExpect(jsonPath("$.nextCursor").value(
+                    new TaskCursor(SortFieldTask.TASK_PRIORITYD, Sort.Direction.ASC, 2, 2L).encode()))
+             .andDo(print());
+   }
+
+   @Test
+   void shouldReturnSliceOfTasksWithoutCounting() throws Exception {
+      List<Task> tasks = new ArrayList<>();
+      for (int i = 1; i <= 2; i++) {
+         tasks.add(Task.builder()
+                .description("description" + i)
+                .title("title" + i)
+                .priority(i)
+                .isCompleted(Boolean.FALSE)
+                .taskStatus(TaskStatus.ON_TIME)
+                .build());
+      }
+
+      when(repository.findSliceBy(any(Pageable.class)))
+             .thenReturn(new SliceImpl<>(tasks, PageRequest.of(0, 2), true));
+      mockMvc.perform(get("/api/tasks/slice")
+             .param("page", "0")
+             .param("size", "2"))
+             .andExpect(status().isOk())
+             .andExpect(jsonPath("$.content.size()").value(2))
+             .andExpect(jsonPath("$.last").value(false))
+             .andExpect(jsonPath("$.totalElements").doesNotExist())
+             .andDo(print());
+      verify(repository, never()).count();
+   }
+
+   @Test
+   void shouldExportTasksAsNdjson() throws Exception {
+      List<Task> tasks = new ArrayList<>();
+      for (int i = 1; i <= 3; i++) {
+         Task task = Task.builder()
+                .description("description" + i)
+                .title("title" + i)
+                .priority(i)
+                .isCompleted(Boolean.FALSE)
+                .taskStatus(TaskStatus.ON_TIME)
+                .build();
+         task.setId((long) i);
+         tasks.add(task);
+      }
+      when(repository.streamAllByOrderById()).thenAnswer(invocation -> tasks.stream());
+
+      // la respuesta se escribe de forma asíncrona (StreamingResponseBody)
+      MvcResult plain = mockMvc.perform(get("/api/tasks/export"))
+             .andExpect(request().asyncStarted())
+             .andReturn();
+      String body = mockMvc.perform(asyncDispatch(plain))
+             .andExpect(status().isOk())
+             .andExpect(content().contentType("application/x-ndjson"))
+             .andReturn().getResponse().getContentAsString();
+      List<String> lines = body.lines().toList();
+      assertEquals(3, lines.size());
+      assertEquals("title2", objectMapper.readTree(lines.get(1)).get("title").asText());
+
+      MvcResult gzip = mockMvc.perform(get("/api/tasks/export").param("gzip", "true"))
+             .andExpect(request().asyncStarted())
+             .andReturn();
+      byte[] compressed = mockMvc.perform(asyncDispatch(gzip))
+             .andExpect(status().isOk())
+             .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+             .andReturn().getResponse().getContentAsByteArray();
+      try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+         assertEquals(body, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+      }
+   }
+
+   @Test
+   void shouldUpdateTasksInBulk() throws Exception {
+      when(repository.updateAllByIdIn(any(), eq(Boolean.TRUE), isNull(), isNull(), any())).thenReturn(2);
+
+      mockMvc.perform(patch("/api/tasks/bulk")
+             .contentType(MediaType.APPLICATION_JSON)
+             .content("{\"ids\": [1, 2], \"isCompleted\": true}"))
+             .andExpect(status().isOk())
+             .andExpect(jsonPath("$.updated").value(2))
+             .andDo(print());
+
+      // sin cambios que aplicar la petición no es válida
+      mockMvc.perform(patch("/api/tasks/bulk")
+             .contentType(MediaType.APPLICATION_JSON)
+             .content("{\"ids\": [1, 2]}"))
+             .andExpect(status().isBadRequest());
+   }
+
+   @Test
+   void shouldAcceptTaskImportAndReportItsProgress() throws Exception {
+      MvcResult result = mockMvc.perform(post("/api/tasks/import")
+             .contentType(MediaType.APPLICATION_NDJSON)
+             .content("{\"title\":\"abc\"}\n"))
+             .andExpect(status().isAccepted())
+             .andExpect(jsonPath("$.id").exists())
+             .andExpect(header().string(HttpHeaders.LOCATION, startsWith("/api/tasks/import/")))
+             .andDo(print())
+             .andReturn();
+
+      mockMvc.perform(get(result.getResponse().getHeader(HttpHeaders.LOCATION)))
+             .andExpect(status().isOk())
+             .andExpect(jsonPath("$.id").isNotEmpty());
+
+      // solo se admiten CSV y NDJSON
+      mockMvc.perform(post("/api/tasks/import")
+             .contentType(MediaType.TEXT_PLAIN)
+             .content("title"))
+             .andExpect(status().isBadRequest());
+      mockMvc.perform(get("/api/tasks/import/unknown"))
+             .andExpect(status().isNotFound());
+   }
+
+   @Test
+   void shouldReturnTaskStatisticsWithoutQueryingTheDatabase() throws Exception {
+      LocalDate today = LocalDate.now();
+      when(repository.countGroupedByTaskStatus()).thenReturn(List.<Object[]>of(
+             new Object[]{TaskStatus.ON_TIME, 3L}, new Object[]{TaskStatus.LATE, 1L}));
+      when(repository.countGroupedByIsCompleted()).thenReturn(List.<Object[]>of(
+             new Object[]{false, 4L}));
+      when(repository.countGroupedByPriority()).thenReturn(List.<Object[]>of(
+             new Object[]{1, 2L}, new Object[]{9, 2L}));
+      when(repository.countGroupedByCreationDay()).thenReturn(List.<Object[]>of(new Object[]{today, 4L}));
+      statistics.reconcile();
+
+      mockMvc.perform(get("/api/tasks/statistics"))
+             .andExpect(status().isOk())
+             .andExpect(jsonPath("$.total").value(4))
+             .andExpect(jsonPath("$.byTaskStatus.ON_TIME").value(3))
+             .andExpect(jsonPath("$.byTaskStatus.LATE").value(1))
+             .andExpect(jsonPath("$.byCompletion.false").value(4))
+             .andExpect(jsonPath("$.byPriority.9").value(2))
+             .andExpect(jsonPath("$.createdPerDay['" + today + "']").value(4))
+             .andExpect(jsonPath("$.reconciledAt").exists())
+             .andDo(print());
+      verify(repository, never()).findAll();
+   }
+
+   @Test
+   void shouldRejectInvalidCursor() throws Exception {
+      mockMvc.perform(get("/api/tasks/cursor")
+             .param("sortBy", "TASK_PRIORITYD")
+             .param("sortOrder", "ASC")
+             .param("cursor", "not-a-cursor"))
+             .andExpect(status().isBadRequest())
+             .andDo(print());
+   }
+
    @Test
    void shouldReturnListOfTasksWithFilter() throws Exception {
       List<Task> tasks = new ArrayList<>();
@@ -276,20 +480,64 @@ class TaskControllerIntegrationTest {
              .taskStatus(TaskStatus.ON_TIME)
              .build();
 
-      when(repository.findById(id)).thenReturn(Optional.of(task));
-      when(repository.save(task)).thenReturn(updatedtask);
-      //when(repository.save(any(Task.class))).thenReturn(updatedtask);
+      // una sentencia UPDATE sobre la tarea leída como DTO
+      when(repository.findAsDtoById(id)).thenReturn(Optional.of(taskMapper.toDto(task)));
+      when(repository.updateById(eq(id), any(), eq(0L), any())).thenReturn(1);
 
       mockMvc.perform(put("/api/tasks/{id}", id)
              .contentType(MediaType.APPLICATION_JSON)
              .content(objectMapper.writeValueAsString(updatedtask)))
              .andExpect(status().isOk())
+             .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
              .andExpect(jsonPath("$.title").value(updatedtask.getTitle()))
              .andExpect(jsonPath("$.description").value(updatedtask.getDescription()))
              .andExpect(jsonPath("$.priority").value(updatedtask.getPriority()))
              .andDo(print());
    }
 
+   @Test
+   void shouldSendTheVersionAsETagAndHonourIfMatch() throws Exception {
+      long id = 1L;
+      Task task = Task.builder()
+             .description("description")
+             .title("title")
+             .priority(1)
+             .isCompleted(Boolean.FALSE)
+             .taskStatus(TaskStatus.ON_TIME)
+             .build();
+      task.setVersion(7);
+      when(repository.findById(id)).thenReturn(Optional.of(task));
+
+      mockMvc.perform(get("/api/tasks/{id}", id))
+             .andExpect(status().isOk())
+             .andExpect(header().string(HttpHeaders.ETAG, "\"7\""));
+      mockMvc.perform(get("/api/tasks/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"7\""))
+             .andExpect(status().isNotModified());
+
+      // If-Match con otra versión: la sentencia UPDATE, condicionada a ella, no modifica la fila (412)
+      when(repository.findAsDtoById(id)).thenReturn(Optional.of(taskMapper.toDto(task)));
+      when(repository.existsById(id)).thenReturn(true);
+      mockMvc.perform(patch("/api/tasks/{id}/status", id)
+             .param("taskStatus", "LATE")
+             .header(HttpHeaders.IF_MATCH, "\"6\""))
+             .andExpect(status().isPreconditionFailed());
+      verify(repository).updateTaskStatusById(eq(id), eq(TaskStatus.LATE), eq(6L), any());
+
+      // con la versión leída, la sentencia se condiciona a ella
+      when(repository.updateTaskStatusById(eq(id), eq(TaskStatus.LATE), eq(7L), any())).thenReturn(1);
+      mockMvc.perform(patch("/api/tasks/{id}/status", id)
+             .param("taskStatus", "LATE")
+             .header(HttpHeaders.IF_MATCH, "\"7\""))
+             .andExpect(status().isOk())
+             .andExpect(header().string(HttpHeaders.ETAG, "\"8\""))
+             .andExpect(jsonPath("$.taskStatus").value("LATE"));
+
+      mockMvc.perform(patch("/api/tasks/{id}/status", id)
+             .param("taskStatus", "LATE")
+             .header(HttpHeaders.IF_MATCH, "not-a-version"))
+             .andExpect(status().isBadRequest());
+   }
+
    @Test
    void shouldReturnNotFoundUpdateTask() throws Exception {
       long id = 1L;
@@ -303,8 +551,7 @@ class TaskControllerIntegrationTest {
              .taskStatus(TaskStatus.ON_TIME)
              .build();
 
-      when(repository.findById(id)).thenReturn(Optional.empty());
-      when(repository.save(any(Task.class))).thenReturn(updatedtask);
+      when(repository.findAsDtoById(id)).thenReturn(Optional.empty());
 
       mockMvc.perform(put("/api/tasks/{id}", id)
              .contentType(MediaType.APPLICATION_JSON)
@@ -0,0 +1,39 @@
+package es.televoip.datasource;
+
+import static es.televoip.factory.TaskDtoDataFactory.createSampleTask1Default;
+import es.televoip.service.implement.TaskServiceImpl;
+import javax.sql.DataSource;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/*
+*  Arranque de la aplicación con réplica configurada. La 'réplica' es la misma base de datos H2 que la principal, de modo
+*  que el esquema creado por Hibernate existe en ambas.
+*
+ */
+@SpringBootTest(properties = {"spring.config.location=classpath:application-test.properties",
+   "spring.datasource.replica.url=jdbc:h2:mem:testdb"})
+class ReplicaDataSourceConfigurationTest {
+
+   @Autowired
+   private DataSource dataSource;
+
+   @Autowired
+   private ReplicaRoutingDataSource routingDataSource;
+
+   @Autowired
+   private TaskServiceImpl taskService;
+
+   @Test
+   void writesAndReadsGoThroughTheRoutingDataSource() {
+      assertThat(dataSource).isInstanceOf(LazyConnectionDataSourceProxy.class);
+      assertThat(routingDataSource.isReplicaUsable()).isTrue();
+
+      Long id = taskService.saveTask(createSampleTask1Default()).getId();
+      assertThat(taskService.getTaskById(id).getTitle()).isEqualTo(createSampleTask1Default().getTitle());
+   }
+
+}
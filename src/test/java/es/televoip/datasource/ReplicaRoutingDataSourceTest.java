@@ -0,0 +1,106 @@
+package es.televoip.datasource;
+
+import java.time.Duration;
+import javax.sql.DataSource;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+*  Enrutado de lecturas y escrituras con dos bases de datos H2 en memoria: cada una tiene una tabla 'origin' con su
+*  nombre, de modo que la consulta indica a qué base de datos ha ido.
+*
+ */
+class ReplicaRoutingDataSourceTest {
+
+   private static final String WHERE = "SELECT name FROM origin";
+
+   private DataSource primary;
+
+   private DataSource replica;
+
+   @BeforeEach
+   void createDatabases() {
+      primary = database("primary");
+      replica = database("replica");
+      new JdbcTemplate(replica).execute("CREATE TABLE replication_status (lag BIGINT)");
+      new JdbcTemplate(replica).update("INSERT INTO replication_status VALUES (0)");
+   }
+
+   @Test
+   void readOnlyTransactionsGoToTheReplica() {
+      Routing routing = routing(replica, null);
+
+      assertThat(routing.query(true)).isEqualTo("replica");
+      assertThat(routing.query(false)).isEqualTo("primary");
+      assertThat(routing.jdbcTemplate.queryForObject(WHERE, String.class)).isEqualTo("primary"); // sin transacción
+   }
+
+   @Test
+   void readsFallBackToThePrimaryWhileTheReplicaLags() {
+      Routing routing = routing(replica, "SELECT lag FROM replication_status");
+      assertThat(routing.query(true)).isEqualTo("replica");
+
+      new JdbcTemplate(replica).update("UPDATE replication_status SET lag = 30");
+      routing.dataSource.checkReplica();
+      assertThat(routing.dataSource.isReplicaUsable()).isFalse();
+      assertThat(routing.query(true)).isEqualTo("primary");
+
+      new JdbcTemplate(replica).update("UPDATE replication_status SET lag = 1");
+      routing.dataSource.checkReplica();
+      assertThat(routing.query(true)).isEqualTo("replica");
+   }
+
+   @Test
+   void readsFallBackToThePrimaryWhenTheReplicaIsDown() {
+      DataSource down = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/unreachable", "sa", "");
+      Routing routing = routing(down, null);
+
+      assertThat(routing.dataSource.isReplicaUsable()).isFalse();
+      assertThat(routing.query(true)).isEqualTo("primary");
+   }
+
+   private Routing routing(DataSource replicaDataSource, String lagQuery) {
+      ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, replicaDataSource,
+             Duration.ofSeconds(5), lagQuery, Duration.ZERO);
+      dataSource.afterPropertiesSet();
+      return new Routing(dataSource, new LazyConnectionDataSourceProxy(dataSource));
+   }
+
+   private static DataSource database(String name) {
+      DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + System.nanoTime()
+             + ";DB_CLOSE_DELAY=-1", "sa", "");
+      JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+      jdbcTemplate.execute("CREATE TABLE origin (name VARCHAR(20))");
+      jdbcTemplate.update("INSERT INTO origin VALUES (?)", name);
+      return dataSource;
+   }
+
+   private static final class Routing {
+
+      private final ReplicaRoutingDataSource dataSource;
+
+      private final JdbcTemplate jdbcTemplate;
+
+      private final DataSourceTransactionManager transactionManager;
+
+      private Routing(ReplicaRoutingDataSource dataSource, DataSource lazyDataSource) {
+         this.dataSource = dataSource;
+         this.jdbcTemplate = new JdbcTemplate(lazyDataSource);
+         this.transactionManager = new DataSourceTransactionManager(lazyDataSource);
+      }
+
+      private String query(boolean readOnly) {
+         TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+         transaction.setReadOnly(readOnly);
+         return transaction.execute(status -> jdbcTemplate.queryForObject(WHERE, String.class));
+      }
+
+   }
+
+}
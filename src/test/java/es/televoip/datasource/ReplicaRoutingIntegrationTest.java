@@ -0,0 +1,121 @@
+package es.televoip.datasource;
+
+import es.televoip.cache.CacheKey;
+import es.televoip.cache.CacheKeyLoader;
+import es.televoip.exceptions.DataException;
+import static es.televoip.factory.TaskDtoDataFactory.createSampleTaskWithId;
+import es.televoip.model.dto.TaskDto;
+import es.televoip.model.enums.SortFieldTask;
+import es.televoip.model.enums.TaskStatus;
+import es.televoip.service.implement.TaskServiceImpl;
+import es.televoip.statistics.TaskStatistics;
+import java.nio.file.Path;
+import java.util.List;
+import javax.sql.DataSource;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.annotation.DirtiesContext;
+
+/*
+*  Base de datos principal y réplica en dos H2 en memoria. La réplica solo recibe los datos cuando la prueba copia la
+*  principal (syncReplica), así que entre copias va retrasada: las lecturas sin caché lo muestran, y las que llenan
+*  la caché deben leer de la principal.
+*
+ */
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@SpringBootTest(properties = {
+   "spring.config.location=classpath:application-test.properties",
+   "cache.enabled=true",
+   "spring.datasource.replica.url=" + ReplicaRoutingIntegrationTest.REPLICA_URL,
+   "spring.datasource.replica.check-interval=0s"})
+class ReplicaRoutingIntegrationTest {
+
+   // la tabla mínima permite el repository.count() del arranque (TodoApiSpringApplication) antes de la primera copia
+   static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1;"
+          + "INIT=CREATE TABLE IF NOT EXISTS TASK (ID BIGINT)";
+
+   @Autowired
+   private TaskServiceImpl taskService;
+
+   @Autowired
+   private CacheKeyLoader cacheKeyLoader;
+
+   @Autowired
+   private TaskStatistics statistics;
+
+   @Autowired
+   @Qualifier("primaryDataSource")
+   private DataSource primary;
+
+   @TempDir
+   private Path directory;
+
+   @Test
+   public void testCacheFillsDoNotStoreWhatTheLaggingReplicaReturns() {
+      Long id = taskService.saveTask(createSampleTaskWithId(null, "Informe", "Preparar el informe", 3)).getId();
+      syncReplica();
+      assertEquals("Informe", taskService.getTaskById(id).getTitle());
+
+      // La réplica no recibe la actualización, que desaloja la entrada tras el commit
+      taskService.updateTask(id, createSampleTaskWithId(id, "Informe final", "Preparar el informe", 3), null);
+      assertThat(replicaTitles()).containsExactly("Informe");
+
+      // La lectura que vuelve a llenar la caché va a la principal
+      assertEquals("Informe final", taskService.getTaskById(id).getTitle());
+      assertEquals("Informe final", taskService.getTaskById(id).getTitle());
+
+      // Una tarea borrada no vuelve a la caché desde la réplica
+      taskService.deleteTaskById(id);
+      DataException ex = assertThrows(DataException.class, () -> taskService.getTaskById(id));
+      assertEquals(HttpStatus.NOT_FOUND, ex.getErrorCode());
+   }
+
+   @Test
+   public void testCacheRefreshesReadFromThePrimary() {
+      syncReplica();
+      taskService.saveTask(createSampleTaskWithId(null, "Informe", "Preparar el informe", 3));
+      assertThat(replicaTitles()).isEmpty();
+
+      Object refreshed = cacheKeyLoader.load(CacheKey.of(TaskServiceImpl.class, "getTasksByTaskStatus", TaskStatus.ON_TIME));
+
+      assertThat((List<?>) refreshed).extracting("title").containsExactly("Informe");
+   }
+
+   @Test
+   public void testStatisticsReconcileReadsFromThePrimary() {
+      syncReplica();
+      taskService.saveTask(createSampleTaskWithId(null, "Informe", "Preparar el informe", 3));
+      assertThat(replicaTitles()).isEmpty();
+
+      statistics.reconcile();
+
+      assertEquals(1, statistics.snapshot().total());
+   }
+
+   // lectura sin caché (solo lectura): va a la réplica
+   private List<String> replicaTitles() {
+      return taskService.getTasksByCursor(SortFieldTask.TASK_TITLE, Sort.Direction.ASC, null, 10).content().stream()
+             .map(TaskDto::getTitle)
+             .toList();
+   }
+
+   // copia la principal en la réplica: hasta la siguiente copia, la réplica va retrasada
+   private void syncReplica() {
+      String script = directory.resolve("primary.sql").toString();
+      new JdbcTemplate(primary).execute("SCRIPT TO '" + script + "'");
+      JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:routing-replica", "sa", ""));
+      replica.execute("DROP ALL OBJECTS");
+      replica.execute("RUNSCRIPT FROM '" + script + "'");
+   }
+
+}
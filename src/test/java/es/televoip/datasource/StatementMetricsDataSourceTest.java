@@ -0,0 +1,79 @@
+package es.televoip.datasource;
+
+import static es.televoip.factory.TaskDtoDataFactory.createSampleTask1Default;
+import es.televoip.service.TaskService;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.sql.DataSource;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.matchesPattern;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+*  Sentencias SQL por petición: cabecera Server-Timing, métricas db.request.* y log de sentencias lentas (con umbral 0
+*  todas lo son).
+*
+ */
+@ActiveProfiles("test")
+@SpringBootTest(properties = {"spring.config.location=classpath:application-test.properties",
+   "spring.datasource.metrics.slow-query-threshold=0ms"})
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+class StatementMetricsDataSourceTest {
+
+   @Autowired
+   private MockMvc mockMvc;
+
+   @Autowired
+   private DataSource dataSource;
+
+   @Autowired
+   private TaskService taskService;
+
+   @Autowired
+   private MeterRegistry meterRegistry;
+
+   @Test
+   void shouldCountTheStatementsOfEachRequest(CapturedOutput output) throws Exception {
+      assertThat(dataSource).isInstanceOf(StatementMetricsDataSource.class);
+      Long id = taskService.saveTask(createSampleTask1Default()).getId();
+
+      mockMvc.perform(get("/api/tasks/{id}", id))
+             .andExpect(status().isOk())
+             .andExpect(header().string(ServerTimingFilter.SERVER_TIMING,
+                    matchesPattern("db;dur=\\d+\\.\\d{3};desc=\"1 statements, 1 rows\", app;dur=\\d+\\.\\d{3}")));
+
+      // lectura de los valores anteriores y UPDATE de una fila
+      mockMvc.perform(patch("/api/tasks/{id}/toCompleted", id))
+             .andExpect(status().isOk())
+             .andExpect(header().string(ServerTimingFilter.SERVER_TIMING,
+                    matchesPattern("db;dur=[0-9.]+;desc=\"2 statements, 2 rows\", app;dur=[0-9.]+")));
+
+      assertThat(meterRegistry.get("db.request.statements").tags("method", "GET", "uri", "/api/tasks/{id}")
+             .summary().totalAmount()).isEqualTo(1);
+      assertThat(meterRegistry.get("db.request.time").tags("method", "PATCH", "uri", "/api/tasks/{id}/toCompleted")
+             .timer().count()).isEqualTo(1);
+      // sentencia lenta con sus parámetros
+      assertThat(output).contains("Slow SQL").containsPattern("where t1_0\\.id=\\? \\[1=" + id + "\\]");
+   }
+
+   @Test
+   void shouldSendTheHeaderWithoutBody() throws Exception {
+      mockMvc.perform(get("/api/tasks/{id}", 999L))
+             .andExpect(status().isNotFound())
+             .andExpect(header().string(ServerTimingFilter.SERVER_TIMING,
+                    matchesPattern("db;dur=[0-9.]+;desc=\"1 statements, 0 rows\", app;dur=[0-9.]+")));
+   }
+
+}
@@ -0,0 +1,105 @@
+package es.televoip.jfr;
+
+import static es.televoip.factory.TaskDtoDataFactory.createSampleTask1Default;
+import es.televoip.exceptions.DataException;
+import es.televoip.model.enums.TaskStatus;
+import es.televoip.service.TaskService;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.util.unit.DataSize;
+
+/*
+*  Grabación JFR iniciada y detenida desde el endpoint, con los eventos de servicios, cachés y repositorios. Sin perfil
+*  'test' para que las cachés Caffeine estén activas.
+*
+ */
+@DirtiesContext // guarda tareas en la base de datos compartida
+@SpringBootTest(properties = "spring.config.location=classpath:application-test.properties")
+class FlightRecordingEndpointTest {
+
+   @Autowired
+   private FlightRecordingEndpoint endpoint;
+
+   @Autowired
+   private TaskService taskService;
+
+   @Test
+   void shouldRecordServiceCacheAndRepositoryEvents() throws Exception {
+      assertThat(endpoint.status().recording()).isFalse();
+      assertThat(endpoint.start(null, Duration.ofMinutes(5)).recording()).isTrue();
+
+      taskService.saveTask(createSampleTask1Default());
+      taskService.getTasksByTaskStatus(TaskStatus.LATE);
+      taskService.getTasksByTaskStatus(TaskStatus.LATE);
+      assertThrows(DataException.class, () -> taskService.getTaskById(999L));
+
+      FlightRecordingEndpoint.RecordingStatus stopped = endpoint.stop();
+      assertThat(stopped.recording()).isFalse();
+      Path file = Path.of(stopped.file());
+      assertThat(Files.size(file)).isEqualTo(stopped.bytes()).isPositive();
+
+      List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+      assertThat(events(events, "es.televoip.ServiceCall"))
+             .extracting(event -> event.getString("method") + "(" + event.getString("arguments") + ") "
+                    + event.getString("outcome"))
+             .contains("saveTask(TaskDto) SUCCESS", "getTaskById(999) DataException")
+             .containsSubsequence("getTasksByTaskStatus(LATE) SUCCESS", "getTasksByTaskStatus(LATE) SUCCESS");
+      assertThat(events(events, "es.televoip.CacheLookup"))
+             .filteredOn(event -> event.getString("method").equals("getTasksByTaskStatus"))
+             .extracting(event -> event.getBoolean("hit"))
+             .containsExactly(false, true);
+      assertThat(events(events, "es.televoip.CacheLoad"))
+             .extracting(event -> event.getString("cache") + " " + event.getString("method"))
+             .contains("cacheManyTasks getTasksByTaskStatus");
+      assertThat(events(events, "es.televoip.RepositoryQuery"))
+             .extracting(event -> event.getString("repository") + "." + event.getString("method") + " "
+                    + event.getLong("resultSize"))
+             .contains("TaskRepository.findAllAsDtoByTaskStatus 0", "TaskRepository.findById 0");
+
+      // una configuración desconocida no inicia la grabación
+      assertThrows(InvalidEndpointRequestException.class, () -> endpoint.start("unknown", null));
+      assertThat(endpoint.status().recording()).isFalse();
+   }
+
+   @Test
+   void shouldKeepOnlyTheNewestRecordings(@TempDir Path directory) throws Exception {
+      for (String name : List.of("todo-api-20230101-000000.jfr", "todo-api-20230102-000000.jfr", "other.jfr")) {
+         Files.createFile(directory.resolve(name));
+      }
+      FlightRecordingEndpoint limited = new FlightRecordingEndpoint(directory, DataSize.ofMegabytes(10),
+             Duration.ofHours(1), 2);
+
+      limited.start(null, null);
+      Path file = Path.of(limited.stop().file());
+      limited.destroy();
+
+      // la grabación nueva y la más reciente de las anteriores; los ficheros con otro nombre no se tocan
+      try (Stream<Path> files = Files.list(directory)) {
+         assertThat(files.map(path -> path.getFileName().toString()))
+                .containsExactlyInAnyOrder(file.getFileName().toString(), "todo-api-20230102-000000.jfr", "other.jfr");
+      }
+   }
+
+   private static List<RecordedEvent> events(List<RecordedEvent> events, String name) {
+      // en el fichero los eventos están agrupados por hilo y por búfer, no en orden
+      return events.stream()
+             .filter(event -> event.getEventType().getName().equals(name))
+             .sorted(Comparator.comparing(RecordedEvent::getStartTime))
+             .toList();
+   }
+
+}
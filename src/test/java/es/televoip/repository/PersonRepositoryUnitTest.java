@@ -0,0 +1,207 @@
+package es.televoip.repository;
+
+import es.televoip.config.ProfilePictureMigration;
+import es.televoip.model.Person;
+import es.televoip.model.Task;
+import es.televoip.model.dto.PersonDto;
+import es.televoip.model.embeded.Address;
+import es.televoip.model.embeded.UserAccess;
+import es.televoip.model.enums.TaskStatus;
+import es.televoip.model.mapper.PersonMapper;
+import es.televoip.model.mapper.PersonMapperImpl;
+import es.televoip.storage.ProfilePictureStore;
+import jakarta.persistence.EntityManagerFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+/*
+*  Comprueba que los listados de personas con sus tareas no lanzan una consulta de tareas por persona (N+1): el número
+*  de sentencias SQL (estadísticas de Hibernate) no cambia al aumentar el número de personas.
+*
+ */
+@DataJpaTest(properties = {"spring.config.location=classpath:application-test.properties",
+   "spring.jpa.properties.hibernate.generate_statistics=true"})
+@Import(PersonMapperImpl.class)
+public class PersonRepositoryUnitTest {
+
+   private static final int TASKS_PER_PERSON = 3;
+
+   @Autowired
+   private TestEntityManager entityManager;
+
+   @Autowired
+   private PersonRepository repository;
+
+   @Autowired
+   private PersonMapper mapper;
+
+   @Autowired
+   private EntityManagerFactory entityManagerFactory;
+
+   @Autowired
+   private JdbcTemplate jdbcTemplate;
+
+   @Test
+   public void findAllWithTasksUsesOneStatementWhateverThePersonCount() {
+      persistPersons(0, 5);
+      long few = countStatements(() -> repository.findAllWithTasks(Sort.by("id")).stream().map(mapper::toDto).toList());
+
+      persistPersons(5, 40);
+      List<PersonDto> persons = new ArrayList<>();
+      long many = countStatements(() -> persons.addAll(
+             repository.findAllWithTasks(Sort.by("id")).stream().map(mapper::toDto).toList()));
+
+      assertEquals(1, few);
+      assertEquals(few, many);
+      assertThat(persons).hasSize(40).allSatisfy(person -> assertThat(person.getTasks()).hasSize(TASKS_PER_PERSON));
+   }
+
+   @Test
+   public void findAllLoadsTasksInBatches() {
+      // sin entity graph, @BatchSize carga las tareas de hasta 50 personas por consulta
+      persistPersons(0, 5);
+      long few = countStatements(() -> repository.findAll().stream().map(mapper::toDto).toList());
+
+      persistPersons(5, 40);
+      long many = countStatements(() -> repository.findAll().stream().map(mapper::toDto).toList());
+
+      assertEquals(2, few);
+      assertEquals(few, many);
+   }
+
+   @Test
+   public void pageWithTasksUsesThreeStatementsWhateverThePageSize() {
+      persistPersons(0, 45);
+
+      long small = countStatements(() -> pageWithTasks(PageRequest.of(0, 5, Sort.by("id"))));
+      List<PersonDto> page = new ArrayList<>();
+      long large = countStatements(() -> page.addAll(pageWithTasks(PageRequest.of(1, 20, Sort.by("id")))));
+
+      assertEquals(3, small); // ID de la página, COUNT y personas con sus tareas
+      assertEquals(small, large);
+      assertThat(page).extracting(PersonDto::getFirstName).first().isEqualTo("name20");
+      assertThat(page).hasSize(20).allSatisfy(person -> assertThat(person.getTasks()).hasSize(TASKS_PER_PERSON));
+   }
+
+   @Test
+   public void summaryListsDoNotLoadTasks() {
+      persistPersons(0, 3);
+
+      // los listados de PersonService sin 'WithTasks' devuelven 'tasks' a null, sin consultar la tabla de tareas
+      List<PersonDto> persons = new ArrayList<>();
+      long statements = countStatements(() -> {
+         persons.addAll(repository.findAllAsDto(Sort.by("id")));
+         persons.addAll(repository.findSliceAsDto(PageRequest.of(0, 10)).getContent());
+         return persons.addAll(repository.findAllAsDtoByFilter("name"));
+      });
+
+      assertEquals(3, statements);
+      assertThat(persons).hasSize(9).allSatisfy(person -> assertThat(person.getTasks()).isNull());
+      assertThat(repository.findAllWithTasks(Sort.by("id")).get(0).getTasks()).hasSize(TASKS_PER_PERSON);
+   }
+
+   @Test
+   public void findAllWithTaskCountUsesASingleGroupBy() {
+      persistPersons(0, 40);
+      entityManager.persist(person(40, 0)); // persona sin tareas
+
+      List<PersonDto> persons = new ArrayList<>();
+      long statements = countStatements(() -> persons.addAll(repository.findAllWithTaskCount(Sort.by("id"))));
+
+      assertEquals(1, statements);
+      assertThat(persons).hasSize(41);
+      assertThat(persons.get(0).getTaskCount()).isEqualTo(TASKS_PER_PERSON);
+      assertThat(persons.get(40).getTaskCount()).isZero();
+      assertThat(persons).allSatisfy(person -> assertThat(person.getTasks()).isNull());
+      assertEquals(41, repository.findPageWithTaskCount(PageRequest.of(0, 10)).getTotalElements());
+   }
+
+   @Test
+   @DirtiesContext // modifica la tabla 'person'
+   public void migrationMovesPicturesFromThePersonTableToTheStore(@TempDir Path directory) throws Exception {
+      // tabla con la columna de la versión anterior, que guardaba la imagen en la fila
+      persistPersons(0, 2);
+      entityManager.flush();
+      jdbcTemplate.execute("ALTER TABLE person ADD COLUMN profile_picture VARBINARY(255)");
+      jdbcTemplate.update("UPDATE person SET profile_picture = ?", new byte[]{1, 2, 3});
+
+      ProfilePictureStore store = new ProfilePictureStore(directory);
+      new ProfilePictureMigration(jdbcTemplate, store).afterSingletonsInstantiated();
+
+      List<String> references = jdbcTemplate.queryForList("SELECT profile_picture_id FROM person", String.class);
+      assertThat(references).hasSize(2).containsOnly(store.store(new byte[]{1, 2, 3}));
+      assertThat(Files.readAllBytes(store.find(references.get(0)).orElseThrow())).containsExactly(1, 2, 3);
+      assertThat(jdbcTemplate.queryForList("SELECT column_name FROM information_schema.columns"
+             + " WHERE table_name = 'PERSON'", String.class)).doesNotContain("PROFILE_PICTURE");
+   }
+
+   private List<PersonDto> pageWithTasks(PageRequest page) {
+      // misma secuencia que PersonServiceImpl.getPersonsWithTasksPaged
+      List<Long> ids = repository.findPageOfIds(page).getContent();
+      return repository.findAllWithTasksByIdIn(ids).stream()
+             .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+             .map(mapper::toDto)
+             .toList();
+   }
+
+   private long countStatements(Supplier<?> query) {
+      entityManager.flush();
+      entityManager.clear(); // sin entidades en el contexto de persistencia, como en una petición nueva
+      Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+      statistics.clear();
+      query.get();
+      return statistics.getPrepareStatementCount();
+   }
+
+   private void persistPersons(int from, int to) {
+      for (int i = from; i < to; i++) {
+         entityManager.persist(person(i, TASKS_PER_PERSON));
+      }
+   }
+
+   private Person person(int i, int tasks) {
+      List<Task> personTasks = new ArrayList<>();
+      for (int t = 0; t < tasks; t++) {
+         personTasks.add(Task.builder()
+                .title("task " + i + "-" + t)
+                .description("description " + t)
+                .priority(1)
+                .isCompleted(false)
+                .taskStatus(TaskStatus.ON_TIME)
+                .build());
+      }
+      return Person.builder()
+             .firstName("name" + i)
+             .lastName("surname" + i)
+             .dni(String.format("%08dA", i))
+             .email("person" + i + "@example.com")
+             .phone("600000000")
+             .dateOfBirth(LocalDate.of(1980, 1, 1))
+             .userAccess(UserAccess.builder()
+                    .userName("user" + i)
+                    .hashedPassword("hashed-password")
+                    .build())
+             .address(new Address("street " + i, 28000, "Madrid", "Spain"))
+             .tasks(personTasks)
+             .build();
+   }
+
+}
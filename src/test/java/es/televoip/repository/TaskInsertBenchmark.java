@@ -0,0 +1,124 @@
+package es.televoip.repository;
+
+import es.televoip.model.Task;
+import es.televoip.model.enums.TaskStatus;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.NestedTestConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+/*
+*  Inserta 100.000 tareas con saveAll, por bloques, generando los ID con la secuencia de BaseEntity (inserciones en
+*  lotes JDBC) y con IDENTITY (un INSERT por fila), y muestra el tiempo total y el número de sentencias preparadas.
+*
+*  Con H2 en memoria no hay viaje de red por sentencia y los tiempos son parecidos: lo que cambia es el número de
+*  sentencias. El ahorro de tiempo aparece contra una base de datos real, indicando su conexión.
+*
+*  No es un benchmark de JMH: es una sola pasada para comparar sentencias y memoria, con tiempos orientativos. Para
+*  medir tiempos entre versiones están los benchmarks de src/jmh (ver README).
+*
+*  No forma parte de la ejecución normal de las pruebas (Surefire solo incluye las clases '*Test'). Se lanza con:
+*
+*     mvn test -Dtest='TaskInsertBenchmark*'
+*     mvn test -Dtest='TaskInsertBenchmark*' -Dspring.datasource.url=jdbc:mariadb://localhost:3306/bd_bench \
+*            -Dspring.datasource.username=... -Dspring.datasource.password=... \
+*            -Dspring.datasource.driverClassName=org.mariadb.jdbc.Driver \
+*            -Dspring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MariaDBDialect
+*
+ */
+public class TaskInsertBenchmark {
+
+   private static final int TASKS = 100_000;
+   private static final int CHUNK = 1_000;
+   private static final int WARMUP = 20_000;
+
+   @Nested
+   @DataJpaTest(properties = {
+      "spring.config.location=classpath:application-test.properties",
+      "spring.jpa.show-sql=false",
+      "spring.jpa.properties.hibernate.generate_statistics=true"})
+   @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE) // la conexión de las propiedades
+   class SequenceIds extends InsertRun {
+
+      @Test
+      void insertTasks() {
+         run("sequence");
+      }
+
+   }
+
+   @Nested
+   @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+   @DataJpaTest(properties = {
+      "spring.config.location=classpath:application-test.properties",
+      "spring.jpa.show-sql=false",
+      "spring.jpa.properties.hibernate.generate_statistics=true"})
+   @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+   @TestPropertySource(properties = "spring.jpa.mapping-resources=META-INF/identity-ids-orm.xml")
+   class IdentityIds extends InsertRun {
+
+      @Test
+      void insertTasks() {
+         run("identity");
+      }
+
+   }
+
+   abstract static class InsertRun {
+
+      @Autowired
+      private TestEntityManager entityManager;
+
+      @Autowired
+      private EntityManagerFactory entityManagerFactory;
+
+      @Autowired
+      private TaskRepository repository;
+
+      void run(String strategy) {
+         Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+         insert(WARMUP); // calentamiento
+         statistics.clear();
+
+         long start = System.nanoTime();
+         insert(TASKS);
+         long millis = (System.nanoTime() - start) / 1_000_000;
+
+         System.out.printf("%-8s ids: %,d tasks in %,d ms, %,d prepared statements%n",
+                strategy, TASKS, millis, statistics.getPrepareStatementCount());
+         assertEquals(TASKS + WARMUP, repository.count());
+      }
+
+      private void insert(int count) {
+         for (int from = 0; from < count; from += CHUNK) {
+            List<Task> tasks = new ArrayList<>(CHUNK);
+            for (int i = from; i < from + CHUNK; i++) {
+               tasks.add(Task.builder()
+                      .title("title" + i)
+                      .description("description" + i)
+                      .priority(1)
+                      .taskStatus(TaskStatus.ON_TIME)
+                      .isCompleted(false)
+                      .taskDateCreation(LocalDateTime.now())
+                      .build());
+            }
+            repository.saveAll(tasks);
+            entityManager.flush();
+            entityManager.clear();
+         }
+      }
+
+   }
+
+}
@@ -0,0 +1,144 @@
+package es.televoip.repository;
+
+import es.televoip.model.Person;
+import es.televoip.model.Task;
+import es.televoip.model.dto.PersonDto;
+import es.televoip.model.embeded.Address;
+import es.televoip.model.embeded.UserAccess;
+import es.televoip.model.enums.TaskStatus;
+import es.televoip.model.mapper.PersonMapper;
+import es.televoip.model.mapper.PersonMapperImpl;
+import es.televoip.model.mapper.TaskMapper;
+import es.televoip.model.mapper.TaskMapperImpl;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+
+/*
+*  Compara los listados cargando entidades y convirtiéndolas con el mapper frente a las consultas que devuelven el DTO
+*  directamente (TaskRepository.findAllAsDto, PersonRepository.findAllAsDto): tiempo medio por consulta y memoria
+*  reservada por el hilo.
+*
+*  No es un benchmark de JMH: es una sola pasada para comparar sentencias y memoria, con tiempos orientativos. Para
+*  medir tiempos entre versiones están los benchmarks de src/jmh (ver README).
+*
+*  No forma parte de la ejecución normal de las pruebas (Surefire solo incluye las clases '*Test'). Se lanza con:
+*
+*     mvn test -Dtest=TaskProjectionBenchmark
+*
+ */
+@DataJpaTest(properties = "spring.config.location=classpath:application-test.properties")
+@Import({TaskMapperImpl.class, PersonMapperImpl.class})
+public class TaskProjectionBenchmark {
+
+   private static final int TASKS = 20_000;
+   private static final int PERSONS = 500;
+   private static final String PICTURE_ID = "0".repeat(64); // referencia a ProfilePictureStore
+   private static final int WARMUP = 5;
+   private static final int ITERATIONS = 20;
+
+   @Autowired
+   private TestEntityManager entityManager;
+
+   @Autowired
+   private TaskRepository taskRepository;
+
+   @Autowired
+   private PersonRepository personRepository;
+
+   @Autowired
+   private TaskMapper taskMapper;
+
+   @Autowired
+   private PersonMapper personMapper;
+
+   @Test
+   public void compareTaskEntitiesWithDtoProjection() {
+      for (int i = 0; i < TASKS; i++) {
+         entityManager.persist(Task.builder()
+                .title("title " + i)
+                .description("description of the task number " + i)
+                .priority(i % 5)
+                .isCompleted(i % 2 == 0)
+                .taskStatus(i % 3 == 0 ? TaskStatus.LATE : TaskStatus.ON_TIME)
+                .build());
+      }
+      entityManager.flush();
+
+      Result entities = measure(() -> taskRepository.findAll().stream().map(taskMapper::toDto).toList());
+      Result projection = measure(() -> taskRepository.findAllAsDto());
+
+      report("tasks", entities, projection);
+      assertEquals(TASKS, projection.size());
+   }
+
+   @Test
+   public void comparePersonEntitiesWithDtoProjection() {
+      for (int i = 0; i < PERSONS; i++) {
+         entityManager.persist(Person.builder()
+                .firstName("name" + i)
+                .lastName("surname" + i)
+                .dni(String.format("%08dA", i))
+                .email("person" + i + "@example.com")
+                .phone("600000000")
+                .dateOfBirth(LocalDate.of(1980, 1, 1))
+                .userAccess(UserAccess.builder()
+                       .userName("user" + i)
+                       .hashedPassword("hashed-password")
+                       .profilePictureId(PICTURE_ID)
+                       .build())
+                .address(new Address("street " + i, 28000, "Madrid", "Spain"))
+                .build());
+      }
+      entityManager.flush();
+
+      Result entities = measure(() -> personRepository.findAll().stream().map(personMapper::toDto).toList());
+      Result projection = measure(() -> personRepository.findAllAsDto(Sort.unsorted()));
+
+      report("persons", entities, projection);
+      assertEquals(PERSONS, projection.size());
+      PersonDto person = personRepository.findAllAsDto(Sort.by("id")).get(0);
+      assertEquals(PICTURE_ID, person.getUserAccess().getProfilePictureId());
+      assertNull(person.getTasks());
+   }
+
+   private Result measure(Supplier<List<?>> query) {
+      com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+      long threadId = Thread.currentThread().getId();
+      int size = 0;
+      for (int i = 0; i < WARMUP; i++) {
+         query.get();
+         entityManager.clear(); // cada consulta empieza con el contexto de persistencia vacío, como una petición nueva
+      }
+
+      long nanos = 0;
+      long bytes = 0;
+      for (int i = 0; i < ITERATIONS; i++) {
+         long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+         long start = System.nanoTime();
+         size = query.get().size();
+         nanos += System.nanoTime() - start;
+         bytes += threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+         entityManager.clear();
+      }
+      return new Result(size, nanos / ITERATIONS / 1_000_000.0, bytes / ITERATIONS / (1024.0 * 1024.0));
+   }
+
+   private void report(String name, Result entities, Result projection) {
+      System.out.printf("%-8s entities+mapper: %8.2f ms %8.2f MB | projection: %8.2f ms %8.2f MB%n",
+             name, entities.millis(), entities.megabytes(), projection.millis(), projection.megabytes());
+   }
+
+   private record Result(int size, double millis, double megabytes) {
+   }
+
+}
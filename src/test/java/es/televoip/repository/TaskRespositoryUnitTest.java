@@ -1,10 +1,18 @@
 package es.televoip.repository;
 
+import es.televoip.config.IdSequenceInitializer;
 import es.televoip.model.Task;
+import es.televoip.model.dto.TaskDto;
+import es.televoip.model.enums.SortFieldTask;
 import es.televoip.model.enums.TaskStatus;
+import jakarta.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -14,6 +22,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 
 
@@ -38,6 +48,12 @@ public class TaskRespositoryUnitTest {
    @Autowired
    private TaskRepository repository;
 
+   @Autowired
+   private EntityManagerFactory entityManagerFactory;
+
+   @Autowired
+   private JdbcTemplate jdbcTemplate;
+
    @Test
    public void should_create_a_task() {
       // Given
@@ -233,7 +249,7 @@ public class TaskRespositoryUnitTest {
 
    @Test
    // en el repository debemos activar @Modifying(clearAutomatically = true) 
-   public void testMarkTaskAsCompleted() {
+   public void testUpdateIsCompletedById() {
       // Given
       Task task = Task.builder()
              .description("description1")
@@ -244,16 +260,18 @@ public class TaskRespositoryUnitTest {
              .taskDateCreation(LocalDateTime.now())
              .build();
       entityManager.persist(task);
+      OffsetDateTime lastUpdated = OffsetDateTime.now().withNano(0);
 
       // When
-      System.out.println("ID: " + task.getId());
-      repository.markTaskAsCompleted(task.getId());
+      int updated = repository.updateIsCompletedById(task.getId(), Boolean.TRUE, task.getVersion(), lastUpdated);
 
-      // Then
+      // Then: la sentencia incrementa la versión y registra la última modificación
       Task updatedTask = repository.findById(task.getId()).orElse(null);
-      System.out.println(updatedTask.toString());
+      assertEquals(1, updated);
       assertNotNull(updatedTask);
       assertTrue(updatedTask.getIsCompleted());
+      assertEquals(task.getVersion() + 1, updatedTask.getVersion());
+      assertEquals(lastUpdated.toInstant(), updatedTask.getLogLastUpdated().toInstant());
    }
 
    @Test
@@ -380,4 +398,95 @@ public class TaskRespositoryUnitTest {
       assertThat(foundTasks).hasSize(1).contains(task1);
    }
 
+   @Test
+   public void testFindAllAsDtoByTaskStatusReturnsOnlyMatchingRows() {
+      entityManager.persist(Task.builder().title("late").description("d").priority(1)
+             .isCompleted(Boolean.FALSE).taskStatus(TaskStatus.LATE).build());
+      entityManager.persist(Task.builder().title("on time").description("d").priority(2)
+             .isCompleted(Boolean.TRUE).taskStatus(TaskStatus.ON_TIME).build());
+      entityManager.flush();
+      entityManager.clear();
+
+      List<TaskDto> late = repository.findAllAsDtoByTaskStatus(TaskStatus.LATE);
+      List<TaskDto> completed = repository.findAllAsDtoByIsCompleted(true);
+
+      assertEquals(1, late.size());
+      assertEquals("late", late.get(0).getTitle());
+      assertNotNull(late.get(0).getId());
+      assertEquals(1, completed.size());
+      assertEquals("on time", completed.get(0).getTitle());
+      assertEquals(2, repository.findAllAsDto().size());
+   }
+
+   @Test
+   public void testSequenceIsMovedPastIdsAssignedBeforeIt() {
+      // fila insertada con un ID de la antigua columna IDENTITY, por encima de la secuencia recién creada
+      jdbcTemplate.update("INSERT INTO task (id, title, description, task_status, is_completed, priority) "
+             + "VALUES (1000, 'legacy', 'legacy', 0, false, 1)");
+
+      new IdSequenceInitializer(entityManagerFactory, jdbcTemplate).afterSingletonsInstantiated();
+
+      Task task = repository.save(Task.builder().title("new").description("new").priority(1)
+             .isCompleted(Boolean.FALSE).taskStatus(TaskStatus.ON_TIME).build());
+      assertTrue(task.getId() > 1000);
+   }
+
+   @Test
+   public void testSequenceIsNotAdvancedWhenAlreadyPastIds() {
+      repository.save(Task.builder().title("new").description("new").priority(1)
+             .isCompleted(Boolean.FALSE).taskStatus(TaskStatus.ON_TIME).build());
+      Long before = sequenceValue();
+
+      new IdSequenceInitializer(entityManagerFactory, jdbcTemplate).afterSingletonsInstantiated();
+
+      assertEquals(before, sequenceValue()); // no se ha consumido ningún bloque de ID
+   }
+
+   @Test
+   public void testFindAllAfterWalksEveryTaskOnceInOrder() {
+      // Given: prioridades repetidas y fechas de finalización nulas
+      LocalDateTime now = LocalDateTime.now().withNano(0);
+      int[] priorities = {3, 1, 2, 1, 3};
+      List<Task> tasks = new ArrayList<>();
+      for (int i = 0; i < priorities.length; i++) {
+         Task task = Task.builder()
+                .description("description" + i)
+                .title("title" + i)
+                .priority(priorities[i])
+                .isCompleted(Boolean.FALSE)
+                .taskStatus(TaskStatus.ON_TIME)
+                .taskDateFinished(i % 2 == 0 ? now.plusDays(i) : null)
+                .build();
+         tasks.add(entityManager.persist(task));
+      }
+
+      // When / Then: recorrer las páginas de 2 en 2 devuelve el mismo orden que la consulta completa
+      assertThat(walk(SortFieldTask.TASK_PRIORITYD, Sort.Direction.ASC, Task::getPriority))
+             .isEqualTo(expected(tasks, Comparator.comparing(Task::getPriority).thenComparing(Task::getId)));
+      assertThat(walk(SortFieldTask.TASK_DATE_OF_FINISHED, Sort.Direction.DESC, Task::getTaskDateFinished))
+             .isEqualTo(expected(tasks, Comparator.comparing(Task::getTaskDateFinished,
+                    Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+                    .thenComparing(Task::getId).reversed()));
+   }
+
+   private Long sequenceValue() {
+      return jdbcTemplate.queryForObject(
+             "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'TASK_SEQ'", Long.class);
+   }
+
+   private List<Long> walk(SortFieldTask sortBy, Sort.Direction direction, Function<Task, Object> value) {
+      List<Long> ids = new ArrayList<>();
+      List<Task> page = repository.findAllAfter(sortBy, direction, null, null, 2);
+      while (!page.isEmpty()) {
+         page.forEach(task -> ids.add(task.getId()));
+         Task last = page.get(page.size() - 1);
+         page = repository.findAllAfter(sortBy, direction, value.apply(last), last.getId(), 2);
+      }
+      return ids;
+   }
+
+   private List<Long> expected(List<Task> tasks, Comparator<Task> order) {
+      return tasks.stream().sorted(order).map(Task::getId).toList();
+   }
+
 }
@@ -1,11 +1,15 @@
 package es.televoip.service;
 
+import es.televoip.cache.TaskCacheInvalidator;
+import es.televoip.exceptions.DataException;
 import es.televoip.model.Task;
 import es.televoip.model.dto.TaskDto;
 import es.televoip.model.enums.TaskStatus;
 import es.televoip.model.mapper.TaskMapper;
 import es.televoip.repository.TaskRepository;
+import es.televoip.search.TaskSearchIndex;
 import es.televoip.service.implement.TaskServiceImpl;
+import es.televoip.statistics.TaskStatistics;
 import java.time.LocalDateTime;
 import java.time.Month;
 import java.util.Arrays;
@@ -15,13 +19,21 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.http.HttpStatus;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /*
 *  Las pruebas de servicio se centran en la lógica de negocio y cómo interactúa con la capa de persistencia y otras dependencias.
@@ -42,6 +54,18 @@ class TaskServiceIntegrationTest {
    @Mock
    private TaskMapper mapper;
 
+   @Mock
+   private TaskCacheInvalidator cacheInvalidator;
+
+   @Mock
+   private TaskSearchIndex searchIndex;
+
+   @Mock
+   private TaskStatistics statistics;
+
+   @Mock
+   private DateTimeProvider dateTimeProvider;
+
    @InjectMocks
    private TaskServiceImpl service;
 
@@ -61,18 +85,19 @@ class TaskServiceIntegrationTest {
    @Test
    public void testGetAllTasks() {
       // Configurar datos de prueba
-      List<Task> tasks = Arrays.asList(new Task(), new Task());
+      List<TaskDto> tasks = Arrays.asList(new TaskDto(), new TaskDto());
 
-      // Configurar comportamiento de repository.findAll() y mapper.toDto()
-      when(repository.findAll()).thenReturn(tasks);
-      when(mapper.toDto(any(Task.class))).thenReturn(new TaskDto());
+      // Configurar comportamiento de repository.findAllAsDto(): la consulta ya devuelve DTOs
+      when(repository.findAllAsDto()).thenReturn(tasks);
 
       // Llamar al método del servicio
       List<TaskDto> taskDtos = service.getAllTasks();
 
-      // Verificar que los métodos se llamaron correctamente
-      verify(repository, times(1)).findAll();
-      verify(mapper, times(tasks.size())).toDto(any(Task.class));
+      // Verificar que los métodos se llamaron correctamente y que no se cargan entidades ni se usa el mapper
+      assertThat(taskDtos).hasSize(tasks.size());
+      verify(repository, times(1)).findAllAsDto();
+      verify(repository, never()).findAll();
+      verifyNoInteractions(mapper);
    }
 
    @Test
@@ -125,87 +150,146 @@ class TaskServiceIntegrationTest {
    @Test
    public void testUpdateTask() {
       // Configurar datos de prueba
-      TaskDto taskDto = new TaskDto();
-      Task task = new Task();
+      TaskDto taskDto = TaskDto.builder().title("title").description("description").priority(2).build();
+      TaskDto current = new TaskDto();
+      current.setVersion(3L);
 
-      // Configurar comportamiento de repository.findById(), repository.save() y mapper.toEntity()
-      when(repository.findById(anyLong())).thenReturn(Optional.of(task));
-      when(mapper.toEntity(taskDto)).thenReturn(task);
-      when(repository.save(task)).thenReturn(task);
-      when(mapper.toDto(task)).thenReturn(taskDto);
+      // Configurar comportamiento de repository.findAsDtoById() y de la sentencia UPDATE (1 fila modificada)
+      when(repository.findAsDtoById(1L)).thenReturn(Optional.of(current));
+      when(repository.updateById(eq(1L), eq(taskDto), eq(3L), any())).thenReturn(1);
 
       // Llamar al método del servicio
-      TaskDto updatedTaskDto = service.updateTask(1L, taskDto); // actualizamos pasando el 'objeto entero'
+      TaskDto updatedTaskDto = service.updateTask(1L, taskDto, 3L); // actualizamos pasando el 'objeto entero'
+
+      // Verificar que se aplica con una sentencia UPDATE condicionada a la versión, sin cargar ni guardar la entidad
+      assertThat(updatedTaskDto.getTitle()).isEqualTo("title");
+      assertThat(updatedTaskDto.getPriority()).isEqualTo(2);
+      assertThat(updatedTaskDto.getVersion()).isEqualTo(4L);
+      verify(repository, times(1)).updateById(eq(1L), eq(taskDto), eq(3L), any());
+      verify(repository, never()).findById(anyLong());
+      verify(repository, never()).save(any(Task.class));
+      verifyNoInteractions(mapper);
+   }
 
-      // Verificar que los métodos se llamaron correctamente
-      verify(repository, times(1)).findById(anyLong());
-      verify(mapper, times(1)).toEntity(taskDto); // solo si se pasa el 'objeto entero'
-      verify(repository, times(1)).save(task);
-      verify(mapper, times(1)).toDto(task);
+   @Test
+   public void testUpdateTaskWithStaleVersionFailsWithoutUpdating() {
+      TaskDto current = new TaskDto();
+      current.setVersion(4L);
+      when(repository.findAsDtoById(1L)).thenReturn(Optional.of(current));
+      when(repository.existsById(1L)).thenReturn(true);
+
+      // versión distinta de la leída: la sentencia UPDATE, condicionada a la de If-Match, no modifica la fila (412)
+      when(repository.updateTaskStatusById(eq(1L), eq(TaskStatus.LATE), eq(3L), any())).thenReturn(0);
+      DataException stale = assertThrows(DataException.class,
+             () -> service.updateTaskStatus(1L, TaskStatus.LATE, 3L));
+      assertEquals(HttpStatus.PRECONDITION_FAILED, stale.getErrorCode());
+
+      // misma versión al leer, pero otra petición la cambia antes de la sentencia UPDATE (0 filas)
+      when(repository.updateTaskStatusById(eq(1L), eq(TaskStatus.LATE), eq(4L), any())).thenReturn(0);
+      DataException changed = assertThrows(DataException.class,
+             () -> service.updateTaskStatus(1L, TaskStatus.LATE, 4L));
+      assertEquals(HttpStatus.PRECONDITION_FAILED, changed.getErrorCode());
+      verifyNoInteractions(cacheInvalidator, statistics);
    }
 
    @Test
    public void testUpdateTaskStatus() {
-      // Configurar datos de prueba
-      Task task = new Task();
-      TaskDto taskDto = new TaskDto();
+      TaskDto current = new TaskDto();
+      current.setVersion(2L);
 
-      // Configurar comportamiento de repository.findById(), repository.save() y mapper.toDto()
-      when(repository.findById(anyLong())).thenReturn(Optional.of(task));
-      when(mapper.toEntity(taskDto)).thenReturn(task);
-      when(repository.save(task)).thenReturn(task);
-      when(mapper.toDto(task)).thenReturn(new TaskDto());
+      // Configurar comportamiento de repository.findAsDtoById() y de la sentencia UPDATE (1 fila modificada)
+      when(repository.findAsDtoById(1L)).thenReturn(Optional.of(current));
+      when(repository.updateTaskStatusById(eq(1L), eq(TaskStatus.LATE), eq(2L), any())).thenReturn(1);
 
       // Llamar al método del servicio
-      TaskDto updatedTaskDto = service.updateTaskStatus(1L, TaskStatus.LATE);
+      TaskDto updatedTaskDto = service.updateTaskStatus(1L, TaskStatus.LATE, null);
+
+      // Verificar que se modifica solo el campo, sin cargar ni guardar la entidad, y que sin If-Match la sentencia
+      // se condiciona a la versión leída
+      assertThat(updatedTaskDto.getTaskStatus()).isEqualTo(TaskStatus.LATE);
+      assertThat(updatedTaskDto.getLogLastUpdated()).isNotNull();
+      assertThat(updatedTaskDto.getVersion()).isEqualTo(3L);
+      verify(repository, times(1)).updateTaskStatusById(eq(1L), eq(TaskStatus.LATE), eq(2L), any());
+      verify(repository, never()).findById(anyLong());
+      verify(repository, never()).save(any(Task.class));
+      verifyNoInteractions(mapper);
+   }
 
-      // Verificar que los métodos se llamaron correctamente
-      verify(repository, times(1)).findById(anyLong());
-      verify(repository, times(1)).save(task);
-      verify(mapper, times(1)).toDto(task);
+   @Test
+   public void testUpdateTaskWithoutIfMatchConflictsWhenChangedMeanwhile() {
+      TaskDto current = new TaskDto();
+      current.setVersion(2L);
+      when(repository.findAsDtoById(1L)).thenReturn(Optional.of(current));
+      when(repository.updateIsCompletedById(eq(1L), eq(true), eq(2L), any())).thenReturn(0);
+      when(repository.existsById(1L)).thenReturn(true);
+
+      // otra petición ha cambiado la tarea entre la lectura y la sentencia UPDATE: 409, sin devolver la copia leída
+      DataException conflict = assertThrows(DataException.class, () -> service.updateTaskIsCompleted(1L, true, null));
+      assertEquals(HttpStatus.CONFLICT, conflict.getErrorCode());
+      verifyNoInteractions(cacheInvalidator, statistics);
    }
 
    @Test
    public void testUpdateTaskIsCompleted() {
-      // Configurar datos de prueba
-      TaskDto taskDto = new TaskDto();
-      Task task = new Task();
-
-      // Configurar comportamiento de repository.findById(), repository.save() y mapper.toDto()
-      when(repository.findById(anyLong())).thenReturn(Optional.of(task));
-      when(mapper.toEntity(taskDto)).thenReturn(task);
-      when(repository.save(task)).thenReturn(task);
-      when(mapper.toDto(task)).thenReturn(new TaskDto());
+      // Configurar comportamiento de repository.findAsDtoById() y de la sentencia UPDATE (1 fila modificada)
+      when(repository.findAsDtoById(1L)).thenReturn(Optional.of(new TaskDto()));
+      when(repository.updateIsCompletedById(eq(1L), eq(true), isNull(), any())).thenReturn(1);
 
       // Llamar al método del servicio
-      TaskDto updatedTaskDto = service.updateTaskIsCompleted(1L, true);
+      TaskDto updatedTaskDto = service.updateTaskIsCompleted(1L, true, null);
 
-      // Verificar que los métodos se llamaron correctamente
-      verify(repository, times(1)).findById(anyLong());
-      verify(repository, times(1)).save(task);
-      verify(mapper, times(1)).toDto(task);
+      // Verificar que se modifica solo el campo, sin cargar ni guardar la entidad
+      assertThat(updatedTaskDto.getIsCompleted()).isTrue();
+      verify(repository, times(1)).updateIsCompletedById(eq(1L), eq(true), isNull(), any());
+      verify(repository, never()).save(any(Task.class));
+      verifyNoInteractions(mapper);
    }
 
    @Test
    public void testUpdateTaskDateOfFinished() {
       // Configurar datos de prueba
       LocalDateTime newDateOfFinished = LocalDateTime.of(2023, Month.DECEMBER, 31, 15, 30, 00); // Sin segundos fraccionales      
-      TaskDto taskDto = new TaskDto();
-      Task task = new Task();
 
-      // Configurar comportamiento de repository.findById(), repository.save() y mapper.toDto()
-      when(repository.findById(anyLong())).thenReturn(Optional.of(task));
-      when(mapper.toEntity(taskDto)).thenReturn(task);
-      when(repository.save(task)).thenReturn(task);
-      when(mapper.toDto(task)).thenReturn(taskDto);
+      // Configurar comportamiento de repository.findAsDtoById() y de la sentencia UPDATE (1 fila modificada)
+      when(repository.findAsDtoById(1L)).thenReturn(Optional.of(new TaskDto()));
+      when(repository.updateTaskDateFinishedById(eq(1L), eq(newDateOfFinished), isNull(), any())).thenReturn(1);
 
       // Llamar al método del servicio
-      TaskDto updatedTaskDto = service.updateTaskDateOfFinished(1L, newDateOfFinished);
+      TaskDto updatedTaskDto = service.updateTaskDateOfFinished(1L, newDateOfFinished, null);
 
-      // Verificar que los métodos se llamaron correctamente
-      verify(repository, times(1)).findById(anyLong());
-      verify(repository, times(1)).save(task);
-      verify(mapper, times(1)).toDto(task);
+      // Verificar que se modifica solo el campo, sin cargar ni guardar la entidad
+      assertThat(updatedTaskDto.getTaskDateFinished()).isEqualTo(newDateOfFinished);
+      verify(repository, times(1)).updateTaskDateFinishedById(eq(1L), eq(newDateOfFinished), isNull(), any());
+      verify(repository, never()).save(any(Task.class));
+      verifyNoInteractions(mapper);
+   }
+
+   @Test
+   public void testUpdateTaskDateOfFinishedMapsNoRowsToTheCause() {
+      LocalDateTime created = LocalDateTime.of(2023, Month.DECEMBER, 1, 10, 0);
+      TaskDto task = new TaskDto();
+      task.setTaskDateCreation(created);
+      when(repository.findAsDtoById(1L)).thenReturn(Optional.of(task));
+      when(repository.updateTaskDateFinishedById(eq(1L), any(), isNull(), any())).thenReturn(0);
+
+      // la sentencia no modifica la fila: fecha anterior a la creación o tarea borrada entre medias
+      DataException dateFail = assertThrows(DataException.class,
+             () -> service.updateTaskDateOfFinished(1L, created.minusDays(1), null));
+      assertEquals(HttpStatus.BAD_REQUEST, dateFail.getErrorCode());
+      DataException notFound = assertThrows(DataException.class,
+             () -> service.updateTaskDateOfFinished(1L, created.plusDays(1), null));
+      assertEquals(HttpStatus.NOT_FOUND, notFound.getErrorCode());
+      verifyNoInteractions(cacheInvalidator);
+   }
+
+   @Test
+   public void testMarkTaskAsCompletedNotFound() {
+      when(repository.findAsDtoById(1L)).thenReturn(Optional.empty());
+
+      DataException ex = assertThrows(DataException.class, () -> service.markTaskAsCompleted(1L, null));
+
+      assertEquals(HttpStatus.NOT_FOUND, ex.getErrorCode());
+      verify(repository, never()).updateIsCompletedById(anyLong(), any(), any(), any());
    }
 
    @Test
@@ -1,28 +1,52 @@
 package es.televoip.service;
 
+import es.televoip.aspects.ExecutionTimeAspect;
+import es.televoip.cache.CacheKey;
 import es.televoip.exceptions.DataException;
+import es.televoip.imports.TaskImportFormat;
+import es.televoip.imports.TaskImportService;
 import static es.televoip.factory.TaskDtoDataFactory.create5SampleTaskList;
 import static es.televoip.factory.TaskDtoDataFactory.createSampleTask1Default;
 import static es.televoip.factory.TaskDtoDataFactory.createSampleTask2Default;
 import static es.televoip.factory.TaskDtoDataFactory.createSampleTaskWithId;
+import es.televoip.model.dto.TaskBulkUpdate;
+import es.televoip.model.dto.TaskBulkUpdateResult;
 import es.televoip.model.dto.TaskDto;
+import es.televoip.model.dto.TaskImportReport;
+import es.televoip.model.dto.TaskStatisticsDto;
 import es.televoip.model.enums.SortFieldTask;
 import es.televoip.model.enums.TaskStatus;
+import es.televoip.search.TaskSearchIndex;
 import es.televoip.service.implement.TaskServiceImpl;
+import es.televoip.statistics.TaskStatistics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD) // indicará al marco de pruebas que debe reinicializar el contexto de la aplicación después de cada prueba
 @SpringBootTest(properties = "spring.config.location=classpath:application-test.properties")
@@ -31,6 +55,21 @@ class TaskServiceUnitTest {
    @Autowired
    private TaskServiceImpl taskService;
 
+   @Autowired
+   private CacheManager cacheManager;
+
+   @Autowired
+   private MeterRegistry meterRegistry;
+
+   @Autowired
+   private TaskImportService importService;
+
+   @Autowired
+   private TaskStatistics statistics;
+
+   @Autowired
+   private TaskSearchIndex searchIndex;
+
    @Test
    public void testGetTask() {
       // Crear una tarea y guardarla en la base de datos
@@ -250,7 +289,7 @@ class TaskServiceUnitTest {
              2);
 
       // Actualizar la tarea utilizando el servicio
-      TaskDto updatedTask = taskService.updateTask(updatedTaskDto.getId(), updatedTaskDto);
+      TaskDto updatedTask = taskService.updateTask(updatedTaskDto.getId(), updatedTaskDto, null);
 
       // Verificar que la tarea se actualizó correctamente
       assertThat(updatedTask).isNotNull();
@@ -259,6 +298,48 @@ class TaskServiceUnitTest {
       assertThat(updatedTask.getDescription()).isEqualTo(updatedTaskDto.getDescription());
    }
 
+   @Test
+   public void testUpdateWithIfMatchVersionRejectsLostUpdates() {
+      TaskDto saved = taskService.saveTask(createSampleTaskWithId(null, "Informe", "Informe anual", 1));
+      assertEquals(0L, saved.getVersion());
+
+      // dos clientes leen la versión 0; el primero la modifica y la tarea pasa a la versión 1
+      TaskDto first = taskService.updateTask(saved.getId(),
+             createSampleTaskWithId(null, "Informe revisado", "Informe anual", 2), 0L);
+      assertEquals(1L, first.getVersion());
+
+      // el segundo no sobrescribe sus cambios
+      DataException ex = assertThrows(DataException.class,
+             () -> taskService.updateTaskStatus(saved.getId(), TaskStatus.LATE, 0L));
+      assertEquals(HttpStatus.PRECONDITION_FAILED, ex.getErrorCode());
+      TaskDto current = taskService.getTaskById(saved.getId());
+      assertEquals("Informe revisado", current.getTitle());
+      assertEquals(TaskStatus.ON_TIME, current.getTaskStatus());
+
+      // con la versión actual sí, y sin If-Match también (sobre la versión leída justo antes)
+      assertEquals(2L, taskService.updateTaskStatus(saved.getId(), TaskStatus.LATE, 1L).getVersion());
+      assertEquals(3L, taskService.markTaskAsCompleted(saved.getId(), null).getVersion());
+      assertEquals(3L, taskService.getTaskById(saved.getId()).getVersion());
+   }
+
+   @Test
+   public void testSaveAllTasksOverwritesAnUpdatedTask() {
+      TaskDto saved = taskService.saveTask(createSampleTaskWithId(null, "Informe", "Informe anual", 1));
+      taskService.updateTaskStatus(saved.getId(), TaskStatus.LATE, null); // versión 1
+
+      // una tarea con ID sobrescribe la existente sea cual sea su versión, igual que saveTask
+      List<TaskDto> savedTasks = taskService.saveAllTasks(List.of(
+             createSampleTaskWithId(saved.getId(), "Informe revisado", "Informe anual", 2),
+             createSampleTaskWithId(null, "Presupuesto", "Presupuesto anual", 3)));
+
+      assertThat(savedTasks).extracting(TaskDto::getId).first().isEqualTo(saved.getId());
+      TaskDto overwritten = taskService.getTaskById(saved.getId());
+      assertEquals("Informe revisado", overwritten.getTitle());
+      assertEquals(2L, overwritten.getVersion());
+      assertThat(overwritten.getTaskDateCreation()).isCloseTo(saved.getTaskDateCreation(), within(1, ChronoUnit.MILLIS));
+      assertThat(taskService.getAllTasks()).hasSize(2);
+   }
+
    @Test
    public void testUpdateTaskDateOfFinished() {
       // Crear y guardar una tarea en la base de datos
@@ -269,7 +350,7 @@ class TaskServiceUnitTest {
       LocalDateTime newDateOfFinished = LocalDateTime.now().plusDays(1);
 
       // Llamar al método del servicio para actualizar la fecha de finalización
-      TaskDto updatedTask = taskService.updateTaskDateOfFinished(savedTaskDto.getId(), newDateOfFinished);
+      TaskDto updatedTask = taskService.updateTaskDateOfFinished(savedTaskDto.getId(), newDateOfFinished, null);
 
       // Verificar que la fecha de finalización se actualizó correctamente
       assertThat(updatedTask).isNotNull();
@@ -286,7 +367,7 @@ class TaskServiceUnitTest {
       TaskStatus newTaskStatus = TaskStatus.LATE;
 
       // Llamar al método del servicio para actualizar el estado de la tarea
-      TaskDto updatedTask = taskService.updateTaskStatus(savedTaskDto.getId(), newTaskStatus);
+      TaskDto updatedTask = taskService.updateTaskStatus(savedTaskDto.getId(), newTaskStatus, null);
 
       // Verificar que el estado de la tarea se actualizó correctamente
       assertThat(updatedTask).isNotNull();
@@ -303,7 +384,7 @@ class TaskServiceUnitTest {
       Boolean newIsCompleted = true;
 
       // Llamar al método del servicio para actualizar el estado de completitud de la tarea
-      TaskDto updatedTask = taskService.updateTaskIsCompleted(savedTaskDto.getId(), newIsCompleted);
+      TaskDto updatedTask = taskService.updateTaskIsCompleted(savedTaskDto.getId(), newIsCompleted, null);
 
       // Verificar que el estado de completitud de la tarea se actualizó correctamente
       assertThat(updatedTask).isNotNull();
@@ -317,13 +398,398 @@ class TaskServiceUnitTest {
       TaskDto savedTaskDto = taskService.saveTask(taskDto);
 
       // Llamar al método del servicio para actualizar la tarea a completada
-      TaskDto updatedTask = taskService.markTaskAsCompleted(savedTaskDto.getId());
+      TaskDto updatedTask = taskService.markTaskAsCompleted(savedTaskDto.getId(), null);
 
       // Verificar que la tarea se actualizó a completada correctamente
       assertThat(updatedTask).isNotNull();
       assertThat(updatedTask.getIsCompleted()).isEqualTo(true);
    }
 
+   @Test
+   public void testUpdateTaskRefreshesOnlyItsCacheEntry() {
+      // Crear dos tareas y leerlas para que queden en la caché 'cacheOneTask'
+      TaskDto savedTaskDto1 = taskService.saveTask(createSampleTask1Default());
+      TaskDto savedTaskDto2 = taskService.saveTask(createSampleTask2Default());
+      taskService.getTaskById(savedTaskDto1.getId());
+      taskService.getTaskById(savedTaskDto2.getId());
+
+      // Actualizar el estado de la primera tarea
+      taskService.updateTaskStatus(savedTaskDto1.getId(), TaskStatus.LATE, null);
+
+      // La entrada de la tarea actualizada se refresca y la de la otra tarea se conserva
+      TaskDto cachedTask1 = cacheManager.getCache("cacheOneTask").get(savedTaskDto1.getId(), TaskDto.class);
+      TaskDto cachedTask2 = cacheManager.getCache("cacheOneTask").get(savedTaskDto2.getId(), TaskDto.class);
+      assertThat(cachedTask1).isNotNull();
+      assertThat(cachedTask1.getTaskStatus()).isEqualTo(TaskStatus.LATE);
+      assertThat(cachedTask2).isNotNull();
+      assertThat(taskService.getTaskById(savedTaskDto1.getId()).getTaskStatus()).isEqualTo(TaskStatus.LATE);
+   }
+
+   @Test
+   public void testStaleFillIsDiscardedAfterConcurrentUpdate() throws Exception {
+      TaskDto savedTaskDto = taskService.saveTask(createSampleTask1Default());
+      Long taskId = savedTaskDto.getId();
+      Cache cache = cacheManager.getCache("cacheOneTask");
+      cache.evict(taskId);
+
+      // Un lector (en su propio hilo) falla en la caché y lee la tarea antes de la actualización
+      ExecutorService reader = Executors.newSingleThreadExecutor();
+      try {
+         assertThat(reader.submit(() -> cache.get(taskId)).get()).isNull();
+
+         // La actualización se confirma antes de que el lector guarde lo que leyó
+         taskService.updateTaskStatus(taskId, TaskStatus.LATE, null);
+         reader.submit(() -> cache.put(taskId, savedTaskDto)).get();
+      } finally {
+         reader.shutdown();
+      }
+
+      // El relleno obsoleto se descarta y la caché conserva el estado confirmado
+      assertThat(cache.get(taskId, TaskDto.class).getTaskStatus()).isEqualTo(TaskStatus.LATE);
+   }
+
+   @Test
+   public void testUpdateTaskIsCompletedEvictsOnlyAffectedLists() {
+      // Crear una tarea ON_TIME y otra LATE
+      TaskDto taskDto1 = createSampleTask1Default();
+      taskDto1.setTaskStatus(TaskStatus.ON_TIME);
+      TaskDto savedTaskDto1 = taskService.saveTask(taskDto1);
+
+      TaskDto taskDto2 = createSampleTaskWithId(2L, "Another Title", "Another Description", 2);
+      taskDto2.setTaskStatus(TaskStatus.LATE);
+      taskService.saveTask(taskDto2);
+
+      // Cargar en 'cacheManyTasks' varios listados
+      taskService.getTasksByTaskStatus(TaskStatus.ON_TIME);
+      taskService.getTasksByTaskStatus(TaskStatus.LATE);
+      taskService.getTasksByCompletion(true);
+      taskService.getTasksByFilter("Another");
+
+      // Marcar la tarea ON_TIME como completada
+      taskService.updateTaskIsCompleted(savedTaskDto1.getId(), true, null);
+
+      // Se invalidan los listados que contenían o deben contener la tarea y se conservan los demás
+      Cache cache = cacheManager.getCache("cacheManyTasks");
+      assertThat(cache.get(CacheKey.of(TaskServiceImpl.class, "getTasksByTaskStatus", TaskStatus.ON_TIME))).isNull();
+      assertThat(cache.get(CacheKey.of(TaskServiceImpl.class, "getTasksByCompletion", true))).isNull();
+      assertThat(cache.get(CacheKey.of(TaskServiceImpl.class, "getTasksByTaskStatus", TaskStatus.LATE))).isNotNull();
+      assertThat(cache.get(CacheKey.of(TaskServiceImpl.class, "getTasksByFilter", "Another"))).isNotNull();
+
+      // El listado invalidado se recalcula con el nuevo estado
+      assertThat(taskService.getTasksByCompletion(true)).hasSize(1);
+   }
+
+   @Test
+   public void testUpdateThatLeavesAFilterEvictsEveryPageOfIt() {
+      List<Long> ids = new ArrayList<>();
+      for (int i = 1; i <= 3; i++) {
+         ids.add(taskService.saveTask(createSampleTaskWithId(null, "Informe " + i, "Informe mensual", i)).getId());
+      }
+      taskService.saveTask(createSampleTaskWithId(null, "Presupuesto", "Presupuesto anual", 1));
+
+      // Cargar en 'cacheManyTasks' las tres páginas de un filtro y una de otro
+      List<Pageable> pages = List.of(PageRequest.of(0, 1), PageRequest.of(1, 1), PageRequest.of(2, 1));
+      pages.forEach(page -> taskService.getTasksByFilterPageable("informe", page));
+      taskService.getTasksByFilterPageable("presupuesto", pages.get(0));
+
+      // Una de las tareas deja de cumplir el filtro: solo una página la contenía, pero en todas cambia el total
+      taskService.updateTask(ids.get(0), createSampleTaskWithId(null, "Cierre", "Cierre mensual", 1), null);
+
+      Cache cache = cacheManager.getCache("cacheManyTasks");
+      pages.forEach(page -> assertThat(cache.get(
+             CacheKey.of(TaskServiceImpl.class, "getTasksByFilterPageable", "informe", page))).isNull());
+      assertThat(cache.get(
+             CacheKey.of(TaskServiceImpl.class, "getTasksByFilterPageable", "presupuesto", pages.get(0)))).isNotNull();
+      assertThat(taskService.getTasksByFilterPageable("informe", pages.get(1)).getTotalElements()).isEqualTo(2);
+   }
+
+   @Test
+   public void testUpdateTasksInBulkUpdatesAllTasksAndEvictsOnlyAffectedEntries() {
+      List<Long> ids = new ArrayList<>();
+      for (int i = 1; i <= 3; i++) {
+         ids.add(taskService.saveTask(createSampleTaskWithId(null, "Cierre " + i, "Cierre mensual", i)).getId());
+      }
+      TaskDto other = taskService.saveTask(createSampleTaskWithId(null, "Otra", "Otra tarea", 1));
+
+      // Cargar en las cachés una tarea del lote, los listados afectados y uno que no lo está
+      taskService.getTaskById(ids.get(0));
+      taskService.getTasksByCompletion(true);
+      taskService.getTasksByCompletion(false);
+      taskService.getTasksByFilter("Otra");
+
+      TaskBulkUpdateResult result = taskService.updateTasksInBulk(
+             new TaskBulkUpdate(ids, null, true, TaskStatus.LATE, null));
+
+      assertEquals(3, result.updated());
+      Cache cache = cacheManager.getCache("cacheManyTasks");
+      assertThat(cache.get(CacheKey.of(TaskServiceImpl.class, "getTasksByCompletion", true))).isNull();
+      assertThat(cache.get(CacheKey.of(TaskServiceImpl.class, "getTasksByCompletion", false))).isNull();
+      assertThat(cache.get(CacheKey.of(TaskServiceImpl.class, "getTasksByFilter", "Otra"))).isNotNull();
+
+      TaskDto updated = taskService.getTaskById(ids.get(0));
+      assertEquals(Boolean.TRUE, updated.getIsCompleted());
+      assertEquals(TaskStatus.LATE, updated.getTaskStatus());
+      assertThat(taskService.getTasksByCompletion(true)).hasSize(3);
+      assertEquals(Boolean.FALSE, taskService.getTaskById(other.getId()).getIsCompleted());
+   }
+
+   @Test
+   public void testUpdateTasksInBulkByFilterRejectsFinishDateBeforeCreation() {
+      TaskDto task = createSampleTaskWithId(null, "Informe", "Informe anual", 1);
+      task.setTaskDateCreation(LocalDateTime.now());
+      taskService.saveTask(task);
+
+      TaskBulkUpdate update = new TaskBulkUpdate(null, "informe", null, null, LocalDateTime.now().minusDays(1));
+
+      DataException ex = assertThrows(DataException.class, () -> taskService.updateTasksInBulk(update));
+      assertEquals(HttpStatus.BAD_REQUEST, ex.getErrorCode());
+   }
+
+   @Test
+   public void testGetTasksByFilterIgnoresAccentsAndRanksTitleMatchesFirst() {
+      TaskDto inDescription = taskService.saveTask(
+             createSampleTaskWithId(null, "Preparar informe", "Resumen para la reunion del lunes", 1));
+      TaskDto inTitle = taskService.saveTask(
+             createSampleTaskWithId(null, "Reunión de equipo", "Revisar los objetivos", 2));
+      taskService.saveTask(createSampleTaskWithId(null, "Comprar material", "Papel y bolígrafos", 3));
+
+      // Sin acentos, con mayúsculas y por prefijo: la tarea con la palabra en el título es más relevante
+      assertThat(taskService.getTasksByFilter("REUNIÓN")).extracting(TaskDto::getId)
+             .containsExactly(inTitle.getId(), inDescription.getId());
+      assertThat(taskService.getTasksByFilter("reu equipo")).extracting(TaskDto::getId)
+             .containsExactly(inTitle.getId());
+
+      // El índice refleja los borrados y la página conserva el orden por relevancia
+      taskService.deleteTaskById(inTitle.getId());
+      Page<TaskDto> page = taskService.getTasksByFilterPageable("reunion", PageRequest.of(0, 10));
+      assertThat(page.getTotalElements()).isEqualTo(1);
+      assertThat(page.getContent()).extracting(TaskDto::getId).containsExactly(inDescription.getId());
+   }
+
+   @Test
+   public void testGetTasksByFilterWithEmptyTextReturnsEveryTask() {
+      taskService.saveTask(createSampleTaskWithId(null, "Preparar informe", "Resumen trimestral", 1));
+      taskService.saveTask(createSampleTaskWithId(null, "Comprar material", "Papel y bolígrafos", 2));
+
+      // Un texto sin palabras devuelve todas las tareas, como LIKE '%%'
+      assertThat(taskService.getTasksByFilter("")).hasSize(2);
+      assertThat(taskService.getTasksByFilter("  ")).hasSize(2);
+      assertThat(taskService.getTasksByFilterPageable("", PageRequest.of(0, 10)).getTotalElements()).isEqualTo(2);
+      assertThat(taskService.getTasksByFilterSliced("", PageRequest.of(0, 10)).getContent()).hasSize(2);
+
+      // Cada palabra debe ser el principio de una palabra de la tarea: una parte interior no coincide
+      assertThat(taskService.getTasksByFilter("inf")).extracting(TaskDto::getTitle).containsExactly("Preparar informe");
+      assertThat(taskService.getTasksByFilter("forme")).isEmpty();
+   }
+
+   @Test
+   public void testGetTasksByFilterDoesNotCacheResultsReadWithoutTheIndex() {
+      taskService.saveTask(createSampleTaskWithId(null, "Preparar informe", "Resumen trimestral", 1));
+      Cache cache = cacheManager.getCache("cacheManyTasks");
+      CacheKey key = CacheKey.of(TaskServiceImpl.class, "getTasksByFilter", "forme");
+
+      // Mientras el índice no está listo se busca con LIKE, que sí encuentra la parte interior de una palabra
+      ReflectionTestUtils.setField(searchIndex, "ready", false);
+      try {
+         assertThat(taskService.getTasksByFilter("forme")).hasSize(1);
+         assertThat(cache.get(key)).isNull();
+      } finally {
+         ReflectionTestUtils.setField(searchIndex, "ready", true);
+      }
+
+      // Con el índice, la entrada se calcula y se cachea con su regla
+      assertThat(taskService.getTasksByFilter("forme")).isEmpty();
+      assertThat(cache.get(key)).isNotNull();
+   }
+
+   @Test
+   public void testGetTasksByFilterSlicedReportsOnlyWhetherThereIsMore() {
+      for (int i = 1; i <= 3; i++) {
+         taskService.saveTask(createSampleTaskWithId(null, "Informe " + i, "Informe trimestral", i));
+      }
+
+      Slice<TaskDto> first = taskService.getTasksByFilterSliced("informe", PageRequest.of(0, 2));
+      Slice<TaskDto> second = taskService.getTasksByFilterSliced("informe", PageRequest.of(1, 2));
+
+      assertThat(first.getContent()).hasSize(2);
+      assertThat(first.hasNext()).isTrue();
+      assertThat(second.getContent()).hasSize(1);
+      assertThat(second.hasNext()).isFalse();
+   }
+
+   @Test
+   public void testExportTasksStreamsEveryTaskInIdOrder() {
+      // más filas que el intervalo de vaciado de la sesión, para recorrer el Stream después de un clear()
+      List<TaskDto> tasks = new ArrayList<>();
+      for (int i = 1; i <= 1200; i++) {
+         tasks.add(createSampleTaskWithId(null, "Tarea " + i, "Exportación", 1));
+      }
+      taskService.saveAllTasks(tasks);
+
+      List<Long> exported = new ArrayList<>();
+      long count = taskService.exportTasks(task -> exported.add(task.getId()));
+
+      assertEquals(1200, count);
+      assertThat(exported).hasSize(1200).isSorted().doesNotHaveDuplicates();
+   }
+
+   @Test
+   public void testImportNdjsonRejectsInvalidRowsWithoutAborting() throws Exception {
+      taskService.saveTask(createSampleTask1Default());
+      assertThat(taskService.getAllTasks()).hasSize(1); // queda en caché
+
+      String ndjson = """
+                      {"title":"Importada 1","description":"Primera tarea importada","priority":3}
+                      {"title":"Importada 2","description":"Prioridad fuera de rango","priority":12}
+                      {"title":"Importada 3",
+
+                      {"title":"Importada 4","description":"Segunda tarea importada","isCompleted":true}
+                      """;
+      TaskImportReport report = awaitImport(ndjson, TaskImportFormat.NDJSON);
+
+      assertEquals("COMPLETED", report.state());
+      assertEquals(4, report.rowsRead());
+      assertEquals(2, report.rowsImported());
+      assertEquals(2, report.rowsRejected());
+      assertThat(report.errors()).extracting(TaskImportReport.RowError::line).containsExactlyInAnyOrder(2L, 3L);
+
+      // las tareas importadas invalidan los listados en caché
+      assertThat(taskService.getAllTasks()).extracting(TaskDto::getTitle)
+             .containsExactlyInAnyOrder(createSampleTask1Default().getTitle(), "Importada 1", "Importada 4");
+   }
+
+   @Test
+   public void testImportCsvWithQuotedFields() throws Exception {
+      String csv = "title,description,priority,taskStatus\n"
+             + "Tarea CSV 1,\"Descripción, con coma\",2,LATE\n"
+             + "\"Tarea \"\"CSV\"\" 2\",\"Descripción en\ndos líneas\",5,\n"
+             + "Tarea CSV 3,Sin prioridad válida,abc,\n";
+      TaskImportReport report = awaitImport(csv, TaskImportFormat.CSV);
+
+      assertEquals(3, report.rowsRead());
+      assertEquals(2, report.rowsImported());
+      assertThat(report.errors()).extracting(TaskImportReport.RowError::line).containsExactly(5L);
+      List<TaskDto> tasks = taskService.getTasksSorted(SortFieldTask.TASK_TITLE, Sort.Direction.ASC);
+      assertThat(tasks).extracting(TaskDto::getTitle).containsExactly("Tarea \"CSV\" 2", "Tarea CSV 1");
+      assertThat(tasks.get(0).getDescription()).isEqualTo("Descripción en\ndos líneas");
+      assertThat(tasks.get(1).getDescription()).isEqualTo("Descripción, con coma");
+      assertThat(tasks.get(1).getTaskStatus()).isEqualTo(TaskStatus.LATE);
+   }
+
+   @Test
+   public void testGetUnknownImportThrowsNotFound() {
+      DataException ex = assertThrows(DataException.class, () -> importService.getImport("unknown"));
+      assertEquals(HttpStatus.NOT_FOUND, ex.getErrorCode());
+   }
+
+   @Test
+   public void testFilterAndTitleSearchesDoNotShareCacheEntries() {
+      // Crear una tarea cuyo texto solo aparece en la descripción
+      taskService.saveTask(createSampleTaskWithId(1L, "Some Title", "Description with keyword", 1));
+
+      // Ambas búsquedas usan 'cacheManyTasks' con el mismo argumento
+      List<TaskDto> byFilter = taskService.getTasksByFilter("keyword");
+      List<TaskDto> byTitle = taskService.getTasksByTitleContaining("keyword");
+
+      // Cada método tiene su propia entrada y no sirve el resultado del otro
+      assertThat(byFilter).hasSize(1);
+      assertThat(byTitle).isEmpty();
+      Cache cache = cacheManager.getCache("cacheManyTasks");
+      assertThat(cache.get(CacheKey.of(TaskServiceImpl.class, "getTasksByFilter", "keyword"))).isNotNull();
+      assertThat(cache.get(CacheKey.of(TaskServiceImpl.class, "getTasksByTitleContaining", "keyword"))).isNotNull();
+   }
+
+   @Test
+   public void testCacheHitsAreCountedPerMethod() {
+      taskService.saveTask(createSampleTask1Default());
+
+      // La primera consulta es un fallo y la segunda un acierto
+      taskService.getTasksByTaskStatus(TaskStatus.ON_TIME);
+      taskService.getTasksByTaskStatus(TaskStatus.ON_TIME);
+
+      assertThat(meterRegistry.get("cache.method.gets")
+             .tags("cache", "cacheManyTasks", "method", "getTasksByTaskStatus", "result", "miss")
+             .counter().count()).isEqualTo(1);
+      assertThat(meterRegistry.get("cache.method.gets")
+             .tags("cache", "cacheManyTasks", "method", "getTasksByTaskStatus", "result", "hit")
+             .counter().count()).isEqualTo(1);
+   }
+
+   @Test
+   public void testDeletesDoNotCountAsCacheLookups() {
+      Long cached = taskService.saveTask(createSampleTaskWithId(null, "Informe", "Resumen", 1)).getId();
+      Long notCached = taskService.saveTask(createSampleTaskWithId(null, "Compra", "Material", 2)).getId();
+      taskService.getTaskById(cached); // acierto: saveTask guarda la tarea en 'cacheOneTask'
+      cacheManager.getCache("cacheOneTask").evict(notCached);
+
+      // El borrado lee la tarea de 'cacheOneTask' para desalojar solo los listados afectados, sin contar una consulta
+      taskService.deleteTaskById(cached);
+      taskService.deleteTaskById(notCached);
+
+      assertThat(meterRegistry.get("cache.method.gets")
+             .tags("cache", "cacheOneTask", "result", "hit").counter().count()).isEqualTo(1);
+      assertThat(meterRegistry.find("cache.method.gets").tags("cache", "cacheOneTask", "result", "miss").counter())
+             .isNull();
+      assertThat(meterRegistry.get(ExecutionTimeAspect.TIMER_NAME)
+             .tags("class", "TaskServiceImpl", "method", "deleteTaskById", "cache", "none")
+             .timer().count()).isEqualTo(2);
+   }
+
+   @Test
+   public void testExecutionTimesAreRecordedAsTimersTaggedByOutcomeAndCacheResult() {
+      taskService.getTasksByTaskStatus(TaskStatus.LATE);
+      taskService.getTasksByTaskStatus(TaskStatus.LATE);
+      assertThrows(DataException.class, () -> taskService.getTaskById(999L));
+
+      assertThat(meterRegistry.get(ExecutionTimeAspect.TIMER_NAME)
+             .tags("class", "TaskServiceImpl", "method", "getTasksByTaskStatus", "outcome", "SUCCESS", "cache", "miss")
+             .timer().count()).isEqualTo(1);
+      Timer hit = meterRegistry.get(ExecutionTimeAspect.TIMER_NAME)
+             .tags("class", "TaskServiceImpl", "method", "getTasksByTaskStatus", "outcome", "SUCCESS", "cache", "hit")
+             .timer();
+      assertThat(hit.count()).isEqualTo(1);
+      assertThat(hit.totalTime(TimeUnit.NANOSECONDS)).isPositive();
+      assertThat(meterRegistry.get(ExecutionTimeAspect.TIMER_NAME)
+             .tags("method", "getTaskById", "outcome", "CLIENT_ERROR", "cache", "miss")
+             .timer().count()).isEqualTo(1);
+      // los métodos sin @Cacheable no consultan la caché
+      taskService.saveTask(createSampleTask2Default());
+      assertThat(meterRegistry.get(ExecutionTimeAspect.TIMER_NAME)
+             .tags("method", "saveTask", "cache", "none")
+             .timer().count()).isEqualTo(1);
+   }
+
+   @Test
+   public void testStatisticsFollowWritesAndMatchAReconcile() {
+      TaskStatisticsDto initial = statistics.snapshot();
+      List<Long> ids = new ArrayList<>();
+      for (int i = 1; i <= 3; i++) {
+         ids.add(taskService.saveTask(createSampleTaskWithId(null, "Cierre " + i, "Cierre mensual", i)).getId());
+      }
+      // dos tareas nuevas y una que sobrescribe la primera (de prioridad 1 a 4): cuenta como actualización
+      taskService.saveAllTasks(List.of(createSampleTaskWithId(null, "Otra", "Otra tarea", 5),
+             createSampleTaskWithId(null, "Otra más", "Otra tarea", 5),
+             createSampleTaskWithId(ids.get(0), "Cierre 1", "Cierre mensual", 4)));
+      taskService.updateTaskStatus(ids.get(0), TaskStatus.LATE, null);
+      taskService.markTaskAsCompleted(ids.get(1), null);
+      taskService.updateTasksInBulk(new TaskBulkUpdate(ids.subList(1, 3), null, true, null, LocalDateTime.now()));
+      taskService.deleteTaskById(ids.get(2));
+
+      TaskStatisticsDto counted = statistics.snapshot();
+      assertEquals(initial.total() + 4, counted.total());
+      assertEquals(initial.byPriority().getOrDefault(5, 0L) + 2, counted.byPriority().get(5));
+      assertEquals(initial.byPriority().getOrDefault(4, 0L) + 1, counted.byPriority().get(4));
+      assertEquals(initial.byPriority().getOrDefault(1, 0L), counted.byPriority().getOrDefault(1, 0L));
+      assertEquals(initial.byPriority().get(3), counted.byPriority().get(3)); // la tarea de prioridad 3 se ha borrado
+      assertThat(counted.finishedPerDay()).containsValue(1L);
+
+      // los contadores mantenidos con cada escritura coinciden con un recálculo desde la base de datos
+      statistics.reconcile();
+      TaskStatisticsDto reconciled = statistics.snapshot();
+      assertThat(reconciled).usingRecursiveComparison().ignoringFields("reconciledAt").isEqualTo(counted);
+      assertThat(reconciled.reconciledAt()).isNotNull();
+   }
+
    @Test
    public void testDeleteTask() {
       // Crear una tarea y guardarla en la base de datos
@@ -360,4 +826,15 @@ class TaskServiceUnitTest {
       assertThat(assertThrows.getErrorMessage()).isEqualTo("La lista de tareas a crear es 'null'.");
    }
 
+   private TaskImportReport awaitImport(String content, TaskImportFormat format) throws InterruptedException {
+      TaskImportReport report = importService.startImport(
+             new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format);
+      for (int i = 0; i < 100 && report.finishedAt() == null; i++) {
+         Thread.sleep(100);
+         report = importService.getImport(report.id());
+      }
+      assertThat(report.finishedAt()).isNotNull();
+      return report;
+   }
+
 }